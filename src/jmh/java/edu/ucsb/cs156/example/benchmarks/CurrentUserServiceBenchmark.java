@@ -0,0 +1,105 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.CurrentUser;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.CurrentUserServiceImpl;
+import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
+import edu.ucsb.cs156.example.services.UserService;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Measures how long {@link CurrentUserServiceImpl} takes to resolve the logged in user, as it does
+ * on every request to {@code /api/currentUser}.
+ *
+ * <p>The user repository answers {@code findByEmail} from memory with a copy of the user, as the
+ * {@code usersByEmail} cache does after a user's first request, so this measures the service rather
+ * than the database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CurrentUserServiceBenchmark {
+  private static final String EMAIL = "cgaucho@ucsb.edu";
+
+  private CurrentUserServiceImpl currentUserService;
+
+  @Setup
+  public void setup() {
+    User stored = User.builder().id(1L).email(EMAIL).fullName("Chris Gaucho").build();
+    UserRepository userRepository =
+        (UserRepository)
+            Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(),
+                new Class<?>[] {UserRepository.class},
+                (proxy, method, args) -> {
+                  if (method.getName().equals("findByEmail")) {
+                    return Optional.of(stored.toBuilder().build());
+                  }
+                  throw new UnsupportedOperationException(method.getName());
+                });
+    UserService userService = new UserService();
+    ReflectionTestUtils.setField(userService, "userRepository", userRepository);
+
+    currentUserService = new CurrentUserServiceImpl();
+    ReflectionTestUtils.setField(currentUserService, "userService", userService);
+    ReflectionTestUtils.setField(
+        currentUserService, "grantedAuthoritiesService", new GrantedAuthoritiesService());
+
+    List<GrantedAuthority> authorities =
+        List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("OIDC_USER"));
+    Map<String, Object> attributes =
+        Map.of(
+            "sub", "115856948234298493496",
+            "email", EMAIL,
+            "email_verified", true,
+            "name", "Chris Gaucho",
+            "given_name", "Chris",
+            "family_name", "Gaucho",
+            "picture", "https://lh3.googleusercontent.com/a/picture",
+            "locale", "en",
+            "hd", "ucsb.edu");
+    DefaultOAuth2User principal = new DefaultOAuth2User(authorities, attributes, "sub");
+    SecurityContextHolder.getContext()
+        .setAuthentication(new OAuth2AuthenticationToken(principal, authorities, "google"));
+  }
+
+  @TearDown
+  public void tearDown() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Benchmark
+  public User getUser() {
+    return currentUserService.getUser();
+  }
+
+  @Benchmark
+  public CurrentUser getCurrentUser() {
+    return currentUserService.getCurrentUser();
+  }
+}
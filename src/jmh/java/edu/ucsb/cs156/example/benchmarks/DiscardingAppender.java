@@ -0,0 +1,19 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import ch.qos.logback.core.OutputStreamAppender;
+import java.io.OutputStream;
+
+/**
+ * A logback appender that encodes each event as the console appender does and then throws the
+ * bytes away, so that benchmarks pay for formatting their log lines without filling the console or
+ * the disk.
+ *
+ * @param <E> the type of the events
+ */
+public class DiscardingAppender<E> extends OutputStreamAppender<E> {
+  @Override
+  public void start() {
+    setOutputStream(OutputStream.nullOutputStream());
+    super.start();
+  }
+}
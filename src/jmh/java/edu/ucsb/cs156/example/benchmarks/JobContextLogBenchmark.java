@@ -0,0 +1,56 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of {@link JobContext#log} for a job that has already logged {@code logged}
+ * lines, to check that appending does not get slower as the log grows.
+ *
+ * <p>The context has no repository, so flushing drops the lines; this measures the context itself,
+ * not the database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JobContextLogBenchmark {
+
+  @Param({"0", "10000", "1000000"})
+  private int logged;
+
+  // 1 is an unbuffered context; 100 is app.jobs.log.flush-lines
+  @Param({"1", "100"})
+  private int flushLines;
+
+  private JobContext context;
+
+  @Setup(Level.Iteration)
+  public void setup() {
+    Job job = Job.builder().id(1L).build();
+    context = new JobContext(null, job, flushLines, 1000, 0);
+    for (int i = 0; i < logged; i++) {
+      context.log("line " + i);
+    }
+  }
+
+  @Benchmark
+  public void log() {
+    context.log("Hello World! from test job!");
+  }
+}
@@ -0,0 +1,94 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import edu.ucsb.cs156.example.config.JobExecutorConfig;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Runs batches of {@value #TASKS} jobs that each block for {@code blockMs} ms, as TestJob does in
+ * Thread.sleep, on the job executor, on platform threads and on virtual threads.
+ *
+ * <p>{@code throughput} reports jobs per second. {@code latency} samples how long each batch takes,
+ * i.e. how long the last job of a batch waits for its result, and JMH prints the p50, p99 and other
+ * percentiles of those samples.
+ *
+ * <p>Both modes get the same pool size, so they run the same number of jobs at once: the difference
+ * between them is the cost of the threads, not how many jobs block concurrently. A batch takes at
+ * least {@code TASKS / poolSize * blockMs} ms in either mode.
+ */
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JobExecutorBenchmark {
+  static final int TASKS = 2000;
+
+  @Param({"false", "true"})
+  private boolean virtualThreads;
+
+  // 200 is Tomcat's default maximum number of request threads
+  @Param({"200", "2000"})
+  private int poolSize;
+
+  @Param({"10"})
+  private int blockMs;
+
+  private ThreadPoolTaskExecutor executor;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    executor = new JobExecutorConfig().jobExecutor(poolSize, poolSize, TASKS, virtualThreads);
+    executor.initialize();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    executor.shutdown();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  @OperationsPerInvocation(TASKS)
+  public void throughput() throws InterruptedException {
+    runBatch();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public void latency() throws InterruptedException {
+    runBatch();
+  }
+
+  private void runBatch() throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(TASKS);
+    for (int i = 0; i < TASKS; i++) {
+      executor.execute(
+          () -> {
+            try {
+              Thread.sleep(blockMs);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            done.countDown();
+          });
+    }
+    done.await();
+  }
+}
@@ -0,0 +1,166 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItems;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.entities.UCSBRecommendationRequest;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Measures how long Jackson takes to write a list of each entity, as the {@code /all} endpoints
+ * return them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+  private static final LocalDateTime DATE = LocalDateTime.parse("2022-01-03T00:00:00");
+
+  private static final Map<String, IntFunction<Object>> ENTITIES =
+      Map.of(
+          "Articles",
+          i ->
+              Articles.builder()
+                  .id(i)
+                  .title("Article " + i)
+                  .url("https://example.org/articles/" + i)
+                  .explanation("An article about something that happened at UCSB")
+                  .email("cgaucho@ucsb.edu")
+                  .dateAdded(DATE)
+                  .build(),
+          "HelpRequest",
+          i ->
+              HelpRequest.builder()
+                  .id(i)
+                  .requesterEmail("cgaucho@ucsb.edu")
+                  .teamId("s22-5pm-" + i % 4)
+                  .tableOrBreakoutRoom("table " + i % 10)
+                  .requestTime(DATE)
+                  .explanation("Need help with the backend tests")
+                  .solved(i % 2 == 0)
+                  .build(),
+          "MenuItemReview",
+          i ->
+              MenuItemReview.builder()
+                  .id(i)
+                  .itemId(i % 100)
+                  .reviewerEmail("cgaucho@ucsb.edu")
+                  .stars(i % 5 + 1)
+                  .dateReviewed(DATE)
+                  .comments("Tasty, but a little too salty")
+                  .build(),
+          "Restaurant",
+          i ->
+              Restaurant.builder()
+                  .id(i)
+                  .name("Restaurant " + i)
+                  .description("Burritos and tacos")
+                  .build(),
+          "UCSBDate",
+          i ->
+              UCSBDate.builder()
+                  .id(i)
+                  .quarterYYYYQ("20222")
+                  .name("Day " + i)
+                  .localDateTime(DATE)
+                  .build(),
+          "UCSBDiningCommons",
+          i ->
+              UCSBDiningCommons.builder()
+                  .code("commons-" + i)
+                  .name("Dining Commons " + i)
+                  .hasSackMeal(false)
+                  .hasTakeOutMeal(true)
+                  .hasDiningCam(true)
+                  .latitude(34.409953)
+                  .longitude(-119.85277)
+                  .build(),
+          "UCSBDiningCommonsMenuItems",
+          i ->
+              UCSBDiningCommonsMenuItems.builder()
+                  .id(i)
+                  .diningCommonsCode("ortega")
+                  .name("Menu item " + i)
+                  .station("Entrees")
+                  .build(),
+          "UCSBOrganization",
+          i ->
+              UCSBOrganization.builder()
+                  .id(i)
+                  .orgCode("ORG" + i)
+                  .orgTranslationShort("Organization " + i)
+                  .orgTranslation("Student Organization " + i)
+                  .build(),
+          "UCSBRecommendationRequest",
+          i ->
+              UCSBRecommendationRequest.builder()
+                  .id(i)
+                  .requesterEmail("cgaucho@ucsb.edu")
+                  .professorEmail("phtcon@ucsb.edu")
+                  .explanation("Applying to grad school")
+                  .dateRequested(DATE)
+                  .dateNeeded(DATE)
+                  .done(false)
+                  .build());
+
+  @Param({
+    "Articles",
+    "HelpRequest",
+    "MenuItemReview",
+    "Restaurant",
+    "UCSBDate",
+    "UCSBDiningCommons",
+    "UCSBDiningCommonsMenuItems",
+    "UCSBOrganization",
+    "UCSBRecommendationRequest"
+  })
+  private String entity;
+
+  @Param({"10", "1000"})
+  private int size;
+
+  private ObjectMapper mapper;
+  private List<Object> rows;
+
+  @Setup
+  public void setup() {
+    // configured as Spring Boot configures the application's ObjectMapper
+    mapper =
+        Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    rows = IntStream.range(0, size).mapToObj(ENTITIES.get(entity)).toList();
+  }
+
+  @Benchmark
+  public byte[] writeList() throws Exception {
+    return mapper.writeValueAsBytes(rows);
+  }
+}
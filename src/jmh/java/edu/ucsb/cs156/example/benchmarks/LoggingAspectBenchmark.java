@@ -0,0 +1,80 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import edu.ucsb.cs156.example.aop.LoggingAspect;
+import edu.ucsb.cs156.example.services.RequestStatsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Measures what {@link LoggingAspect} adds to each controller call, by calling a trivial handler
+ * directly and through a proxy advised by the aspect, with a request bound to the thread as it is
+ * while Spring MVC handles one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LoggingAspectBenchmark {
+
+  /** A controller whose handler does no work, so that only the advice is measured. */
+  public static class Handler {
+    @GetMapping("/api/benchmark")
+    public String get() {
+      return "ok";
+    }
+  }
+
+  private Handler direct;
+  private Handler advised;
+
+  @Setup
+  public void setup() {
+    LoggingAspect aspect = new LoggingAspect();
+    ReflectionTestUtils.setField(aspect, "meterRegistry", new SimpleMeterRegistry());
+    RequestStatsService requestStatsService = new RequestStatsService();
+    ReflectionTestUtils.setField(requestStatsService, "slowestSize", 20);
+    ReflectionTestUtils.setField(aspect, "requestStatsService", requestStatsService);
+
+    direct = new Handler();
+    AspectJProxyFactory factory = new AspectJProxyFactory(direct);
+    factory.addAspect(aspect);
+    advised = factory.getProxy();
+
+    RequestContextHolder.setRequestAttributes(
+        new ServletRequestAttributes(new MockHttpServletRequest("GET", "/api/benchmark")));
+  }
+
+  @TearDown
+  public void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Benchmark
+  public String direct() {
+    return direct.get();
+  }
+
+  @Benchmark
+  public String advised() {
+    return advised.get();
+  }
+}
@@ -1,22 +1,41 @@
 package edu.ucsb.cs156.example.aop;
 
+import edu.ucsb.cs156.example.services.RequestStatsService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.http.HttpServletRequest;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.lang.reflect.Method;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
-import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 /**
- * This class is an Aspect that logs all invocations of controller methods that are annotated with
- * {@code @RequestMapping}, {@code @GetMapping}, {@code @PostMapping}, {@code @PutMapping},
+ * This class is an Aspect that instruments all invocations of controller methods that are annotated
+ * with {@code @RequestMapping}, {@code @GetMapping}, {@code @PostMapping}, {@code @PutMapping},
  * {@code @DeleteMapping}, or {@code @PatchMapping}.
  *
+ * <p>Each invocation is timed with a Micrometer timer named {@value #TIMER}, tagged with the
+ * controller, the handler method and the exception it threw (if any). The timers count the calls
+ * and keep their p50, p95 and p99 latencies; see {@code /actuator/metrics/app.controller.requests}.
+ * The same timings feed {@link RequestStatsService}, which keeps a latency histogram per handler
+ * and the slowest requests, and reports them at {@code /api/admin/requeststats}. Each invocation is
+ * also logged, at debug level.
+ *
+ * <p>Only the controller method itself is timed. A handler that returns an {@code SseEmitter} or a
+ * {@code StreamingResponseBody} returns before its response is written, so its timer covers setting
+ * up the stream (e.g. checking that the job exists), not the time spent streaming.
+ *
  * <p>For more information on Aspect Oriented Programming (AOP) and AspectJ, including what a {@code
  * JoinPoint} is, refer to <a
  * href="https://www.baeldung.com/aspectj">https://www.baeldung.com/aspectj</a>
@@ -25,6 +44,9 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 @Aspect
 @Component
 public class LoggingAspect {
+  /** Name of the timers of controller methods. */
+  public static final String TIMER = "app.controller.requests";
+
   // language=PointcutExpression
   private static final String pointcut =
       """
@@ -36,33 +58,66 @@ public class LoggingAspect {
       @annotation(org.springframework.web.bind.annotation.PatchMapping)
       """;
 
-  private ArrayList<String> stoplist =
-      new ArrayList<String>(
-          Arrays.asList("edu.ucsb.cs156.example.controllers.FrontendProxyController"));
+  private static final Set<String> stoplist =
+      Set.of("edu.ucsb.cs156.example.controllers.FrontendProxyController");
+
+  @Autowired private MeterRegistry meterRegistry;
+
+  @Autowired private RequestStatsService requestStatsService;
+
+  // the timers of invocations that did not throw, so that the common case needs no tags
+  private final Map<Method, Timer> timers = new ConcurrentHashMap<>();
 
   /**
-   * This method is called before any controller method that is annotated with
+   * This method is called around any controller method that is annotated with
    * {@code @RequestMapping}, {@code @GetMapping}, {@code @PostMapping}, {@code @PutMapping},
    * {@code @DeleteMapping}, or {@code @PatchMapping}.
    *
    * @param joinPoint the join point (injected by Spring framework)
+   * @return the result of the controller method
+   * @throws Throwable whatever the controller method throws
    */
-  @Before(pointcut)
-  public void logControllers(JoinPoint joinPoint) {
-    getCurrentHttpRequest()
-        .ifPresent(
-            request -> {
-              String declaringTypeName = joinPoint.getSignature().getDeclaringTypeName();
-              if (!stoplist.contains(declaringTypeName)) {
-                log.info(
-                    "===== %s %s handled by %s in %s"
-                        .formatted(
-                            request.getMethod(),
-                            request.getRequestURI(),
-                            joinPoint.getSignature().getName(),
-                            declaringTypeName));
-              }
-            });
+  @Around(pointcut)
+  public Object logControllers(ProceedingJoinPoint joinPoint) throws Throwable {
+    MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+    String declaringTypeName = signature.getDeclaringTypeName();
+    if (stoplist.contains(declaringTypeName)) {
+      return joinPoint.proceed();
+    }
+    HttpServletRequest request = getCurrentHttpRequest().orElse(null);
+    if (request != null && log.isDebugEnabled()) {
+      log.debug(
+          "{} {} handled by {} in {}",
+          request.getMethod(),
+          request.getRequestURI(),
+          signature.getName(),
+          declaringTypeName);
+    }
+
+    long start = System.nanoTime();
+    Timer timer = null;
+    try {
+      Object result = joinPoint.proceed();
+      timer = timers.computeIfAbsent(signature.getMethod(), method -> timer(signature, "none"));
+      return result;
+    } catch (Throwable e) {
+      timer = timer(signature, e.getClass().getSimpleName());
+      throw e;
+    } finally {
+      long nanos = System.nanoTime() - start;
+      timer.record(nanos, TimeUnit.NANOSECONDS);
+      requestStatsService.record(signature.getMethod(), nanos, request);
+    }
+  }
+
+  private Timer timer(MethodSignature signature, String exception) {
+    return Timer.builder(TIMER)
+        .description("Time taken by controller methods")
+        .tag("controller", signature.getDeclaringType().getSimpleName())
+        .tag("handler", signature.getName())
+        .tag("exception", exception)
+        .publishPercentiles(0.5, 0.95, 0.99)
+        .register(meterRegistry);
   }
 
   /**
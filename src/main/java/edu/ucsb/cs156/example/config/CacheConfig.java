@@ -0,0 +1,52 @@
+package edu.ucsb.cs156.example.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import java.time.Duration;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The `CacheConfig` class turns on Spring's caching annotations (e.g. on `UserRepository`) and
+ * defines the caches they use.
+ *
+ * <p>Each cache is a bounded Caffeine cache whose entries expire some time after they were written,
+ * so that it cannot grow without limit and a change it missed (e.g. one made directly in the
+ * database, or by another instance) shows up eventually. The users it holds are entities, so it
+ * stores and hands out copies of them. (Hibernate's second-level cache, for the reference tables,
+ * is separate; see `application.properties`.)
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+  /**
+   * The cache manager used by the caching annotations.
+   *
+   * @param usersMaxSize most users kept in the cache of users by email
+   * @param usersTtlMs how long a user is kept in the cache of users by email
+   * @return the cache manager
+   */
+  @Bean
+  public CacheManager cacheManager(
+      @Value("${app.cache.users-by-email.max-size:10000}") long usersMaxSize,
+      @Value("${app.cache.users-by-email.ttl-ms:600000}") long usersTtlMs) {
+    SimpleCacheManager cacheManager = new SimpleCacheManager();
+    cacheManager.setCaches(
+        List.of(
+            new CopyingCaffeineCache(
+                UserRepository.USERS_BY_EMAIL,
+                Caffeine.newBuilder()
+                    .maximumSize(usersMaxSize)
+                    .expireAfterWrite(Duration.ofMillis(usersTtlMs))
+                    .build(),
+                user -> ((User) user).toBuilder().build())));
+    return cacheManager;
+  }
+}
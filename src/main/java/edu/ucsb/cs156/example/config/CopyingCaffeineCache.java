@@ -0,0 +1,79 @@
+package edu.ucsb.cs156.example.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import java.util.concurrent.Callable;
+import java.util.function.UnaryOperator;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+/**
+ * A Spring cache kept in a Caffeine cache, which is bounded and expires its entries. It stores a
+ * copy of each value it is given and hands out a new copy on every hit, so a caller that changes a
+ * value it got from the cache (e.g. an entity) changes neither the cache nor what other callers
+ * get. Null values are not cached.
+ */
+class CopyingCaffeineCache extends AbstractValueAdaptingCache {
+  private final String name;
+  private final Cache<Object, Object> cache;
+  private final UnaryOperator<Object> copy;
+
+  /**
+   * Creates the cache.
+   *
+   * @param name name of the cache
+   * @param cache the Caffeine cache the copies are kept in
+   * @param copy copies a value
+   */
+  CopyingCaffeineCache(String name, Cache<Object, Object> cache, UnaryOperator<Object> copy) {
+    super(false);
+    this.name = name;
+    this.cache = cache;
+    this.copy = copy;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public Object getNativeCache() {
+    return cache;
+  }
+
+  @Override
+  protected Object lookup(Object key) {
+    Object value = cache.getIfPresent(key);
+    return value == null ? null : copy.apply(value);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T get(Object key, Callable<T> valueLoader) {
+    Object value =
+        cache.get(
+            key,
+            k -> {
+              try {
+                return copy.apply(toStoreValue(valueLoader.call()));
+              } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+              }
+            });
+    return (T) copy.apply(value);
+  }
+
+  @Override
+  public void put(Object key, Object value) {
+    cache.put(key, copy.apply(toStoreValue(value)));
+  }
+
+  @Override
+  public void evict(Object key) {
+    cache.invalidate(key);
+  }
+
+  @Override
+  public void clear() {
+    cache.invalidateAll();
+  }
+}
@@ -0,0 +1,89 @@
+package edu.ucsb.cs156.example.config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * The `JobExecutorConfig` class defines the executor that runs jobs launched through `JobService`,
+ * so that jobs get their own bounded pool instead of sharing Spring's default task executor.
+ *
+ * <p>When all threads are busy and the queue is full, new jobs are rejected (AbortPolicy) rather
+ * than run on the caller's thread; `JobService` turns that into a 429 response.
+ *
+ * <p>When `spring.threads.virtual.enabled` is true, Tomcat handles requests on virtual threads and
+ * the job pool creates virtual threads too. The pool still bounds how many jobs run at once, but
+ * since a blocked virtual thread does not hold an OS thread, its size can be raised far beyond what
+ * a platform thread pool could afford.
+ *
+ * <p>Declaring an executor bean makes Spring Boot skip its own `applicationTaskExecutor`, which
+ * Spring MVC uses for asynchronous requests, so that bean is recreated here from Boot's builders.
+ */
+@Configuration
+public class JobExecutorConfig {
+
+  /**
+   * The general purpose executor that Spring Boot would otherwise auto-configure, for platform
+   * threads.
+   *
+   * @param builder the builder configured from the spring.task.execution properties
+   * @return the application task executor
+   */
+  @Primary
+  @ConditionalOnThreading(Threading.PLATFORM)
+  @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+  public AsyncTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+    return builder.build();
+  }
+
+  /**
+   * The general purpose executor that Spring Boot would otherwise auto-configure, for virtual
+   * threads.
+   *
+   * @param builder the builder configured from the spring.task.execution properties
+   * @return the application task executor
+   */
+  @Primary
+  @ConditionalOnThreading(Threading.VIRTUAL)
+  @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+  public AsyncTaskExecutor applicationTaskExecutorVirtualThreads(
+      SimpleAsyncTaskExecutorBuilder builder) {
+    return builder.build();
+  }
+
+  /**
+   * The executor used by `@Async("jobExecutor")` methods.
+   *
+   * @param corePoolSize number of threads kept alive even when idle
+   * @param maxPoolSize maximum number of threads, used only once the queue is full
+   * @param queueCapacity maximum number of jobs waiting for a thread
+   * @param virtualThreads whether jobs run on virtual threads
+   * @return the job executor
+   */
+  @Bean(name = "jobExecutor")
+  public ThreadPoolTaskExecutor jobExecutor(
+      @Value("${app.jobs.executor.core-pool-size:2}") int corePoolSize,
+      @Value("${app.jobs.executor.max-pool-size:4}") int maxPoolSize,
+      @Value("${app.jobs.executor.queue-capacity:100}") int queueCapacity,
+      @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setThreadNamePrefix("job-");
+    if (virtualThreads) {
+      executor.setThreadFactory(Thread.ofVirtual().name("job-virtual-", 1).factory());
+    }
+    executor.setCorePoolSize(corePoolSize);
+    executor.setMaxPoolSize(maxPoolSize);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+    return executor;
+  }
+}
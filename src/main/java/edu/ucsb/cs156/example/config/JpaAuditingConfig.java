@@ -0,0 +1,30 @@
+package edu.ucsb.cs156.example.config;
+
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.auditing.DateTimeProvider;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+
+/**
+ * The `JpaAuditingConfig` class turns on JPA auditing, so that fields annotated with @CreatedDate
+ * and @LastModifiedDate (e.g. in `Job`) are filled in when an entity is saved.
+ *
+ * <p>The default date time provider returns a LocalDateTime, which cannot be stored in a
+ * ZonedDateTime field, so a provider that returns ZonedDateTime is used instead.
+ */
+@Configuration
+@EnableJpaAuditing(dateTimeProviderRef = "auditingDateTimeProvider")
+public class JpaAuditingConfig {
+
+  /**
+   * Provides the current time for @CreatedDate and @LastModifiedDate fields.
+   *
+   * @return the date time provider
+   */
+  @Bean
+  public DateTimeProvider auditingDateTimeProvider() {
+    return () -> Optional.of(ZonedDateTime.now());
+  }
+}
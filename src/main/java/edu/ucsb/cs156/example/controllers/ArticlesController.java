@@ -3,15 +3,20 @@ package edu.ucsb.cs156.example.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.Articles;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.repositories.KeysetPager;
+import edu.ucsb.cs156.example.services.JsonStreamService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.time.LocalDateTime;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -21,6 +26,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /** This is a REST controller for Articles */
 @Tag(name = "articles")
@@ -29,8 +35,13 @@ import org.springframework.web.bind.annotation.RestController;
 @Slf4j
 public class ArticlesController extends ApiController {
 
+  static final KeysetPager<Articles> PAGER =
+      new KeysetPager<>(Articles.class, "id", List.of("id", "title", "email", "dateAdded"));
+
   @Autowired ArticlesRepository articlesRepository;
 
+  @Autowired JsonStreamService jsonStreamService;
+
   /**
    * List all articles
    *
@@ -44,6 +55,50 @@ public class ArticlesController extends ApiController {
     return articles;
   }
 
+  /**
+   * List all articles, written to the response one at a time
+   *
+   * @return a JSON array of Articles
+   */
+  @Operation(
+      summary = "List all articles, streamed",
+      description = "Same as /all, but uses constant memory however many articles there are")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+  public StreamingResponseBody streamArticles() {
+    return jsonStreamService.jsonArray(articlesRepository::streamAllBy);
+  }
+
+  /**
+   * List articles one page at a time
+   *
+   * @param cursor nextCursor of the previous page, or null for the first page
+   * @param size number of articles per page
+   * @param sort property to sort by
+   * @param direction asc or desc
+   * @return a page of Articles
+   */
+  @Operation(
+      summary = "List articles one page at a time",
+      description = "Pass the nextCursor of each page as cursor to get the next one")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/page")
+  public KeysetPage<Articles> pageOfArticles(
+      @Parameter(name = "cursor", description = "nextCursor of the previous page")
+          @RequestParam(required = false)
+          String cursor,
+      @Parameter(name = "size", description = "articles per page, at most 100")
+          @RequestParam(defaultValue = "20")
+          int size,
+      @Parameter(name = "sort", description = "one of id, title, email, dateAdded")
+          @RequestParam(defaultValue = "id")
+          String sort,
+      @Parameter(name = "direction", description = "asc or desc")
+          @RequestParam(defaultValue = "asc")
+          String direction) {
+    return PAGER.page(articlesRepository, sort, direction, size, cursor);
+  }
+
   @Operation(summary = "Create a new article")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PostMapping("/post")
@@ -4,51 +4,179 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.entities.Job;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.InvalidPageRequestException;
 import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.models.JobExecutorStatus;
+import edu.ucsb.cs156.example.models.JobLogTail;
+import edu.ucsb.cs156.example.models.JobProgress;
+import edu.ucsb.cs156.example.models.JobRetentionStatus;
+import edu.ucsb.cs156.example.models.JobSummary;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.jobs.JobLogStreamService;
+import edu.ucsb.cs156.example.services.jobs.JobRetentionService;
 import edu.ucsb.cs156.example.services.jobs.JobService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @Tag(name = "Jobs")
 @RequestMapping("/api/jobs")
 @RestController
 @Slf4j
 public class JobsController extends ApiController {
+  static final String NEXT_OFFSET_HEADER = "X-Next-Offset";
+
+  static final int MAX_PAGE_SIZE = 100;
+
+  static final List<String> SORT_PROPERTIES = List.of("id", "status", "createdAt", "updatedAt");
+
+  // bounds used for the createdAt filter when only one end of the range is given
+  static final ZonedDateTime EARLIEST = ZonedDateTime.of(1970, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+  static final ZonedDateTime LATEST = ZonedDateTime.of(9999, 12, 31, 0, 0, 0, 0, ZoneOffset.UTC);
+
   @Autowired private JobsRepository jobsRepository;
 
   @Autowired private JobService jobService;
 
+  @Autowired private JobLogStreamService jobLogStreamService;
+
+  @Autowired private JobRetentionService jobRetentionService;
+
   @Autowired ObjectMapper mapper;
 
-  @Operation(summary = "List all jobs")
+  @Autowired
+  @Qualifier("jobExecutor")
+  private ThreadPoolTaskExecutor jobExecutor;
+
+  @Operation(summary = "List all jobs, without their logs (prefer /api/jobs/page)")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @GetMapping("/all")
-  public Iterable<Job> allJobs() {
-    Iterable<Job> jobs = jobsRepository.findAll();
-    return jobs;
+  public List<JobSummary> allJobs() {
+    return jobsRepository.findAllSummaries();
+  }
+
+  @Operation(
+      summary = "List jobs one page at a time, without their logs",
+      description =
+          "Sort by id, status, createdAt or updatedAt. Optionally filter by status, and by"
+              + " createdAt in [createdAfter, createdBefore)")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/page")
+  public Page<JobSummary> pageOfJobs(
+      @Parameter(name = "page", description = "page number, starting at 0")
+          @RequestParam(defaultValue = "0")
+          int page,
+      @Parameter(name = "size", description = "jobs per page, at most 100")
+          @RequestParam(defaultValue = "20")
+          int size,
+      @Parameter(name = "sort") @RequestParam(defaultValue = "createdAt") String sort,
+      @Parameter(name = "direction", description = "asc or desc")
+          @RequestParam(defaultValue = "desc")
+          String direction,
+      @Parameter(name = "status") @RequestParam(required = false) String status,
+      @Parameter(name = "createdAfter", description = "e.g. 2025-01-01T00:00:00Z")
+          @RequestParam(required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          ZonedDateTime createdAfter,
+      @Parameter(name = "createdBefore", description = "e.g. 2025-02-01T00:00:00Z")
+          @RequestParam(required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          ZonedDateTime createdBefore) {
+
+    if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+      throw new InvalidPageRequestException(
+          String.format("page must be at least 0 and size between 1 and %d", MAX_PAGE_SIZE));
+    }
+    if (!SORT_PROPERTIES.contains(sort)) {
+      throw new InvalidPageRequestException(
+          String.format("sort must be one of %s", String.join(", ", SORT_PROPERTIES)));
+    }
+    Sort.Direction sortDirection =
+        Sort.Direction.fromOptionalString(direction)
+            .orElseThrow(() -> new InvalidPageRequestException("direction must be asc or desc"));
+
+    // sort by id too, so that jobs with the same sort value keep their order across pages
+    Sort order = Sort.by(sortDirection, sort).and(Sort.by(sortDirection, "id"));
+    boolean anyDate = createdAfter == null && createdBefore == null;
+    return jobsRepository.findSummaries(
+        status == null,
+        status != null ? status : "",
+        anyDate,
+        createdAfter != null ? createdAfter : EARLIEST,
+        createdBefore != null ? createdBefore : LATEST,
+        PageRequest.of(page, size, order));
+  }
+
+  @Operation(summary = "Get the progress of a job, with its rate and estimated completion time")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/progress")
+  public JobProgress getJobProgress(
+      @Parameter(name = "id", description = "ID of the job") @RequestParam Long id) {
+    return jobsRepository
+        .findProgressById(id)
+        .orElseThrow(() -> new EntityNotFoundException(Job.class, id));
+  }
+
+  @Operation(summary = "Get the progress of every running job")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/progress/running")
+  public List<JobProgress> getRunningJobsProgress() {
+    return jobsRepository.findProgressOfRunningJobs();
   }
 
-  @Operation(summary = "Delete all job records")
+  @Operation(summary = "Get the thread and queue usage of the job executor")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/executor")
+  public JobExecutorStatus getExecutorStatus() {
+    return JobExecutorStatus.of(jobExecutor);
+  }
+
+  @Operation(summary = "Delete all job records, except queued and running jobs")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("/all")
   public Map<String, String> deleteAllJobs() {
-    jobsRepository.deleteAll();
+    jobRetentionService.deleteAllJobs();
     return Map.of("message", "All jobs deleted");
   }
 
+  @Operation(summary = "Get the progress of the current or last purge of old jobs")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/retention")
+  public JobRetentionStatus getRetentionStatus() {
+    return jobRetentionService.getStatus();
+  }
+
+  @Operation(summary = "Delete the jobs the retention policy no longer keeps, now")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/retention/run")
+  public JobRetentionStatus applyRetentionPolicy() {
+    return jobRetentionService.applyRetentionPolicy();
+  }
+
   @Operation(summary = "Get a specific Job Log by ID if it is in the database")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @GetMapping("")
@@ -69,26 +197,83 @@ public class JobsController extends ApiController {
     if (!jobsRepository.existsById(id)) {
       return Map.of("message", String.format("Job with id %d not found", id));
     }
-    jobsRepository.deleteById(id);
+    jobRetentionService.deleteJobs(List.of(id));
     return Map.of("message", String.format("Job with id %d deleted", id));
   }
 
+  @Operation(
+      summary = "Cancel a job",
+      description =
+          "A queued job is cancelled right away. A running job is asked to stop, and is"
+              + " interrupted if it has not stopped after a grace period")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/cancel")
+  public Job cancelJob(
+      @Parameter(name = "id", description = "ID of the job") @RequestParam Long id) {
+    return jobService.cancelJob(id);
+  }
+
   @Operation(summary = "Launch Test Job (click fail if you want to test exception handling)")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PostMapping("/launch/testjob")
   public Job launchTestJob(
       @Parameter(name = "fail") @RequestParam Boolean fail,
-      @Parameter(name = "sleepMs") @RequestParam Integer sleepMs) {
+      @Parameter(name = "sleepMs") @RequestParam Integer sleepMs,
+      @Parameter(name = "timeoutMs", description = "stop the job after this long (0: no limit)")
+          @RequestParam(required = false)
+          Long timeoutMs) {
 
     TestJob testJob = TestJob.builder().fail(fail).sleepMs(sleepMs).build();
+    if (timeoutMs != null) {
+      return jobService.runAsJob(testJob, timeoutMs);
+    }
     return jobService.runAsJob(testJob);
   }
 
-  @Operation(summary = "Get long job logs")
+  @Operation(
+      summary = "Get long job logs",
+      description =
+          "Pass the X-Next-Offset header of the previous response as after to get only the new"
+              + " lines")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @GetMapping("/logs/{id}")
-  public String getJobLogs(@Parameter(name = "id", description = "Job ID") @PathVariable Long id) {
+  public ResponseEntity<String> getJobLogs(
+      @Parameter(name = "id", description = "Job ID") @PathVariable Long id,
+      @Parameter(name = "after", description = "Number of lines already read")
+          @RequestParam(defaultValue = "0")
+          int after) {
+
+    checkLogOffset(after);
+    JobLogTail tail = jobService.getJobLogsAfter(id, after);
+    return ResponseEntity.ok()
+        .header(NEXT_OFFSET_HEADER, Integer.toString(tail.getNextOffset()))
+        .body(tail.getLog());
+  }
 
-    return jobService.getJobLogs(id);
+  @Operation(
+      summary = "Stream job logs as Server-Sent Events",
+      description =
+          "Sends each line as a log event whose id is its offset, then an end event with the"
+              + " status of the job once it has finished")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping(value = "/logs/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamJobLogs(
+      @Parameter(name = "id", description = "Job ID") @PathVariable Long id,
+      @Parameter(name = "after", description = "Number of lines already read")
+          @RequestParam(defaultValue = "0")
+          int after,
+      @Parameter(hidden = true) @RequestHeader(value = "Last-Event-ID", required = false)
+          Integer lastEventId) {
+
+    // a reconnecting EventSource resumes after the last line it received
+    int from = lastEventId != null ? lastEventId + 1 : after;
+    checkLogOffset(from);
+    return jobLogStreamService.stream(id, from);
+  }
+
+  private static void checkLogOffset(int after) {
+    if (after < 0) {
+      throw new InvalidPageRequestException("after must be at least 0");
+    }
   }
 }
@@ -1,17 +1,28 @@
 package edu.ucsb.cs156.example.controllers;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import edu.ucsb.cs156.example.entities.MenuItemRating;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.InvalidPageRequestException;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.repositories.KeysetPager;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewFilter;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.services.JsonStreamService;
+import edu.ucsb.cs156.example.services.MenuItemRatingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.time.LocalDateTime;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -21,6 +32,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /** This is a REST controller for MenuItemReview */
 @Tag(name = "MenuItemReview")
@@ -29,8 +41,22 @@ import org.springframework.web.bind.annotation.RestController;
 @Slf4j
 public class MenuItemReviewController extends ApiController {
 
+  static final int MAX_TOP_RATED = 100;
+
+  static final KeysetPager<MenuItemReview> PAGER =
+      new KeysetPager<>(
+          MenuItemReview.class,
+          "id",
+          List.of("id", "itemId", "reviewerEmail", "stars", "dateReviewed"));
+
   @Autowired MenuItemReviewRepository menuItemReviewRepository;
 
+  @Autowired MenuItemRatingRepository menuItemRatingRepository;
+
+  @Autowired JsonStreamService jsonStreamService;
+
+  @Autowired MenuItemRatingService menuItemRatingService;
+
   /**
    * List all Menu Item Reviews
    *
@@ -44,6 +70,74 @@ public class MenuItemReviewController extends ApiController {
     return menuitemreview;
   }
 
+  /**
+   * List all menu item reviews, written to the response one at a time
+   *
+   * @return a JSON array of MenuItemReview
+   */
+  @Operation(
+      summary = "List all menu item reviews, streamed",
+      description =
+          "Same as /all, but uses constant memory however many menu item reviews there are")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+  public StreamingResponseBody streamMenuItemReviews() {
+    return jsonStreamService.jsonArray(menuItemReviewRepository::streamAllBy);
+  }
+
+  /**
+   * List menu item reviews one page at a time, optionally only those of a menu item, of a reviewer
+   * or from a range of dates
+   *
+   * @param itemId only reviews of this menu item
+   * @param reviewerEmail only reviews by this reviewer
+   * @param reviewedAfter only reviews dated at or after this
+   * @param reviewedBefore only reviews dated before this
+   * @param cursor nextCursor of the previous page, or null for the first page
+   * @param size number of menu item reviews per page
+   * @param sort property to sort by
+   * @param direction asc or desc
+   * @return a page of MenuItemReview
+   */
+  @Operation(
+      summary = "List menu item reviews one page at a time",
+      description =
+          "Pass the nextCursor of each page as cursor to get the next one, with the same filters")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/page")
+  public KeysetPage<MenuItemReview> pageOfMenuItemReviews(
+      @Parameter(name = "itemId", description = "id of a menu item") @RequestParam(required = false)
+          Long itemId,
+      @Parameter(name = "reviewerEmail", description = "email of a reviewer")
+          @RequestParam(required = false)
+          String reviewerEmail,
+      @Parameter(name = "reviewedAfter", description = "e.g. 2022-01-01T00:00:00 (inclusive)")
+          @RequestParam(required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime reviewedAfter,
+      @Parameter(name = "reviewedBefore", description = "e.g. 2022-02-01T00:00:00 (exclusive)")
+          @RequestParam(required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime reviewedBefore,
+      @Parameter(name = "cursor", description = "nextCursor of the previous page")
+          @RequestParam(required = false)
+          String cursor,
+      @Parameter(name = "size", description = "menu item reviews per page, at most 100")
+          @RequestParam(defaultValue = "20")
+          int size,
+      @Parameter(
+              name = "sort",
+              description = "one of id, itemId, reviewerEmail, stars, dateReviewed")
+          @RequestParam(defaultValue = "id")
+          String sort,
+      @Parameter(name = "direction", description = "asc or desc")
+          @RequestParam(defaultValue = "asc")
+          String direction) {
+    MenuItemReviewFilter filter =
+        new MenuItemReviewFilter(itemId, reviewerEmail, reviewedAfter, reviewedBefore);
+    return PAGER.page(menuItemReviewRepository, filter, sort, direction, size, cursor);
+  }
+
   /**
    * Create a new menu item review
    *
@@ -80,7 +174,7 @@ public class MenuItemReviewController extends ApiController {
     menuitemreview.setDateReviewed(dateReviewed);
     menuitemreview.setComments(comments);
 
-    MenuItemReview savedMenuItemReview = menuItemReviewRepository.save(menuitemreview);
+    MenuItemReview savedMenuItemReview = menuItemRatingService.post(menuitemreview);
 
     return savedMenuItemReview;
   }
@@ -116,20 +210,7 @@ public class MenuItemReviewController extends ApiController {
   public MenuItemReview updateMenuItemReview(
       @Parameter(name = "id") @RequestParam Long id, @RequestBody @Valid MenuItemReview incoming) {
 
-    MenuItemReview menuItemReview =
-        menuItemReviewRepository
-            .findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
-
-    menuItemReview.setComments(incoming.getComments());
-    menuItemReview.setDateReviewed(incoming.getDateReviewed());
-    menuItemReview.setItemId(incoming.getItemId());
-    menuItemReview.setReviewerEmail(incoming.getReviewerEmail());
-    menuItemReview.setStars(incoming.getStars());
-
-    menuItemReviewRepository.save(menuItemReview);
-
-    return menuItemReview;
+    return menuItemRatingService.update(id, incoming);
   }
 
   /**
@@ -142,12 +223,49 @@ public class MenuItemReviewController extends ApiController {
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("")
   public Object deleteMenuItemReview(@Parameter(name = "id") @RequestParam Long id) {
-    MenuItemReview menuitemreview =
-        menuItemReviewRepository
-            .findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
-
-    menuItemReviewRepository.delete(menuitemreview);
+    menuItemRatingService.delete(id);
     return genericMessage("MenuItemReview with id %s deleted".formatted(id));
   }
+
+  /**
+   * Get the rating of a menu item: the number of reviews, their average and histogram of stars, and
+   * when it was last reviewed
+   *
+   * @param itemId the id in the UCSBDiningCommonsMenuItems table of a menu item
+   * @return the MenuItemRating, with no reviews if the item has none
+   */
+  @Operation(summary = "Get the rating of a menu item")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/rating")
+  public MenuItemRating getRating(@Parameter(name = "itemId") @RequestParam long itemId) {
+    return menuItemRatingRepository
+        .findById(itemId)
+        .orElseGet(() -> MenuItemRating.builder().itemId(itemId).build());
+  }
+
+  /**
+   * List the menu items with the highest average stars
+   *
+   * @param count number of menu items to list
+   * @param minReviews only menu items with at least this many reviews
+   * @return the MenuItemRatings, highest average first
+   */
+  @Operation(
+      summary = "List the top rated menu items",
+      description = "Highest average stars first; ties go to the item with more reviews")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/toprated")
+  public List<MenuItemRating> topRated(
+      @Parameter(name = "count", description = "menu items to list, at most 100")
+          @RequestParam(defaultValue = "10")
+          int count,
+      @Parameter(name = "minReviews", description = "only items with at least this many reviews")
+          @RequestParam(defaultValue = "1")
+          long minReviews) {
+    if (count < 1 || count > MAX_TOP_RATED) {
+      throw new InvalidPageRequestException(
+          String.format("count must be between 1 and %d", MAX_TOP_RATED));
+    }
+    return menuItemRatingRepository.findTopRated(Math.max(minReviews, 1), Limit.of(count));
+  }
 }
@@ -0,0 +1,52 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.models.RequestStats;
+import edu.ucsb.cs156.example.services.RequestStatsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * This is a REST controller for the latency statistics of the controllers.
+ *
+ * <p>These endpoints are only accessible to users with the role "ROLE_ADMIN".
+ *
+ * @see edu.ucsb.cs156.example.services.RequestStatsService
+ */
+@Tag(name = "Request statistics (admin only)")
+@RequestMapping("/api/admin/requeststats")
+@RestController
+public class RequestStatsController extends ApiController {
+  @Autowired RequestStatsService requestStatsService;
+
+  /**
+   * This method returns the p50/p95/p99/max latency of each controller method, and the slowest
+   * requests, since the statistics were last reset.
+   *
+   * @return the request statistics
+   */
+  @Operation(summary = "Get the latency of each endpoint and the slowest requests")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("")
+  public RequestStats getRequestStats() {
+    return requestStatsService.getStats();
+  }
+
+  /**
+   * This method resets the request statistics, e.g. before a load test.
+   *
+   * @return a message saying the statistics were reset
+   */
+  @Operation(summary = "Reset the request statistics")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("")
+  public Object resetRequestStats() {
+    requestStatsService.reset();
+    return genericMessage("Request statistics reset");
+  }
+}
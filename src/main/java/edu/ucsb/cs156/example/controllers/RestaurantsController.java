@@ -2,12 +2,17 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.Restaurant;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.repositories.KeysetPager;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.services.JsonStreamService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,6 +22,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /** This is a REST controller for Restaurants */
 @Tag(name = "Restaurants")
@@ -24,8 +30,13 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 public class RestaurantsController extends ApiController {
 
+  static final KeysetPager<Restaurant> PAGER =
+      new KeysetPager<>(Restaurant.class, "id", List.of("id", "name"));
+
   @Autowired RestaurantRepository restaurantRepository;
 
+  @Autowired JsonStreamService jsonStreamService;
+
   /**
    * This method returns a list of all restaurants.
    *
@@ -39,6 +50,49 @@ public class RestaurantsController extends ApiController {
     return restaurants;
   }
 
+  /**
+   * List all restaurants, written to the response one at a time
+   *
+   * @return a JSON array of Restaurant
+   */
+  @Operation(
+      summary = "List all restaurants, streamed",
+      description = "Same as /all, but uses constant memory however many restaurants there are")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+  public StreamingResponseBody streamRestaurants() {
+    return jsonStreamService.jsonArray(restaurantRepository::streamAllBy);
+  }
+
+  /**
+   * List restaurants one page at a time
+   *
+   * @param cursor nextCursor of the previous page, or null for the first page
+   * @param size number of restaurants per page
+   * @param sort property to sort by
+   * @param direction asc or desc
+   * @return a page of Restaurant
+   */
+  @Operation(
+      summary = "List restaurants one page at a time",
+      description = "Pass the nextCursor of each page as cursor to get the next one")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/page")
+  public KeysetPage<Restaurant> pageOfRestaurants(
+      @Parameter(name = "cursor", description = "nextCursor of the previous page")
+          @RequestParam(required = false)
+          String cursor,
+      @Parameter(name = "size", description = "restaurants per page, at most 100")
+          @RequestParam(defaultValue = "20")
+          int size,
+      @Parameter(name = "sort", description = "one of id, name") @RequestParam(defaultValue = "id")
+          String sort,
+      @Parameter(name = "direction", description = "asc or desc")
+          @RequestParam(defaultValue = "asc")
+          String direction) {
+    return PAGER.page(restaurantRepository, sort, direction, size, cursor);
+  }
+
   /**
    * This method returns a single restaurant.
    *
@@ -3,15 +3,20 @@ package edu.ucsb.cs156.example.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.repositories.KeysetPager;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.services.JsonStreamService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.time.LocalDateTime;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -21,6 +26,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /** This is a REST controller for UCSBDates */
 @Tag(name = "UCSBDates")
@@ -29,8 +35,14 @@ import org.springframework.web.bind.annotation.RestController;
 @Slf4j
 public class UCSBDatesController extends ApiController {
 
+  static final KeysetPager<UCSBDate> PAGER =
+      new KeysetPager<>(
+          UCSBDate.class, "id", List.of("id", "quarterYYYYQ", "name", "localDateTime"));
+
   @Autowired UCSBDateRepository ucsbDateRepository;
 
+  @Autowired JsonStreamService jsonStreamService;
+
   /**
    * List all UCSB dates
    *
@@ -44,6 +56,50 @@ public class UCSBDatesController extends ApiController {
     return dates;
   }
 
+  /**
+   * List all ucsb dates, written to the response one at a time
+   *
+   * @return a JSON array of UCSBDate
+   */
+  @Operation(
+      summary = "List all ucsb dates, streamed",
+      description = "Same as /all, but uses constant memory however many ucsb dates there are")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+  public StreamingResponseBody streamUCSBDates() {
+    return jsonStreamService.jsonArray(ucsbDateRepository::streamAllBy);
+  }
+
+  /**
+   * List ucsb dates one page at a time
+   *
+   * @param cursor nextCursor of the previous page, or null for the first page
+   * @param size number of ucsb dates per page
+   * @param sort property to sort by
+   * @param direction asc or desc
+   * @return a page of UCSBDate
+   */
+  @Operation(
+      summary = "List ucsb dates one page at a time",
+      description = "Pass the nextCursor of each page as cursor to get the next one")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/page")
+  public KeysetPage<UCSBDate> pageOfUCSBDates(
+      @Parameter(name = "cursor", description = "nextCursor of the previous page")
+          @RequestParam(required = false)
+          String cursor,
+      @Parameter(name = "size", description = "ucsb dates per page, at most 100")
+          @RequestParam(defaultValue = "20")
+          int size,
+      @Parameter(name = "sort", description = "one of id, quarterYYYYQ, name, localDateTime")
+          @RequestParam(defaultValue = "id")
+          String sort,
+      @Parameter(name = "direction", description = "asc or desc")
+          @RequestParam(defaultValue = "asc")
+          String direction) {
+    return PAGER.page(ucsbDateRepository, sort, direction, size, cursor);
+  }
+
   /**
    * Get a single date by id
    *
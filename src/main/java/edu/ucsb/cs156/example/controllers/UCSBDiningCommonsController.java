@@ -2,13 +2,21 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.InvalidPageRequestException;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.NearbyDiningCommons;
+import edu.ucsb.cs156.example.repositories.KeysetPager;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.services.DiningCommonsLocator;
+import edu.ucsb.cs156.example.services.JsonStreamService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -18,6 +26,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /** This is a REST controller for UCSBDiningCommons */
 @Tag(name = "UCSBDiningCommons")
@@ -26,8 +35,17 @@ import org.springframework.web.bind.annotation.RestController;
 @Slf4j
 public class UCSBDiningCommonsController extends ApiController {
 
+  static final int MAX_NEAREST = 100;
+
+  static final KeysetPager<UCSBDiningCommons> PAGER =
+      new KeysetPager<>(UCSBDiningCommons.class, "code", List.of("code", "name"));
+
   @Autowired UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
 
+  @Autowired JsonStreamService jsonStreamService;
+
+  @Autowired DiningCommonsLocator diningCommonsLocator;
+
   /**
    * THis method returns a list of all ucsbdiningcommons.
    *
@@ -41,6 +59,92 @@ public class UCSBDiningCommonsController extends ApiController {
     return commons;
   }
 
+  /**
+   * List all ucsb dining commons, written to the response one at a time
+   *
+   * @return a JSON array of UCSBDiningCommons
+   */
+  @Operation(
+      summary = "List all ucsb dining commons, streamed",
+      description =
+          "Same as /all, but uses constant memory however many ucsb dining commons there are")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+  public StreamingResponseBody streamCommons() {
+    return jsonStreamService.jsonArray(ucsbDiningCommonsRepository::streamAllBy);
+  }
+
+  /**
+   * List ucsb dining commons one page at a time
+   *
+   * @param cursor nextCursor of the previous page, or null for the first page
+   * @param size number of ucsb dining commons per page
+   * @param sort property to sort by
+   * @param direction asc or desc
+   * @return a page of UCSBDiningCommons
+   */
+  @Operation(
+      summary = "List ucsb dining commons one page at a time",
+      description = "Pass the nextCursor of each page as cursor to get the next one")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/page")
+  public KeysetPage<UCSBDiningCommons> pageOfCommons(
+      @Parameter(name = "cursor", description = "nextCursor of the previous page")
+          @RequestParam(required = false)
+          String cursor,
+      @Parameter(name = "size", description = "ucsb dining commons per page, at most 100")
+          @RequestParam(defaultValue = "20")
+          int size,
+      @Parameter(name = "sort", description = "one of code, name")
+          @RequestParam(defaultValue = "code")
+          String sort,
+      @Parameter(name = "direction", description = "asc or desc")
+          @RequestParam(defaultValue = "asc")
+          String direction) {
+    return PAGER.page(ucsbDiningCommonsRepository, sort, direction, size, cursor);
+  }
+
+  /**
+   * This method returns the dining commons nearest to a point, optionally only those with sack
+   * meals or take out meals. Commons with no latitude and longitude are never returned.
+   *
+   * @param latitude latitude of the point, in degrees
+   * @param longitude longitude of the point, in degrees
+   * @param count the most commons to return
+   * @param hasSackMeal only commons with (true) or without (false) sack meals
+   * @param hasTakeOutMeal only commons with (true) or without (false) take out meals
+   * @return the nearest commons, nearest first, with their distances
+   */
+  @Operation(
+      summary = "Get the dining commons nearest to a point",
+      description = "Nearest first, with the distance in meters; searched in memory")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/nearest")
+  public List<NearbyDiningCommons> nearestCommons(
+      @Parameter(name = "latitude", description = "e.g. 34.4140") @RequestParam double latitude,
+      @Parameter(name = "longitude", description = "e.g. -119.8489") @RequestParam double longitude,
+      @Parameter(name = "count", description = "commons to return, at most 100")
+          @RequestParam(defaultValue = "1")
+          int count,
+      @Parameter(name = "hasSackMeal", description = "true or false")
+          @RequestParam(required = false)
+          Boolean hasSackMeal,
+      @Parameter(name = "hasTakeOutMeal", description = "true or false")
+          @RequestParam(required = false)
+          Boolean hasTakeOutMeal) {
+    if (count < 1 || count > MAX_NEAREST) {
+      throw new InvalidPageRequestException(
+          String.format("count must be between 1 and %d", MAX_NEAREST));
+    }
+    return diningCommonsLocator.nearest(
+        latitude,
+        longitude,
+        count,
+        commons ->
+            (hasSackMeal == null || commons.getHasSackMeal() == hasSackMeal)
+                && (hasTakeOutMeal == null || commons.getHasTakeOutMeal() == hasTakeOutMeal));
+  }
+
   /**
    * This method returns a single diningcommons.
    *
@@ -93,6 +197,7 @@ public class UCSBDiningCommonsController extends ApiController {
     commons.setLongitude(longitude);
 
     UCSBDiningCommons savedCommons = ucsbDiningCommonsRepository.save(commons);
+    diningCommonsLocator.invalidate();
 
     return savedCommons;
   }
@@ -113,6 +218,7 @@ public class UCSBDiningCommonsController extends ApiController {
             .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
 
     ucsbDiningCommonsRepository.delete(commons);
+    diningCommonsLocator.invalidate();
     return genericMessage("UCSBDiningCommons with id %s deleted".formatted(code));
   }
 
@@ -143,6 +249,7 @@ public class UCSBDiningCommonsController extends ApiController {
     commons.setLongitude(incoming.getLongitude());
 
     ucsbDiningCommonsRepository.save(commons);
+    diningCommonsLocator.invalidate();
 
     return commons;
   }
@@ -3,14 +3,27 @@ package edu.ucsb.cs156.example.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItems;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.MenuStation;
+import edu.ucsb.cs156.example.repositories.KeysetPager;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemsRepository;
+import edu.ucsb.cs156.example.services.JsonStreamService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -19,6 +32,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /** This is a REST controller for UCSBDiningCommonsMenuItems */
 @Tag(name = "UCSBDiningCommonsMenuItems")
@@ -27,8 +41,18 @@ import org.springframework.web.bind.annotation.RestController;
 @Slf4j
 public class UCSBDiningCommonsMenuItemsController extends ApiController {
 
+  static final KeysetPager<UCSBDiningCommonsMenuItems> PAGER =
+      new KeysetPager<>(
+          UCSBDiningCommonsMenuItems.class,
+          "id",
+          List.of("id", "diningCommonsCode", "name", "station"));
+
+  static final Sort MENU_ORDER = Sort.by("station", "name", "id");
+
   @Autowired UCSBDiningCommonsMenuItemsRepository ucsbDiningCommonsMenuItemsRepository;
 
+  @Autowired JsonStreamService jsonStreamService;
+
   /**
    * List all UCSB dining commons menu items
    *
@@ -42,6 +66,104 @@ public class UCSBDiningCommonsMenuItemsController extends ApiController {
     return items;
   }
 
+  /**
+   * List all ucsb dining commons menu items, written to the response one at a time
+   *
+   * @return a JSON array of UCSBDiningCommonsMenuItems
+   */
+  @Operation(
+      summary = "List all ucsb dining commons menu items, streamed",
+      description =
+          "Same as /all, but uses constant memory however many ucsb dining commons menu items there are")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+  public StreamingResponseBody streamUCSBDiningCommonsMenuItems() {
+    return jsonStreamService.jsonArray(ucsbDiningCommonsMenuItemsRepository::streamAllBy);
+  }
+
+  /**
+   * List ucsb dining commons menu items one page at a time
+   *
+   * @param cursor nextCursor of the previous page, or null for the first page
+   * @param size number of ucsb dining commons menu items per page
+   * @param sort property to sort by
+   * @param direction asc or desc
+   * @return a page of UCSBDiningCommonsMenuItems
+   */
+  @Operation(
+      summary = "List ucsb dining commons menu items one page at a time",
+      description = "Pass the nextCursor of each page as cursor to get the next one")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/page")
+  public KeysetPage<UCSBDiningCommonsMenuItems> pageOfUCSBDiningCommonsMenuItems(
+      @Parameter(name = "cursor", description = "nextCursor of the previous page")
+          @RequestParam(required = false)
+          String cursor,
+      @Parameter(
+              name = "size",
+              description = "ucsb dining commons menu items per page, at most 100")
+          @RequestParam(defaultValue = "20")
+          int size,
+      @Parameter(name = "sort", description = "one of id, diningCommonsCode, name, station")
+          @RequestParam(defaultValue = "id")
+          String sort,
+      @Parameter(name = "direction", description = "asc or desc")
+          @RequestParam(defaultValue = "asc")
+          String direction) {
+    return PAGER.page(ucsbDiningCommonsMenuItemsRepository, sort, direction, size, cursor);
+  }
+
+  /**
+   * Get the menu of a dining commons, grouped by station. The response has an ETag computed from
+   * the items, so a client that sends it back in If-None-Match gets 304 Not Modified, with no body,
+   * while the menu is unchanged.
+   *
+   * @param diningCommonsCode the dining commons code
+   * @return the stations of the menu, in order of station, each with its items in order of name
+   */
+  @Operation(
+      summary = "Get the menu of a dining commons, grouped by station",
+      description = "Send the ETag back in If-None-Match to get 304 if the menu is unchanged")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/menu")
+  public ResponseEntity<List<MenuStation>> menuOfCommons(
+      @Parameter(name = "diningCommonsCode", description = "e.g. ortega") @RequestParam
+          String diningCommonsCode) {
+    List<UCSBDiningCommonsMenuItems> items =
+        ucsbDiningCommonsMenuItemsRepository.findAllByDiningCommonsCode(
+            diningCommonsCode, MENU_ORDER);
+
+    List<MenuStation> stations = new ArrayList<>();
+    MenuStation current = null;
+    for (UCSBDiningCommonsMenuItems item : items) {
+      if (current == null || !Objects.equals(current.getStation(), item.getStation())) {
+        current = new MenuStation(item.getStation(), new ArrayList<>());
+        stations.add(current);
+      }
+      current.getItems().add(item);
+    }
+
+    return ResponseEntity.ok()
+        .cacheControl(CacheControl.noCache())
+        .eTag(etag(items))
+        .body(stations);
+  }
+
+  /** Returns a hash of the ids, names and stations of menu items, in order. */
+  static String etag(List<UCSBDiningCommonsMenuItems> items) {
+    StringBuilder contents = new StringBuilder();
+    for (UCSBDiningCommonsMenuItems item : items) {
+      contents
+          .append(item.getId())
+          .append('\0')
+          .append(item.getName())
+          .append('\0')
+          .append(item.getStation())
+          .append('\n');
+    }
+    return DigestUtils.md5DigestAsHex(contents.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
   /**
    * Get a single menu item by id
    *
@@ -3,13 +3,18 @@ package edu.ucsb.cs156.example.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.repositories.KeysetPager;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.services.JsonStreamService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -19,6 +24,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /** This is a REST controller for UCSBOrganization */
 @Tag(name = "UCSBOrganization")
@@ -27,8 +33,16 @@ import org.springframework.web.bind.annotation.RestController;
 @Slf4j
 public class UCSBOrganizationController extends ApiController {
 
+  static final KeysetPager<UCSBOrganization> PAGER =
+      new KeysetPager<>(
+          UCSBOrganization.class,
+          "id",
+          List.of("id", "orgCode", "orgTranslationShort", "orgTranslation"));
+
   @Autowired UCSBOrganizationRepository ucsbOrganizationRepository;
 
+  @Autowired JsonStreamService jsonStreamService;
+
   /**
    * List all UCSB dates
    *
@@ -42,6 +56,53 @@ public class UCSBOrganizationController extends ApiController {
     return ucsbOrganization;
   }
 
+  /**
+   * List all ucsb organizations, written to the response one at a time
+   *
+   * @return a JSON array of UCSBOrganization
+   */
+  @Operation(
+      summary = "List all ucsb organizations, streamed",
+      description =
+          "Same as /all, but uses constant memory however many ucsb organizations there are")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+  public StreamingResponseBody streamUCSBOrganizations() {
+    return jsonStreamService.jsonArray(ucsbOrganizationRepository::streamAllBy);
+  }
+
+  /**
+   * List ucsb organizations one page at a time
+   *
+   * @param cursor nextCursor of the previous page, or null for the first page
+   * @param size number of ucsb organizations per page
+   * @param sort property to sort by
+   * @param direction asc or desc
+   * @return a page of UCSBOrganization
+   */
+  @Operation(
+      summary = "List ucsb organizations one page at a time",
+      description = "Pass the nextCursor of each page as cursor to get the next one")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/page")
+  public KeysetPage<UCSBOrganization> pageOfUCSBOrganizations(
+      @Parameter(name = "cursor", description = "nextCursor of the previous page")
+          @RequestParam(required = false)
+          String cursor,
+      @Parameter(name = "size", description = "ucsb organizations per page, at most 100")
+          @RequestParam(defaultValue = "20")
+          int size,
+      @Parameter(
+              name = "sort",
+              description = "one of id, orgCode, orgTranslationShort, orgTranslation")
+          @RequestParam(defaultValue = "id")
+          String sort,
+      @Parameter(name = "direction", description = "asc or desc")
+          @RequestParam(defaultValue = "asc")
+          String direction) {
+    return PAGER.page(ucsbOrganizationRepository, sort, direction, size, cursor);
+  }
+
   /**
    * Create a new UCSBOrganization
    *
@@ -1,17 +1,23 @@
 package edu.ucsb.cs156.example.controllers;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.repositories.KeysetPager;
+import edu.ucsb.cs156.example.repositories.UserFilter;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.JsonStreamService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * This is a REST controller for getting information about the users.
@@ -22,22 +28,84 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api/admin/users")
 @RestController
 public class UsersController extends ApiController {
+
+  static final KeysetPager<User> PAGER =
+      new KeysetPager<>(User.class, "id", List.of("id", "email"));
+
   @Autowired UserRepository userRepository;
 
-  @Autowired ObjectMapper mapper;
+  @Autowired JsonStreamService jsonStreamService;
+
+  /**
+   * This method returns a list of all users, or of those that match the filters. Accessible only to
+   * users with the role "ROLE_ADMIN". The users are written to the response one at a time, so the
+   * memory used does not grow with the number of users.
+   *
+   * @param admin only admins (true) or only users who are not admins (false)
+   * @param hostedDomain only users of this hosted domain
+   * @param emailPrefix only users whose email starts with this
+   * @return a JSON array of users
+   */
+  @Operation(
+      summary = "Get a list of all users",
+      description = "Optionally filtered; written to the response one user at a time")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping(value = "", produces = MediaType.APPLICATION_JSON_VALUE)
+  public StreamingResponseBody users(
+      @Parameter(name = "admin", description = "true for only admins, false for only non-admins")
+          @RequestParam(required = false)
+          Boolean admin,
+      @Parameter(name = "hostedDomain", description = "e.g. ucsb.edu")
+          @RequestParam(required = false)
+          String hostedDomain,
+      @Parameter(name = "emailPrefix", description = "start of the email, case sensitive")
+          @RequestParam(required = false)
+          String emailPrefix) {
+    UserFilter filter = new UserFilter(admin, hostedDomain, emailPrefix);
+    return jsonStreamService.jsonArray(() -> userRepository.streamAllBy(filter));
+  }
 
   /**
-   * This method returns a list of all users. Accessible only to users with the role "ROLE_ADMIN".
+   * This method returns one page of the users that match the filters. Accessible only to users with
+   * the role "ROLE_ADMIN".
    *
-   * @return a list of all users
-   * @throws JsonProcessingException if there is an error processing the JSON
+   * @param admin only admins (true) or only users who are not admins (false)
+   * @param hostedDomain only users of this hosted domain
+   * @param emailPrefix only users whose email starts with this
+   * @param cursor nextCursor of the previous page, or null for the first page
+   * @param size number of users per page
+   * @param sort property to sort by
+   * @param direction asc or desc
+   * @return a page of users
    */
-  @Operation(summary = "Get a list of all users")
+  @Operation(
+      summary = "Get a list of users one page at a time",
+      description =
+          "Pass the nextCursor of each page as cursor to get the next one, with the same filters")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
-  @GetMapping("")
-  public ResponseEntity<String> users() throws JsonProcessingException {
-    Iterable<User> users = userRepository.findAll();
-    String body = mapper.writeValueAsString(users);
-    return ResponseEntity.ok().body(body);
+  @GetMapping("/page")
+  public KeysetPage<User> pageOfUsers(
+      @Parameter(name = "admin", description = "true for only admins, false for only non-admins")
+          @RequestParam(required = false)
+          Boolean admin,
+      @Parameter(name = "hostedDomain", description = "e.g. ucsb.edu")
+          @RequestParam(required = false)
+          String hostedDomain,
+      @Parameter(name = "emailPrefix", description = "start of the email, case sensitive")
+          @RequestParam(required = false)
+          String emailPrefix,
+      @Parameter(name = "cursor", description = "nextCursor of the previous page")
+          @RequestParam(required = false)
+          String cursor,
+      @Parameter(name = "size", description = "users per page, at most 100")
+          @RequestParam(defaultValue = "20")
+          int size,
+      @Parameter(name = "sort", description = "one of id, email") @RequestParam(defaultValue = "id")
+          String sort,
+      @Parameter(name = "direction", description = "asc or desc")
+          @RequestParam(defaultValue = "asc")
+          String direction) {
+    UserFilter filter = new UserFilter(admin, hostedDomain, emailPrefix);
+    return PAGER.page(userRepository, filter, sort, direction, size, cursor);
   }
 }
@@ -41,6 +41,30 @@ public class Job {
 
   private String status;
 
+  // class name and JSON parameters of the JobContextConsumer, so that a queued job can be run by
+  // any instance; null for jobs that can only run in the instance that launched them
+  private String type;
+
+  @Column(columnDefinition = "TEXT")
+  private String params;
+
+  // the instance that claimed the job, and the last time that instance reported it was alive
+  private String claimedBy;
+  private ZonedDateTime heartbeatAt;
+  private int attempts;
+  private ZonedDateTime startedAt;
+
+  // progress reported through JobContext, saved every app.jobs.progress.save-interval-ms
+  private String phase;
+  private long progressDone;
+  private long progressTotal;
+  private ZonedDateTime progressAt;
+
+  // a running job is stopped once it has run for timeoutMs (0: no limit), or once it has been
+  // cancelled; cancelRequestedAt tells the instance running the job that it has been cancelled
+  private long timeoutMs;
+  private ZonedDateTime cancelRequestedAt;
+
   // 1048576 is 2^20, which is the max size of a mediumtext in MySQL
   @Column(
       columnDefinition = "TEXT",
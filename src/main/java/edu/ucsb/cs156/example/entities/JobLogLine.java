@@ -0,0 +1,38 @@
+package edu.ucsb.cs156.example.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import java.time.ZonedDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a JPA entity that represents a single line of output written by a job.
+ *
+ * <p>Lines are only ever inserted, never updated, so appending to a job's log costs one small
+ * insert regardless of how long the log already is. The full log is rebuilt by reading the lines
+ * for a job in {@code seq} order.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "joblogs")
+public class JobLogLine {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private long id;
+
+  private long jobId;
+  private int seq;
+  private ZonedDateTime loggedAt;
+  private String level;
+
+  @Column(columnDefinition = "TEXT")
+  private String message;
+}
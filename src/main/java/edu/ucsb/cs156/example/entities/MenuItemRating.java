@@ -0,0 +1,99 @@
+package edu.ucsb.cs156.example.entities;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Version;
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a JPA entity that represents the rating of a menu item: how many reviews it has, their
+ * total and a histogram of their stars, and when it was last reviewed.
+ *
+ * <p>Ratings are kept up to date by MenuItemRatingService as reviews are posted, edited and
+ * deleted, so that they can be read without reading the reviews.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "menuitemratings")
+public class MenuItemRating {
+  @Id private long itemId;
+
+  /** Null until the rating is first saved, so that saving a new rating always inserts it. */
+  @JsonIgnore @Version private Long version;
+
+  private long reviewCount;
+  private long totalStars;
+  private LocalDateTime lastReviewed;
+
+  // the number of reviews with 0, 1, ... 5 stars
+  @JsonIgnore private long stars0;
+  @JsonIgnore private long stars1;
+  @JsonIgnore private long stars2;
+  @JsonIgnore private long stars3;
+  @JsonIgnore private long stars4;
+  @JsonIgnore private long stars5;
+
+  /**
+   * Returns the average number of stars.
+   *
+   * @return the average, or null if the item has no reviews
+   */
+  public Double getAverageStars() {
+    return reviewCount == 0 ? null : (double) totalStars / reviewCount;
+  }
+
+  /**
+   * Returns the histogram of stars.
+   *
+   * @return the number of reviews with 0, 1, ... 5 stars
+   */
+  public List<Long> getHistogram() {
+    return List.of(stars0, stars1, stars2, stars3, stars4, stars5);
+  }
+
+  /**
+   * Counts a review in this rating.
+   *
+   * @param review the review
+   */
+  public void add(MenuItemReview review) {
+    count(review.getStars(), 1);
+    if (lastReviewed == null
+        || (review.getDateReviewed() != null && review.getDateReviewed().isAfter(lastReviewed))) {
+      lastReviewed = review.getDateReviewed();
+    }
+  }
+
+  /**
+   * Stops counting a review in this rating. The caller must update lastReviewed, which may have
+   * been the date of the review.
+   *
+   * @param review the review
+   */
+  public void remove(MenuItemReview review) {
+    count(review.getStars(), -1);
+  }
+
+  // reviews with stars outside 0 to 5 count in the average but not in the histogram
+  private void count(int stars, int delta) {
+    reviewCount += delta;
+    totalStars += (long) stars * delta;
+    switch (stars) {
+      case 0 -> stars0 += delta;
+      case 1 -> stars1 += delta;
+      case 2 -> stars2 += delta;
+      case 3 -> stars3 += delta;
+      case 4 -> stars4 += delta;
+      case 5 -> stars5 += delta;
+      default -> {}
+    }
+  }
+}
@@ -0,0 +1,17 @@
+package edu.ucsb.cs156.example.errors;
+
+/**
+ * This is an error class for a custom RuntimeException in Java that is used to indicate that the
+ * paging or sorting parameters of a request are not valid, e.g. an unknown sort property or a
+ * negative offset.
+ */
+public class InvalidPageRequestException extends RuntimeException {
+  /**
+   * Constructor for the exception
+   *
+   * @param message what is wrong with the request
+   */
+  public InvalidPageRequestException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,16 @@
+package edu.ucsb.cs156.example.errors;
+
+/**
+ * This is an error class for a custom RuntimeException in Java that is used to indicate that a job
+ * could not be started because the job executor has no free thread and no room left in its queue.
+ */
+public class JobQueueFullException extends RuntimeException {
+  /**
+   * Constructor for the exception
+   *
+   * @param jobId the id of the job that was rejected
+   */
+  public JobQueueFullException(long jobId) {
+    super("Job %d rejected: the job queue is full, try again later".formatted(jobId));
+  }
+}
@@ -3,9 +3,14 @@ package edu.ucsb.cs156.example.jobs;
 import edu.ucsb.cs156.example.services.jobs.JobContext;
 import edu.ucsb.cs156.example.services.jobs.JobContextConsumer;
 import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
 
 @Builder
+@Jacksonized
+@Getter
 public class TestJob implements JobContextConsumer {
+  private static final int STEPS = 10;
 
   private boolean fail;
   private int sleepMs;
@@ -13,7 +18,14 @@ public class TestJob implements JobContextConsumer {
   @Override
   public void accept(JobContext ctx) throws Exception {
     ctx.log("Hello World! from test job!");
-    Thread.sleep(sleepMs);
+    ctx.phase("sleeping");
+    for (int step = 1; step <= STEPS; step++) {
+      if (ctx.isCancelled()) {
+        return;
+      }
+      Thread.sleep(sleepMs / STEPS);
+      ctx.progress(step, STEPS);
+    }
     if (fail) {
       throw new Exception("Fail!");
     }
@@ -0,0 +1,50 @@
+package edu.ucsb.cs156.example.models;
+
+import java.lang.reflect.Method;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.HdrHistogram.Histogram;
+
+/**
+ * This is a model class that represents the latencies of one controller method since the request
+ * statistics were last reset.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class HandlerLatency {
+  private String controller;
+  private String handler;
+  private long count;
+  private double p50Ms;
+  private double p95Ms;
+  private double p99Ms;
+  private double maxMs;
+
+  /**
+   * Summarizes the latencies of a controller method.
+   *
+   * @param handler the controller method
+   * @param micros histogram of its latencies, in microseconds
+   * @return the summary
+   */
+  public static HandlerLatency of(Method handler, Histogram micros) {
+    return HandlerLatency.builder()
+        .controller(handler.getDeclaringClass().getSimpleName())
+        .handler(handler.getName())
+        .count(micros.getTotalCount())
+        .p50Ms(millis(micros.getValueAtPercentile(50)))
+        .p95Ms(millis(micros.getValueAtPercentile(95)))
+        .p99Ms(millis(micros.getValueAtPercentile(99)))
+        .maxMs(millis(micros.getMaxValue()))
+        .build();
+  }
+
+  private static double millis(long micros) {
+    return micros / 1000.0;
+  }
+}
@@ -0,0 +1,46 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * This is a model class that represents a snapshot of the job executor, used to size its pool and
+ * queue under load.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class JobExecutorStatus {
+  private int corePoolSize;
+  private int maxPoolSize;
+  private int poolSize; // threads currently alive
+  private int activeCount; // threads currently running a job
+  private int queueSize; // jobs waiting for a thread
+  private int queueRemainingCapacity;
+  private long completedTaskCount;
+
+  /**
+   * Takes a snapshot of a job executor.
+   *
+   * @param executor the job executor
+   * @return the current status of the executor
+   */
+  public static JobExecutorStatus of(ThreadPoolTaskExecutor executor) {
+    ThreadPoolExecutor pool = executor.getThreadPoolExecutor();
+    return JobExecutorStatus.builder()
+        .corePoolSize(pool.getCorePoolSize())
+        .maxPoolSize(pool.getMaximumPoolSize())
+        .poolSize(pool.getPoolSize())
+        .activeCount(pool.getActiveCount())
+        .queueSize(pool.getQueue().size())
+        .queueRemainingCapacity(pool.getQueue().remainingCapacity())
+        .completedTaskCount(pool.getCompletedTaskCount())
+        .build();
+  }
+}
@@ -0,0 +1,20 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents the part of a job's log written after a given offset, so
+ * that clients following a running job only download the new lines.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class JobLogTail {
+  private String log; // the new lines, separated by newlines
+  private int nextOffset; // offset to ask for next time, i.e. the number of lines read so far
+}
@@ -0,0 +1,63 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents how far along a job is, as last saved from its JobContext.
+ * The rate and ETA are computed from the units done between startedAt and updatedAt.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class JobProgress {
+  private long id;
+  private String status;
+  private String phase;
+  private long done;
+  private long total; // 0 if the job has not said how many units it will do
+  private ZonedDateTime startedAt;
+  private ZonedDateTime updatedAt; // when the progress was last saved
+
+  /**
+   * Returns the share of the job that is done.
+   *
+   * @return the percentage of units done, or null if the total is not known
+   */
+  public Double getPercent() {
+    return total > 0 ? 100.0 * done / total : null;
+  }
+
+  /**
+   * Returns the rate at which the job has been doing units since it started.
+   *
+   * @return units done per second, or null if nothing has been done yet
+   */
+  public Double getUnitsPerSecond() {
+    if (done == 0 || startedAt == null || updatedAt == null) {
+      return null;
+    }
+    long elapsedMs = Duration.between(startedAt, updatedAt).toMillis();
+    return elapsedMs > 0 ? done * 1000.0 / elapsedMs : null;
+  }
+
+  /**
+   * Returns when the job should finish if it keeps going at the same rate.
+   *
+   * @return the estimated time of completion, or null if it cannot be estimated
+   */
+  public ZonedDateTime getEstimatedCompletionAt() {
+    Double rate = getUnitsPerSecond();
+    if (rate == null || total == 0) {
+      return null;
+    }
+    long remainingMs = Math.round(Math.max(total - done, 0) * 1000 / rate);
+    return updatedAt.plus(Duration.ofMillis(remainingMs));
+  }
+}
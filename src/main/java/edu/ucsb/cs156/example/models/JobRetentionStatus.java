@@ -0,0 +1,23 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.ZonedDateTime;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** This is a model class that represents the progress of the current or last purge of old jobs. */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder(toBuilder = true)
+public class JobRetentionStatus {
+  private String description; // what is being purged, e.g. "retention policy" or "all jobs"
+  private boolean running;
+  private long jobsToDelete;
+  private long jobsDeleted;
+  private long logLinesDeleted;
+  private ZonedDateTime startedAt;
+  private ZonedDateTime finishedAt;
+}
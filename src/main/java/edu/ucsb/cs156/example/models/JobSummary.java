@@ -0,0 +1,24 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.ZonedDateTime;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents a job in a list of jobs. It leaves out the log, which can
+ * be large; use /api/jobs/logs/{id} to get it.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class JobSummary {
+  private long id;
+  private String status;
+  private ZonedDateTime createdAt;
+  private ZonedDateTime updatedAt;
+  private long logLines; // number of lines in the joblogs table
+}
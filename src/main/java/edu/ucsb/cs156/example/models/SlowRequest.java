@@ -0,0 +1,22 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.LocalDateTime;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** This is a model class that represents one of the slowest requests handled by a controller. */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class SlowRequest {
+  private LocalDateTime at; // when the request finished
+  private String method; // HTTP method, null if the handler was not called for a request
+  private String uri;
+  private String controller;
+  private String handler;
+  private double durationMs;
+}
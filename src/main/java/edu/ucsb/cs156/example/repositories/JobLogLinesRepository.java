@@ -0,0 +1,45 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/** The JobLogLinesRepository is a repository for JobLogLine entities. */
+@Repository
+public interface JobLogLinesRepository
+    extends CrudRepository<JobLogLine, Long>, JobLogLinesRepositoryCustom {
+  /**
+   * This method returns the log lines of a job from a given sequence number on, in the order they
+   * were written. Pass 0 to get the whole log.
+   *
+   * @param jobId id of the job
+   * @param seq sequence number of the first line to return
+   * @return the log lines of the job, ordered by sequence number
+   */
+  List<JobLogLine> findAllByJobIdAndSeqGreaterThanEqualOrderBySeqAsc(long jobId, int seq);
+
+  /**
+   * This method counts the log lines of a job, i.e. returns the sequence number of its next line.
+   *
+   * @param jobId id of the job
+   * @return the number of lines the job has logged
+   */
+  long countByJobId(long jobId);
+
+  /**
+   * This method deletes every log line of several jobs with a single bulk statement.
+   *
+   * @param jobIds ids of the jobs
+   * @return the number of lines deleted
+   */
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM joblogs l WHERE l.jobId IN :jobIds")
+  int deleteAllByJobIdIn(@Param("jobIds") Collection<Long> jobIds);
+}
@@ -0,0 +1,15 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import java.util.List;
+
+/** Custom operations for JobLogLinesRepository that Spring Data cannot derive. */
+public interface JobLogLinesRepositoryCustom {
+  /**
+   * This method inserts a batch of log lines with a single JDBC batch, rather than one statement
+   * (and one round trip) per line.
+   *
+   * @param lines the log lines to insert
+   */
+  void appendAll(List<JobLogLine> lines);
+}
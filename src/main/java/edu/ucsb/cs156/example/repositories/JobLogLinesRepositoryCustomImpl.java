@@ -0,0 +1,40 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import java.sql.Timestamp;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * JDBC implementation of {@link JobLogLinesRepositoryCustom}. JobLogLine ids are generated by the
+ * database (IDENTITY), which prevents Hibernate from batching inserts, so batches go through
+ * JdbcTemplate instead.
+ */
+public class JobLogLinesRepositoryCustomImpl implements JobLogLinesRepositoryCustom {
+  static final String INSERT_SQL =
+      "INSERT INTO joblogs (job_id, seq, logged_at, level, message) VALUES (?, ?, ?, ?, ?)";
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  // all or nothing, so that a failed batch can be written again without duplicating its lines
+  @Override
+  @Transactional
+  public void appendAll(List<JobLogLine> lines) {
+    if (lines.isEmpty()) {
+      return;
+    }
+    jdbcTemplate.batchUpdate(
+        INSERT_SQL,
+        lines,
+        lines.size(),
+        (ps, line) -> {
+          ps.setLong(1, line.getJobId());
+          ps.setInt(2, line.getSeq());
+          ps.setTimestamp(3, Timestamp.from(line.getLoggedAt().toInstant()));
+          ps.setString(4, line.getLevel());
+          ps.setString(5, line.getMessage());
+        });
+  }
+}
@@ -1,8 +1,196 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.models.JobProgress;
+import edu.ucsb.cs156.example.models.JobSummary;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
-public interface JobsRepository extends CrudRepository<Job, Long> {}
+public interface JobsRepository extends CrudRepository<Job, Long> {
+
+  /**
+   * Lists jobs without their logs. The filters are turned off with anyStatus / anyDate rather than
+   * by passing nulls, since some databases cannot infer the type of a null parameter.
+   */
+  @Query(
+      value =
+          "SELECT new edu.ucsb.cs156.example.models.JobSummary(j.id, j.status, j.createdAt,"
+              + " j.updatedAt, (SELECT COUNT(l) FROM joblogs l WHERE l.jobId = j.id))"
+              + " FROM jobs j"
+              + " WHERE (:anyStatus = TRUE OR j.status = :status)"
+              + " AND (:anyDate = TRUE OR (j.createdAt >= :from AND j.createdAt < :to))",
+      countQuery =
+          "SELECT COUNT(j) FROM jobs j"
+              + " WHERE (:anyStatus = TRUE OR j.status = :status)"
+              + " AND (:anyDate = TRUE OR (j.createdAt >= :from AND j.createdAt < :to))")
+  Page<JobSummary> findSummaries(
+      @Param("anyStatus") boolean anyStatus,
+      @Param("status") String status,
+      @Param("anyDate") boolean anyDate,
+      @Param("from") ZonedDateTime from,
+      @Param("to") ZonedDateTime to,
+      Pageable pageable);
+
+  /** Lists every job without its log, oldest first. */
+  @Query(
+      "SELECT new edu.ucsb.cs156.example.models.JobSummary(j.id, j.status, j.createdAt,"
+          + " j.updatedAt, (SELECT COUNT(l) FROM joblogs l WHERE l.jobId = j.id))"
+          + " FROM jobs j ORDER BY j.id")
+  List<JobSummary> findAllSummaries();
+
+  /** Ids of the oldest queued jobs, i.e. the next candidates for {@link #claim}. */
+  @Query("SELECT j.id FROM jobs j WHERE j.status = 'queued' ORDER BY j.id")
+  List<Long> findQueuedJobIds(Pageable pageable);
+
+  /**
+   * Claims a queued job for a worker. The status check in the WHERE clause makes this safe when
+   * several instances poll the queue at once: only one of them gets an update count of 1.
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE jobs j SET j.status = 'running', j.claimedBy = :worker, j.heartbeatAt = :now,"
+          + " j.updatedAt = :now, j.attempts = j.attempts + 1, j.startedAt = :now,"
+          + " j.phase = NULL, j.progressDone = 0, j.progressTotal = 0, j.progressAt = NULL"
+          + " WHERE j.id = :id AND j.status = 'queued'")
+  int claim(@Param("id") long id, @Param("worker") String worker, @Param("now") ZonedDateTime now);
+
+  @Transactional
+  @Modifying
+  @Query("UPDATE jobs j SET j.heartbeatAt = :now WHERE j.id IN :ids AND j.status = 'running'")
+  int heartbeat(@Param("ids") Collection<Long> ids, @Param("now") ZonedDateTime now);
+
+  /** Puts running jobs whose worker stopped sending heartbeats back on the queue. */
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE jobs j SET j.status = 'queued', j.claimedBy = NULL, j.updatedAt = :now"
+          + " WHERE j.status = 'running' AND j.type IS NOT NULL AND j.attempts < :maxAttempts"
+          + " AND j.cancelRequestedAt IS NULL"
+          + " AND (j.heartbeatAt IS NULL OR j.heartbeatAt < :staleBefore)")
+  int requeueStaleJobs(
+      @Param("staleBefore") ZonedDateTime staleBefore,
+      @Param("maxAttempts") int maxAttempts,
+      @Param("now") ZonedDateTime now);
+
+  /**
+   * Marks the remaining stale jobs, i.e. those that cannot be rerun, have run out of attempts or
+   * were being cancelled, as failed (or cancelled).
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE jobs j SET j.updatedAt = :now,"
+          + " j.status = CASE WHEN j.cancelRequestedAt IS NULL THEN 'error' ELSE 'cancelled' END"
+          + " WHERE j.status = 'running'"
+          + " AND (j.heartbeatAt IS NULL OR j.heartbeatAt < :staleBefore)")
+  int failStaleJobs(
+      @Param("staleBefore") ZonedDateTime staleBefore, @Param("now") ZonedDateTime now);
+
+  /**
+   * Ids of the jobs the retention policy deletes, oldest first: jobs with one of the given statuses
+   * that have an id of at most maxId or were created before the given time. Queued and running jobs
+   * are never included, whatever the statuses.
+   */
+  @Query(
+      "SELECT j.id FROM jobs j"
+          + " WHERE j.status IN :statuses AND j.status NOT IN ('queued', 'running')"
+          + " AND (j.id <= :maxId OR j.createdAt < :before)"
+          + " ORDER BY j.id")
+  List<Long> findIdsToPurge(
+      @Param("statuses") Collection<String> statuses,
+      @Param("maxId") long maxId,
+      @Param("before") ZonedDateTime before);
+
+  /** Ids of the jobs that are neither queued nor running, oldest first. */
+  @Query("SELECT j.id FROM jobs j WHERE j.status NOT IN ('queued', 'running') ORDER BY j.id")
+  List<Long> findIdsOfInactiveJobs();
+
+  /** Ids of the jobs with one of the given statuses, newest first. */
+  @Query("SELECT j.id FROM jobs j WHERE j.status IN :statuses ORDER BY j.id DESC")
+  List<Long> findIdsByStatusNewestFirst(
+      @Param("statuses") Collection<String> statuses, Pageable pageable);
+
+  /** Deletes jobs with a single bulk statement, without loading them. */
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM jobs j WHERE j.id IN :ids")
+  int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+
+  /** Saves the progress a running job has reported, without rewriting the rest of the row. */
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE jobs j SET j.phase = :phase, j.progressDone = :done, j.progressTotal = :total,"
+          + " j.progressAt = :now WHERE j.id = :id")
+  int updateProgress(
+      @Param("id") long id,
+      @Param("phase") String phase,
+      @Param("done") long done,
+      @Param("total") long total,
+      @Param("now") ZonedDateTime now);
+
+  /**
+   * Saves how a running job ended and its last progress. Only these columns are written, so a
+   * cancel request made meanwhile (e.g. by another instance) is kept, and a job that is no longer
+   * running, e.g. because it was deleted or failed as stale, is left alone.
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE jobs j SET j.status = :status, j.updatedAt = :now, j.phase = :phase,"
+          + " j.progressDone = :done, j.progressTotal = :total, j.progressAt = :now"
+          + " WHERE j.id = :id AND j.status = 'running'")
+  int finish(
+      @Param("id") long id,
+      @Param("status") String status,
+      @Param("phase") String phase,
+      @Param("done") long done,
+      @Param("total") long total,
+      @Param("now") ZonedDateTime now);
+
+  @Query(
+      "SELECT new edu.ucsb.cs156.example.models.JobProgress(j.id, j.status, j.phase,"
+          + " j.progressDone, j.progressTotal, j.startedAt, j.progressAt)"
+          + " FROM jobs j WHERE j.id = :id")
+  Optional<JobProgress> findProgressById(@Param("id") long id);
+
+  @Query(
+      "SELECT new edu.ucsb.cs156.example.models.JobProgress(j.id, j.status, j.phase,"
+          + " j.progressDone, j.progressTotal, j.startedAt, j.progressAt)"
+          + " FROM jobs j WHERE j.status = 'running' ORDER BY j.id")
+  List<JobProgress> findProgressOfRunningJobs();
+
+  /** Cancels a job if it is still queued, i.e. before any instance has claimed it. */
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE jobs j SET j.status = 'cancelled', j.cancelRequestedAt = :now, j.updatedAt = :now"
+          + " WHERE j.id = :id AND j.status = 'queued'")
+  int cancelQueued(@Param("id") long id, @Param("now") ZonedDateTime now);
+
+  /** Asks the instance running a job to stop it. */
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE jobs j SET j.cancelRequestedAt = :now"
+          + " WHERE j.id = :id AND j.status = 'running' AND j.cancelRequestedAt IS NULL")
+  int requestCancel(@Param("id") long id, @Param("now") ZonedDateTime now);
+
+  /** Ids of the given running jobs that have been cancelled. */
+  @Query(
+      "SELECT j.id FROM jobs j"
+          + " WHERE j.id IN :ids AND j.status = 'running' AND j.cancelRequestedAt IS NOT NULL")
+  List<Long> findCancelRequestedIds(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,241 @@
+package edu.ucsb.cs156.example.repositories;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import edu.ucsb.cs156.example.errors.InvalidPageRequestException;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Reads entities one page at a time with keyset (seek) pagination.
+ *
+ * <p>Rows are ordered by a sort property and then by id, so that the order is total and stable.
+ * Each page is read with {@code WHERE (sort, id) > (values of the last row of the previous page)
+ * ORDER BY sort, id LIMIT size + 1} rather than with an OFFSET, so a page deep into a large table
+ * costs as much as the first one, and rows inserted or deleted meanwhile do not shift later pages.
+ * The values of the last row are handed to the client as an opaque cursor (base64 encoded JSON).
+ *
+ * <p>Rows whose sort value is null come first in ascending order and last in descending order,
+ * whatever the database's default. They are read with a separate query ({@code WHERE sort IS NULL
+ * ORDER BY id}), since comparisons with null match no rows.
+ *
+ * @param <T> the entity type
+ */
+public class KeysetPager<T> {
+  public static final int MAX_PAGE_SIZE = 100;
+
+  private static final ObjectMapper MAPPER =
+      JsonMapper.builder()
+          .addModule(new JavaTimeModule())
+          .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+          .build();
+
+  private final Class<T> type;
+  private final String idProperty;
+  private final List<String> sortProperties;
+
+  /** The position after the last row of a page, as encoded in a cursor. */
+  record Cursor(String sort, String direction, Object value, Object id) {}
+
+  /**
+   * Creates a pager for an entity type.
+   *
+   * @param type the entity type
+   * @param idProperty name of the entity's id property
+   * @param sortProperties properties clients may sort by, including the id
+   */
+  public KeysetPager(Class<T> type, String idProperty, List<String> sortProperties) {
+    this.type = type;
+    this.idProperty = idProperty;
+    this.sortProperties = sortProperties;
+  }
+
+  /**
+   * Reads one page of entities.
+   *
+   * @param repository the repository to read from
+   * @param sort property to sort by; ignored if a cursor is given
+   * @param direction asc or desc; ignored if a cursor is given
+   * @param size number of entities per page, at most {@link #MAX_PAGE_SIZE}
+   * @param cursor nextCursor of the previous page, or null for the first page
+   * @return the page
+   */
+  public KeysetPage<T> page(
+      ScrollingRepository<T, ?> repository,
+      String sort,
+      String direction,
+      int size,
+      String cursor) {
+    return page(repository, null, sort, direction, size, cursor);
+  }
+
+  /**
+   * Reads one page of the entities that match a filter. The filter is not part of the cursor, so
+   * the same filter must be given for every page.
+   *
+   * @param repository the repository to read from
+   * @param filter selects the entities to page through, or null for all of them
+   * @param sort property to sort by; ignored if a cursor is given
+   * @param direction asc or desc; ignored if a cursor is given
+   * @param size number of entities per page, at most {@link #MAX_PAGE_SIZE}
+   * @param cursor nextCursor of the previous page, or null for the first page
+   * @return the page
+   */
+  public KeysetPage<T> page(
+      ScrollingRepository<T, ?> repository,
+      Specification<T> filter,
+      String sort,
+      String direction,
+      int size,
+      String cursor) {
+    if (size < 1 || size > MAX_PAGE_SIZE) {
+      throw new InvalidPageRequestException(
+          String.format("size must be between 1 and %d", MAX_PAGE_SIZE));
+    }
+    Cursor after = null;
+    if (cursor != null) {
+      after = decode(cursor);
+      sort = after.sort();
+      direction = after.direction();
+    }
+    if (!sortProperties.contains(sort)) {
+      throw new InvalidPageRequestException(
+          String.format("sort must be one of %s", String.join(", ", sortProperties)));
+    }
+    Sort.Direction sortDirection =
+        Sort.Direction.fromOptionalString(direction)
+            .orElseThrow(() -> new InvalidPageRequestException("direction must be asc or desc"));
+
+    // one more row than asked for tells whether there is a next page
+    List<T> rows = new ArrayList<>();
+    for (Segment segment : segments(sort, sortDirection, after)) {
+      Cursor from = after != null && segment.containsCursor(after) ? after : null;
+      Sort order = order(segment, sort, sortDirection);
+      int limit = size + 1 - rows.size();
+      Specification<T> where = where(segment, sort, sortDirection, from);
+      rows.addAll(
+          repository.findBy(
+              filter == null ? where : where.and(filter),
+              query -> query.sortBy(order).limit(limit).all()));
+      if (rows.size() > size) {
+        List<T> content = rows.subList(0, size);
+        return new KeysetPage<>(content, encode(sort, sortDirection, content.get(size - 1)));
+      }
+    }
+    return new KeysetPage<>(rows, null);
+  }
+
+  /**
+   * The parts of the order that are read with separate queries, so that each is ordered by plain
+   * columns (and can use an index) however the database orders nulls.
+   */
+  enum Segment {
+    IDS, // sorted by the id alone
+    NULLS, // rows whose sort value is null, by id
+    VALUES; // the other rows, by sort value and id
+
+    boolean containsCursor(Cursor cursor) {
+      return this == IDS || (this == NULLS) == (cursor.value() == null);
+    }
+  }
+
+  /** Returns the segments that are left, in order, from the one the cursor is in. */
+  private List<Segment> segments(String sort, Sort.Direction direction, Cursor after) {
+    if (sort.equals(idProperty)) {
+      return List.of(Segment.IDS);
+    }
+    // nulls come first when ascending, last when descending
+    List<Segment> segments =
+        direction.isAscending()
+            ? List.of(Segment.NULLS, Segment.VALUES)
+            : List.of(Segment.VALUES, Segment.NULLS);
+    if (after == null) {
+      return segments;
+    }
+    Segment first = after.value() == null ? Segment.NULLS : Segment.VALUES;
+    return segments.subList(segments.indexOf(first), segments.size());
+  }
+
+  /** Selects the rows of a segment, after the cursor if it is given. */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private Specification<T> where(
+      Segment segment, String sort, Sort.Direction direction, Cursor after) {
+    boolean ascending = direction.isAscending();
+    return (root, query, cb) -> {
+      Path<Comparable> id = root.get(idProperty);
+      Predicate afterId =
+          after == null
+              ? cb.conjunction()
+              : ascending
+                  ? cb.greaterThan(id, (Comparable) after.id())
+                  : cb.lessThan(id, (Comparable) after.id());
+      if (segment == Segment.IDS) {
+        return afterId;
+      }
+      Path<Comparable> value = root.get(sort);
+      if (segment == Segment.NULLS) {
+        return cb.and(cb.isNull(value), afterId);
+      }
+      if (after == null) {
+        return cb.isNotNull(value);
+      }
+      Comparable last = (Comparable) after.value();
+      Predicate beyond = ascending ? cb.greaterThan(value, last) : cb.lessThan(value, last);
+      return cb.or(beyond, cb.and(cb.equal(value, last), afterId));
+    };
+  }
+
+  private Sort order(Segment segment, String sort, Sort.Direction direction) {
+    Sort byId = Sort.by(direction, idProperty);
+    return segment == Segment.VALUES ? Sort.by(direction, sort).and(byId) : byId;
+  }
+
+  private String encode(String sort, Sort.Direction direction, T last) {
+    BeanWrapperImpl row = new BeanWrapperImpl(last);
+    Cursor cursor =
+        new Cursor(
+            sort,
+            direction.name().toLowerCase(),
+            sort.equals(idProperty) ? null : row.getPropertyValue(sort),
+            row.getPropertyValue(idProperty));
+    try {
+      return Base64.getUrlEncoder()
+          .withoutPadding()
+          .encodeToString(MAPPER.writeValueAsBytes(cursor));
+    } catch (Exception e) {
+      throw new IllegalStateException("Could not encode cursor", e);
+    }
+  }
+
+  private Cursor decode(String token) {
+    try {
+      Cursor raw = MAPPER.readValue(Base64.getUrlDecoder().decode(token), Cursor.class);
+      if (raw.id() == null) {
+        throw new IllegalArgumentException("cursor has no id");
+      }
+      Object value =
+          raw.value() == null ? null : MAPPER.convertValue(raw.value(), propertyType(raw.sort()));
+      Object id = MAPPER.convertValue(raw.id(), propertyType(idProperty));
+      return new Cursor(raw.sort(), raw.direction(), value, id);
+    } catch (Exception e) {
+      throw new InvalidPageRequestException("cursor is not valid");
+    }
+  }
+
+  private Class<?> propertyType(String property) {
+    if (!sortProperties.contains(property)) {
+      throw new IllegalArgumentException("unknown sort property " + property);
+    }
+    return BeanUtils.findPropertyType(property, type);
+  }
+}
@@ -0,0 +1,40 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.MenuItemRating;
+import jakarta.persistence.LockModeType;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/** The MenuItemRatingRepository is a repository for MenuItemRating entities. */
+@Repository
+public interface MenuItemRatingRepository extends CrudRepository<MenuItemRating, Long> {
+  /**
+   * This method reads the rating of a menu item and locks it until the end of the transaction
+   * (SELECT ... FOR UPDATE), so that concurrent reviews of the item are counted one after the
+   * other.
+   *
+   * @param itemId id of the menu item
+   * @return the rating (empty if there is none)
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  Optional<MenuItemRating> findLockedByItemId(long itemId);
+
+  /**
+   * This method returns the ratings with the most stars on average, and the most reviews among
+   * those with the same average.
+   *
+   * @param minReviews least number of reviews a rating must have, at least 1
+   * @param limit how many ratings to return
+   * @return the ratings, best first
+   */
+  @Query(
+      "SELECT r FROM menuitemratings r WHERE r.reviewCount >= :minReviews"
+          + " ORDER BY 1.0 * r.totalStars / r.reviewCount DESC, r.reviewCount DESC, r.itemId")
+  List<MenuItemRating> findTopRated(@Param("minReviews") long minReviews, Limit limit);
+}
@@ -0,0 +1,46 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Selects the menu item reviews listed by the menu item reviews page endpoint. Each filter is
+ * optional (null matches every review), and the ones given must all match. Each one can be looked
+ * up with an index on its column (see the MenuItemReviews-3 changeset).
+ *
+ * @param itemId only reviews of this menu item
+ * @param reviewerEmail only reviews by this reviewer
+ * @param reviewedAfter only reviews dated at or after this
+ * @param reviewedBefore only reviews dated before this
+ */
+public record MenuItemReviewFilter(
+    Long itemId, String reviewerEmail, LocalDateTime reviewedAfter, LocalDateTime reviewedBefore)
+    implements Specification<MenuItemReview> {
+
+  @Override
+  public Predicate toPredicate(
+      Root<MenuItemReview> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
+    List<Predicate> predicates = new ArrayList<>();
+    if (itemId != null) {
+      predicates.add(cb.equal(root.get("itemId"), itemId));
+    }
+    if (reviewerEmail != null) {
+      predicates.add(cb.equal(root.get("reviewerEmail"), reviewerEmail));
+    }
+    if (reviewedAfter != null) {
+      predicates.add(
+          cb.greaterThanOrEqualTo(root.<LocalDateTime>get("dateReviewed"), reviewedAfter));
+    }
+    if (reviewedBefore != null) {
+      predicates.add(cb.lessThan(root.<LocalDateTime>get("dateReviewed"), reviewedBefore));
+    }
+    return cb.and(predicates.toArray(Predicate[]::new));
+  }
+}
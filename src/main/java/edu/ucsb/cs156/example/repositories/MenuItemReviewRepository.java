@@ -1,9 +1,42 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.MenuItemReview;
-import org.springframework.data.repository.CrudRepository;
+import jakarta.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /** The MenuItemReviewRepository is a repository for MenuItemReview entities. */
 @Repository
-public interface MenuItemReviewRepository extends CrudRepository<MenuItemReview, Long> {}
+public interface MenuItemReviewRepository extends ScrollingRepository<MenuItemReview, Long> {
+  /**
+   * This method reads a review and locks it until the end of the transaction (SELECT ... FOR
+   * UPDATE), so that concurrent changes to it are counted in the ratings one after the other.
+   *
+   * @param id id of the review
+   * @return the review (empty if not found)
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  Optional<MenuItemReview> findLockedById(long id);
+
+  /**
+   * This method returns all MenuItemReview entities of a menu item.
+   *
+   * @param itemId id of the menu item
+   * @return the reviews of the menu item
+   */
+  List<MenuItemReview> findAllByItemId(long itemId);
+
+  /**
+   * This method returns the date of the latest review of a menu item.
+   *
+   * @param itemId id of the menu item
+   * @return the date of the latest review, or null if the item has none
+   */
+  @Query("SELECT MAX(r.dateReviewed) FROM menuitemreviews r WHERE r.itemId = :itemId")
+  LocalDateTime findLastReviewedByItemId(@Param("itemId") long itemId);
+}
@@ -0,0 +1,49 @@
+package edu.ucsb.cs156.example.repositories;
+
+import jakarta.persistence.QueryHint;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.repository.query.FluentQuery;
+
+/**
+ * A repository whose entities can be read one page at a time with {@link KeysetPager}, or streamed
+ * all at once with {@link #streamAllBy()}.
+ *
+ * @param <T> the entity type
+ * @param <ID> the type of the entity's id
+ */
+@NoRepositoryBean
+public interface ScrollingRepository<T, ID> extends CrudRepository<T, ID> {
+  /**
+   * This method runs a query built from a specification, e.g. with a sort and a limit. It is the
+   * method of the same name in {@link
+   * org.springframework.data.jpa.repository.JpaSpecificationExecutor}, exposed on its own so that
+   * its other methods (such as {@code delete(Specification)}) do not clash with those of {@link
+   * CrudRepository}.
+   *
+   * @param spec the WHERE clause
+   * @param queryFunction defines and runs the query
+   * @return the result of the query
+   */
+  <S extends T, R> R findBy(
+      Specification<T> spec, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction);
+
+  /**
+   * This method streams every entity from a database cursor, 100 rows per fetch, rather than
+   * loading the whole table as findAll() does. It must be called in a transaction, and the stream
+   * must be closed. The entities are read-only; detach them once used so that the persistence
+   * context does not grow with the table.
+   *
+   * @return a stream of all the entities
+   */
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  Stream<T> streamAllBy();
+}
@@ -1,10 +1,21 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItems;
-import org.springframework.data.repository.CrudRepository;
+import java.util.List;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Repository;
 
 /** The UCSBDateRepository is a repository for UCSBDate entities. */
 @Repository
 public interface UCSBDiningCommonsMenuItemsRepository
-    extends CrudRepository<UCSBDiningCommonsMenuItems, Long> {}
+    extends ScrollingRepository<UCSBDiningCommonsMenuItems, Long> {
+  /**
+   * This method returns the menu items of a dining commons, read with the index on dining commons
+   * code, station and name.
+   *
+   * @param diningCommonsCode code of the dining commons
+   * @param sort order of the menu items
+   * @return the menu items of the dining commons
+   */
+  List<UCSBDiningCommonsMenuItems> findAllByDiningCommonsCode(String diningCommonsCode, Sort sort);
+}
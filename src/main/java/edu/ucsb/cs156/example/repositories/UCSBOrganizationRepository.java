@@ -1,9 +1,21 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
-import org.springframework.data.repository.CrudRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 /** The UCSBDateRepository is a repository for UCSBDate entities. */
 @Repository
-public interface UCSBOrganizationRepository extends CrudRepository<UCSBOrganization, Long> {}
+public interface UCSBOrganizationRepository extends ScrollingRepository<UCSBOrganization, Long> {
+  /**
+   * This method returns all UCSBOrganization entities, from the query cache if the table has not
+   * changed since they were last read.
+   *
+   * @return all UCSBOrganization entities
+   */
+  @Override
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+  Iterable<UCSBOrganization> findAll();
+}
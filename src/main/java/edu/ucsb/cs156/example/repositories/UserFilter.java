@@ -0,0 +1,45 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.User;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Selects the users listed by the admin users endpoints. Each filter is optional (null matches
+ * every user), and the ones given must all match.
+ *
+ * @param admin only admins (true) or only users who are not admins (false)
+ * @param hostedDomain only users of this Google Workspace domain, e.g. ucsb.edu
+ * @param emailPrefix only users whose email starts with this (case sensitive, so that the index on
+ *     email can be used)
+ */
+public record UserFilter(Boolean admin, String hostedDomain, String emailPrefix)
+    implements Specification<User> {
+
+  static final char LIKE_ESCAPE = '\\';
+
+  @Override
+  public Predicate toPredicate(Root<User> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
+    List<Predicate> predicates = new ArrayList<>();
+    if (admin != null) {
+      predicates.add(cb.equal(root.get("admin"), admin));
+    }
+    if (hostedDomain != null) {
+      predicates.add(cb.equal(root.get("hostedDomain"), hostedDomain));
+    }
+    if (emailPrefix != null) {
+      predicates.add(cb.like(root.get("email"), likePrefix(emailPrefix), LIKE_ESCAPE));
+    }
+    return cb.and(predicates.toArray(Predicate[]::new));
+  }
+
+  /** Returns a LIKE pattern that matches strings starting with prefix, taken literally. */
+  static String likePrefix(String prefix) {
+    return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+  }
+}
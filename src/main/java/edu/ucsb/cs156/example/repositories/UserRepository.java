@@ -2,17 +2,116 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.User;
 import java.util.Optional;
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
-/** The UserRepository is a repository for User entities. */
+/**
+ * The UserRepository is a repository for User entities.
+ *
+ * <p>Emails are unique (index USERS_EMAIL_IDX). Users are looked up by email on every request that
+ * needs the current user, so those lookups are cached in {@link #USERS_BY_EMAIL} (see CacheConfig).
+ * Every method that writes users evicts them: saving or deleting a user, or making them an admin,
+ * evicts their entry, and the methods that take ids or several users clear the whole cache. A user
+ * that does not exist yet is not cached.
+ *
+ * <p>Admins list users a page at a time with {@link KeysetPager}, or stream them with {@link
+ * #streamAllBy(org.springframework.data.jpa.domain.Specification)}, selected by a {@link
+ * UserFilter}.
+ */
 @Repository
-public interface UserRepository extends CrudRepository<User, Long> {
+public interface UserRepository extends ScrollingRepository<User, Long>, UserRepositoryCustom {
+  /** Name of the cache of users by email. */
+  String USERS_BY_EMAIL = "usersByEmail";
+
   /**
    * This method returns a User entity with a given email.
    *
    * @param email email address of the user
    * @return Optional of User (empty if not found)
    */
+  @Cacheable(cacheNames = USERS_BY_EMAIL, unless = "#result == null")
   Optional<User> findByEmail(String email);
+
+  /**
+   * This method reads only the admin flag of a user, through the unique index on email. It is not
+   * cached here; see AdminRoleResolver.
+   *
+   * @param email email address of the user
+   * @return whether the user is an admin (empty if not found)
+   */
+  @Query("SELECT u.admin FROM users u WHERE u.email = :email")
+  Optional<Boolean> findAdminByEmail(@Param("email") String email);
+
+  /**
+   * This method saves a user, and evicts them from the cache of users by email.
+   *
+   * @param user the user to save
+   * @return the saved user
+   */
+  @CacheEvict(cacheNames = USERS_BY_EMAIL, key = "#p0.email")
+  <S extends User> S save(S user);
+
+  /**
+   * This method saves several users, and clears the cache of users by email.
+   *
+   * @param users the users to save
+   * @return the saved users
+   */
+  @CacheEvict(cacheNames = USERS_BY_EMAIL, allEntries = true)
+  <S extends User> Iterable<S> saveAll(Iterable<S> users);
+
+  /**
+   * This method deletes a user, and evicts them from the cache of users by email.
+   *
+   * @param user the user to delete
+   */
+  @CacheEvict(cacheNames = USERS_BY_EMAIL, key = "#p0.email")
+  void delete(User user);
+
+  /**
+   * This method deletes a user by id. Their email is not known here, so it clears the cache of
+   * users by email.
+   *
+   * @param id id of the user to delete
+   */
+  @CacheEvict(cacheNames = USERS_BY_EMAIL, allEntries = true)
+  void deleteById(Long id);
+
+  /**
+   * This method deletes several users by id, and clears the cache of users by email.
+   *
+   * @param ids ids of the users to delete
+   */
+  @CacheEvict(cacheNames = USERS_BY_EMAIL, allEntries = true)
+  void deleteAllById(Iterable<? extends Long> ids);
+
+  /**
+   * This method deletes several users, and clears the cache of users by email.
+   *
+   * @param users the users to delete
+   */
+  @CacheEvict(cacheNames = USERS_BY_EMAIL, allEntries = true)
+  void deleteAll(Iterable<? extends User> users);
+
+  /** This method deletes every user, and clears the cache of users by email. */
+  @CacheEvict(cacheNames = USERS_BY_EMAIL, allEntries = true)
+  void deleteAll();
+
+  /**
+   * This method makes a user an admin with a single conditional UPDATE, so that concurrent logins
+   * do not each rewrite the whole row.
+   *
+   * @param email email address of the user
+   * @return 1 if the user was made an admin, 0 if they were one already (or do not exist)
+   */
+  @CacheEvict(cacheNames = USERS_BY_EMAIL, key = "#p0")
+  @Transactional
+  @Modifying
+  @Query("UPDATE users u SET u.admin = TRUE WHERE u.email = :email AND u.admin = FALSE")
+  int makeAdmin(@Param("email") String email);
 }
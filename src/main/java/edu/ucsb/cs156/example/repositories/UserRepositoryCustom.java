@@ -0,0 +1,18 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.User;
+import java.util.stream.Stream;
+import org.springframework.data.jpa.domain.Specification;
+
+/** Custom operations for UserRepository that Spring Data cannot derive. */
+public interface UserRepositoryCustom {
+  /**
+   * This method streams the users that match a specification from a database cursor, like {@link
+   * ScrollingRepository#streamAllBy()} (which it is, with a WHERE clause). It must be called in a
+   * transaction, and the stream must be closed; the users are read-only.
+   *
+   * @param where selects the users
+   * @return a stream of the users
+   */
+  Stream<User> streamAllBy(Specification<User> where);
+}
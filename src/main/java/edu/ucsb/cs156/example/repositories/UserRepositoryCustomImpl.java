@@ -0,0 +1,35 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Criteria query implementation of {@link UserRepositoryCustom}. Spring Data can stream a
+ * specification ({@code findBy(spec, query -> query.stream())}), but without a fetch size, and the
+ * PostgreSQL driver then reads every row before the first is returned.
+ */
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+  static final int FETCH_SIZE = 100;
+
+  @Autowired private EntityManager entityManager;
+
+  @Override
+  public Stream<User> streamAllBy(Specification<User> where) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<User> query = cb.createQuery(User.class);
+    Root<User> root = query.from(User.class);
+    query.where(where.toPredicate(root, query, cb));
+    return entityManager
+        .createQuery(query)
+        .setHint(HibernateHints.HINT_FETCH_SIZE, FETCH_SIZE)
+        .setHint(HibernateHints.HINT_READ_ONLY, true)
+        .getResultStream();
+  }
+}
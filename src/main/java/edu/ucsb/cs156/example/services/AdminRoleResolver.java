@@ -0,0 +1,82 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Decides whether a user who logs in gets ROLE_ADMIN.
+ *
+ * <p>A user is an admin if their email is in {@code app.admin.emails}, which is kept in a hash set,
+ * or if their row in the users table says so. The admin flag read from the database is cached for
+ * {@code app.admin.role-cache-ttl-ms}, so a burst of logins does not wait on a query each. {@link
+ * UserService} invalidates the entry of a user it makes an admin; the TTL bounds how long a change
+ * made elsewhere (another instance, or the database directly) takes to be seen.
+ */
+@Service
+public class AdminRoleResolver {
+  // once the cache holds this many users, expired entries are dropped, and if that is not enough,
+  // all of them
+  static final int MAX_ENTRIES = 10_000;
+
+  @Autowired private UserRepository userRepository;
+
+  @Value("${app.admin.emails}")
+  private Set<String> adminEmails = new HashSet<>();
+
+  @Value("${app.admin.role-cache-ttl-ms:60000}")
+  private long ttlMs;
+
+  private final Map<String, CachedFlag> flags = new ConcurrentHashMap<>();
+
+  /** The admin flag of a user, and when it stops being used. */
+  private record CachedFlag(boolean admin, long expiresAtMs) {}
+
+  /**
+   * Returns whether the user with the given email is an admin.
+   *
+   * @param email email address of the user
+   * @return whether the user is an admin
+   */
+  public boolean isAdmin(String email) {
+    return isAdmin(email, System.currentTimeMillis());
+  }
+
+  boolean isAdmin(String email, long nowMs) {
+    if (adminEmails.contains(email)) {
+      return true;
+    }
+    CachedFlag flag = flags.get(email);
+    if (flag == null || flag.expiresAtMs() <= nowMs) {
+      boolean admin = userRepository.findAdminByEmail(email).orElse(false);
+      flag = new CachedFlag(admin, nowMs + ttlMs);
+      if (flags.size() >= MAX_ENTRIES) {
+        flags.values().removeIf(cached -> cached.expiresAtMs() <= nowMs);
+        if (flags.size() >= MAX_ENTRIES) {
+          flags.clear();
+        }
+      }
+      flags.put(email, flag);
+    }
+    return flag.admin();
+  }
+
+  /**
+   * Forgets the cached admin flag of a user, e.g. after it has changed.
+   *
+   * @param email email address of the user
+   */
+  public void invalidate(String email) {
+    flags.remove(email);
+  }
+
+  /** Forgets the cached admin flags of all users. */
+  public void invalidateAll() {
+    flags.clear();
+  }
+}
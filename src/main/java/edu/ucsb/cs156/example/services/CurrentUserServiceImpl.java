@@ -2,11 +2,9 @@ package edu.ucsb.cs156.example.services;
 
 import edu.ucsb.cs156.example.entities.User;
 import edu.ucsb.cs156.example.models.CurrentUser;
-import edu.ucsb.cs156.example.repositories.UserRepository;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -28,7 +26,7 @@ import org.springframework.stereotype.Service;
 @Service("currentUser")
 @Primary
 public class CurrentUserServiceImpl extends CurrentUserService {
-  @Autowired private UserRepository userRepository;
+  @Autowired private UserService userService;
 
   @Autowired GrantedAuthoritiesService grantedAuthoritiesService;
 
@@ -42,7 +40,7 @@ public class CurrentUserServiceImpl extends CurrentUserService {
    */
   public CurrentUser getCurrentUser() {
     CurrentUser cu = CurrentUser.builder().user(this.getUser()).roles(this.getRoles()).build();
-    log.info("getCurrentUser returns {}", cu);
+    log.debug("getCurrentUser returns {}", cu);
     return cu;
   }
 
@@ -51,7 +49,7 @@ public class CurrentUserServiceImpl extends CurrentUserService {
    * automatically injected by Spring.
    *
    * <p>This method also has a side effect of storing the user in the database if they are not
-   * already there.
+   * already there, and of making them an admin if their email is in app.admin.emails.
    *
    * @param securityContext the security context (provided by Spring)
    * @param authentication the authentication token (provided by Spring)
@@ -70,18 +68,7 @@ public class CurrentUserServiceImpl extends CurrentUserService {
     String locale = oAuthUser.getAttribute("locale");
     String hostedDomain = oAuthUser.getAttribute("hd");
 
-    java.util.Map<java.lang.String, java.lang.Object> attrs = oAuthUser.getAttributes();
-    log.info("attrs={}", attrs);
-
-    Optional<User> ou = userRepository.findByEmail(email);
-    if (ou.isPresent()) {
-      User u = ou.get();
-      if (adminEmails.contains(email) && !u.getAdmin()) {
-        u.setAdmin(true);
-        userRepository.save(u);
-      }
-      return u;
-    }
+    log.debug("attrs={}", oAuthUser.getAttributes());
 
     User u =
         User.builder()
@@ -96,8 +83,8 @@ public class CurrentUserServiceImpl extends CurrentUserService {
             .hostedDomain(hostedDomain)
             .admin(adminEmails.contains(email))
             .build();
-    userRepository.save(u);
-    return u;
+    // read from a cache after the first request; see UserRepository
+    return userService.upsert(u);
   }
 
   /**
@@ -0,0 +1,93 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.models.NearbyDiningCommons;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Finds the dining commons nearest to a point.
+ *
+ * <p>The commons that have a latitude and longitude are kept in a {@link GeoKdTree}, so a search
+ * reads neither the database nor every commons. The tree is rebuilt from the database on the first
+ * search after {@link #invalidate()}, which UCSBDiningCommonsController calls whenever it changes a
+ * commons, or after {@code app.dining-commons.index-ttl-ms}, which bounds how long a change made
+ * elsewhere (another instance, or the database directly) takes to be seen.
+ */
+@Service
+public class DiningCommonsLocator {
+  @Autowired private UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @Value("${app.dining-commons.index-ttl-ms:600000}")
+  private long ttlMs;
+
+  /** The tree, and when it stops being used; null until the first search or after invalidate. */
+  private volatile Index index;
+
+  // counts the calls of invalidate, so that a tree read from the database before a change is not
+  // kept after it
+  private final AtomicLong invalidations = new AtomicLong();
+
+  private record Index(GeoKdTree<UCSBDiningCommons> tree, long expiresAtMs) {}
+
+  /**
+   * Returns the dining commons nearest to a point, among those that match a filter.
+   *
+   * @param latitude latitude of the point, in degrees
+   * @param longitude longitude of the point, in degrees
+   * @param count the most commons to return
+   * @param filter selects the commons to return
+   * @return the nearest matching commons, nearest first
+   */
+  public List<NearbyDiningCommons> nearest(
+      double latitude, double longitude, int count, Predicate<UCSBDiningCommons> filter) {
+    return nearest(latitude, longitude, count, filter, System.currentTimeMillis());
+  }
+
+  List<NearbyDiningCommons> nearest(
+      double latitude,
+      double longitude,
+      int count,
+      Predicate<UCSBDiningCommons> filter,
+      long nowMs) {
+    return tree(nowMs).nearest(latitude, longitude, count, filter).stream()
+        .map(neighbor -> new NearbyDiningCommons(neighbor.place(), neighbor.distanceMeters()))
+        .toList();
+  }
+
+  /** Makes the next search rebuild the tree, e.g. after a commons has changed. */
+  public synchronized void invalidate() {
+    invalidations.incrementAndGet();
+    index = null;
+  }
+
+  private GeoKdTree<UCSBDiningCommons> tree(long nowMs) {
+    Index current = index;
+    if (current == null || current.expiresAtMs() <= nowMs) {
+      long invalidationsBefore = invalidations.get();
+      List<UCSBDiningCommons> located = new ArrayList<>();
+      for (UCSBDiningCommons commons : ucsbDiningCommonsRepository.findAll()) {
+        if (commons.getLatitude() != null && commons.getLongitude() != null) {
+          located.add(commons);
+        }
+      }
+      current =
+          new Index(
+              new GeoKdTree<>(
+                  located, UCSBDiningCommons::getLatitude, UCSBDiningCommons::getLongitude),
+              nowMs + ttlMs);
+      synchronized (this) {
+        if (invalidations.get() == invalidationsBefore) {
+          index = current;
+        }
+      }
+    }
+    return current.tree();
+  }
+}
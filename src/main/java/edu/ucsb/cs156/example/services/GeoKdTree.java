@@ -0,0 +1,163 @@
+package edu.ucsb.cs156.example.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * An immutable k-d tree of places on the Earth, for finding the places nearest to a point.
+ *
+ * <p>Each place is stored as the 3-d unit vector of its latitude and longitude. The straight-line
+ * (chord) distance between two unit vectors grows with the great-circle distance between the
+ * points, so the nearest places by chord are the nearest on the Earth, with no special cases at the
+ * poles or at ±180° longitude. The tree is kept in an array: the median of each range, along the
+ * axis of its depth, is the node, and the two halves of the range are its subtrees.
+ *
+ * @param <T> the type of the places
+ */
+class GeoKdTree<T> {
+  /** The mean radius of the Earth, in meters. */
+  static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+  /** A place, and its distance from the point searched from. */
+  record Neighbor<T>(T place, double distanceMeters) {}
+
+  private record Node<T>(T place, double[] xyz) {}
+
+  /** A node found by a search, and its squared chord distance from the point. */
+  private record Candidate<T>(Node<T> node, double chord2) {}
+
+  private final Node<T>[] nodes;
+
+  /**
+   * Builds the tree.
+   *
+   * @param places the places
+   * @param latitude gets the latitude of a place, in degrees
+   * @param longitude gets the longitude of a place, in degrees
+   */
+  @SuppressWarnings("unchecked")
+  GeoKdTree(List<T> places, ToDoubleFunction<T> latitude, ToDoubleFunction<T> longitude) {
+    nodes =
+        places.stream()
+            .map(
+                place ->
+                    new Node<>(
+                        place,
+                        toXyz(latitude.applyAsDouble(place), longitude.applyAsDouble(place))))
+            .toArray(Node[]::new);
+    build(0, nodes.length, 0);
+  }
+
+  private void build(int from, int to, int depth) {
+    if (to - from < 2) {
+      return;
+    }
+    int axis = depth % 3;
+    Arrays.sort(nodes, from, to, Comparator.comparingDouble(node -> node.xyz()[axis]));
+    int mid = (from + to) >>> 1;
+    build(from, mid, depth + 1);
+    build(mid + 1, to, depth + 1);
+  }
+
+  /**
+   * Returns the number of places in the tree.
+   *
+   * @return the number of places
+   */
+  int size() {
+    return nodes.length;
+  }
+
+  /**
+   * Finds the places nearest to a point, among those that match a filter. Places that do not match
+   * are skipped during the search, so count matching places are found however many do not match.
+   *
+   * @param latitude latitude of the point, in degrees
+   * @param longitude longitude of the point, in degrees
+   * @param count the most places to return
+   * @param filter selects the places to return
+   * @return the nearest matching places, nearest first
+   */
+  List<Neighbor<T>> nearest(double latitude, double longitude, int count, Predicate<T> filter) {
+    double[] point = toXyz(latitude, longitude);
+    // the farthest of the best candidates so far is at the head, to be replaced by a nearer one
+    PriorityQueue<Candidate<T>> best =
+        new PriorityQueue<>(Comparator.comparingDouble(Candidate<T>::chord2).reversed());
+    search(0, nodes.length, 0, point, count, filter, best);
+
+    List<Neighbor<T>> result = new ArrayList<>(best.size());
+    while (!best.isEmpty()) {
+      Candidate<T> candidate = best.poll();
+      result.add(0, new Neighbor<>(candidate.node().place(), meters(candidate.chord2())));
+    }
+    return result;
+  }
+
+  private void search(
+      int from,
+      int to,
+      int depth,
+      double[] point,
+      int count,
+      Predicate<T> filter,
+      PriorityQueue<Candidate<T>> best) {
+    if (from >= to) {
+      return;
+    }
+    int axis = depth % 3;
+    int mid = (from + to) >>> 1;
+    Node<T> node = nodes[mid];
+
+    if (filter.test(node.place())) {
+      double chord2 = chord2(point, node.xyz());
+      if (best.size() < count) {
+        best.add(new Candidate<>(node, chord2));
+      } else if (chord2 < best.peek().chord2()) {
+        best.poll();
+        best.add(new Candidate<>(node, chord2));
+      }
+    }
+
+    // search the half the point is in first; the other half can only hold nearer places if the
+    // splitting plane is nearer than the farthest of the best so far
+    double offset = point[axis] - node.xyz()[axis];
+    boolean pointBelow = offset < 0;
+    if (pointBelow) {
+      search(from, mid, depth + 1, point, count, filter, best);
+    } else {
+      search(mid + 1, to, depth + 1, point, count, filter, best);
+    }
+    if (best.size() < count || offset * offset < best.peek().chord2()) {
+      if (pointBelow) {
+        search(mid + 1, to, depth + 1, point, count, filter, best);
+      } else {
+        search(from, mid, depth + 1, point, count, filter, best);
+      }
+    }
+  }
+
+  static double[] toXyz(double latitude, double longitude) {
+    double lat = Math.toRadians(latitude);
+    double lon = Math.toRadians(longitude);
+    return new double[] {
+      Math.cos(lat) * Math.cos(lon), Math.cos(lat) * Math.sin(lon), Math.sin(lat)
+    };
+  }
+
+  private static double chord2(double[] a, double[] b) {
+    double dx = a[0] - b[0];
+    double dy = a[1] - b[1];
+    double dz = a[2] - b[2];
+    return dx * dx + dy * dy + dz * dz;
+  }
+
+  /** Converts a squared chord length on the unit sphere to meters along the Earth's surface. */
+  static double meters(double chord2) {
+    return 2 * Math.asin(Math.min(1, Math.sqrt(chord2) / 2)) * EARTH_RADIUS_METERS;
+  }
+}
@@ -0,0 +1,75 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Writes query results to a response as a JSON array, one row at a time.
+ *
+ * <p>The rows are read from a {@link Stream} (e.g. {@code ScrollingRepository.streamAllBy()}) in a
+ * read-only transaction, and each one is written and then detached from the persistence context
+ * before the next is read. Neither the rows nor the JSON are ever held in memory all at once, so
+ * memory use does not depend on the size of the table. The response is written on an MVC async
+ * thread, so the request thread is free while it is sent.
+ */
+@Service
+public class JsonStreamService {
+  @Autowired private ObjectMapper mapper;
+
+  @Autowired private EntityManager entityManager;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  /**
+   * Streams rows as a JSON array.
+   *
+   * @param query opens the stream of rows; it is called in the transaction
+   * @return the response body
+   * @param <T> the type of the rows
+   */
+  public <T> StreamingResponseBody jsonArray(Supplier<Stream<T>> query) {
+    return out -> {
+      TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+      transaction.setReadOnly(true);
+      try {
+        transaction.executeWithoutResult(status -> write(query, out));
+      } catch (UncheckedIOException e) {
+        // usually the client went away
+        throw e.getCause();
+      }
+    };
+  }
+
+  private <T> void write(Supplier<Stream<T>> query, OutputStream out) {
+    // ObjectMapper flushes after every value by default, which would send each row on its own
+    ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    try (Stream<T> rows = query.get();
+        JsonGenerator json =
+            mapper.createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+      json.writeStartArray();
+      Iterator<T> iterator = rows.iterator();
+      while (iterator.hasNext()) {
+        T row = iterator.next();
+        writer.writeValue(json, row);
+        entityManager.detach(row);
+      }
+      json.writeEndArray();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
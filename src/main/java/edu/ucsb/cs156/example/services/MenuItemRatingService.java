@@ -0,0 +1,171 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.MenuItemRating;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Posts, edits and deletes menu item reviews, and keeps the rating of each menu item
+ * (MenuItemRating) up to date as it does.
+ *
+ * <p>Each change is made in one transaction with the review and the ratings it counts in, which are
+ * locked first (SELECT ... FOR UPDATE): concurrent changes to the reviews of an item are counted
+ * one after the other, and a rating never disagrees with the reviews. The ratings are locked in
+ * order of item id, so two changes cannot each wait for the other.
+ *
+ * <p>The ratings of the items reviewed before the table was added were created by its changeset.
+ * Otherwise, the rating of an item is created, from its reviews, before the first change to them.
+ * An edit or delete reads the review's item before its transaction, so if the review is moved to an
+ * item without a rating in between, the transaction is rolled back, that rating is created, and the
+ * change is made again.
+ */
+@Service
+public class MenuItemRatingService {
+  @Autowired private MenuItemReviewRepository menuItemReviewRepository;
+
+  @Autowired private MenuItemRatingRepository menuItemRatingRepository;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  /**
+   * Saves a new review.
+   *
+   * @param review the review
+   * @return the saved review
+   */
+  public MenuItemReview post(MenuItemReview review) {
+    createRating(review.getItemId());
+    return inTransaction(
+        () -> {
+          MenuItemRating rating = lockRating(review.getItemId());
+          MenuItemReview saved = menuItemReviewRepository.save(review);
+          rating.add(saved);
+          return saved;
+        });
+  }
+
+  /**
+   * Changes a review, which may move it to another menu item.
+   *
+   * @param id id of the review
+   * @param incoming the new contents of the review
+   * @return the changed review
+   * @throws EntityNotFoundException if there is no review with this id
+   */
+  public MenuItemReview update(long id, MenuItemReview incoming) {
+    createRating(findReview(id).getItemId());
+    createRating(incoming.getItemId());
+    return inTransactionWithRatings(
+        () -> {
+          MenuItemReview review = lockReview(id);
+          long oldItemId = review.getItemId();
+          long newItemId = incoming.getItemId();
+          MenuItemRating oldRating = lockRating(Math.min(oldItemId, newItemId));
+          MenuItemRating newRating = lockRating(Math.max(oldItemId, newItemId));
+          if (oldItemId > newItemId) {
+            MenuItemRating swap = oldRating;
+            oldRating = newRating;
+            newRating = swap;
+          }
+
+          oldRating.remove(review);
+          review.setComments(incoming.getComments());
+          review.setDateReviewed(incoming.getDateReviewed());
+          review.setItemId(incoming.getItemId());
+          review.setReviewerEmail(incoming.getReviewerEmail());
+          review.setStars(incoming.getStars());
+          MenuItemReview saved = menuItemReviewRepository.save(review);
+          newRating.add(saved);
+          oldRating.setLastReviewed(menuItemReviewRepository.findLastReviewedByItemId(oldItemId));
+          return saved;
+        });
+  }
+
+  /**
+   * Deletes a review.
+   *
+   * @param id id of the review
+   * @throws EntityNotFoundException if there is no review with this id
+   */
+  public void delete(long id) {
+    createRating(findReview(id).getItemId());
+    inTransactionWithRatings(
+        () -> {
+          MenuItemReview review = lockReview(id);
+          MenuItemRating rating = lockRating(review.getItemId());
+          menuItemReviewRepository.delete(review);
+          rating.remove(review);
+          rating.setLastReviewed(
+              menuItemReviewRepository.findLastReviewedByItemId(review.getItemId()));
+          return null;
+        });
+  }
+
+  private MenuItemReview findReview(long id) {
+    return menuItemReviewRepository
+        .findById(id)
+        .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
+  }
+
+  private MenuItemReview lockReview(long id) {
+    return menuItemReviewRepository
+        .findLockedById(id)
+        .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
+  }
+
+  private MenuItemRating lockRating(long itemId) {
+    return menuItemRatingRepository
+        .findLockedByItemId(itemId)
+        .orElseThrow(() -> new MissingRatingException(itemId));
+  }
+
+  /** Creates the rating of a menu item from its reviews, unless it already has one. */
+  private void createRating(long itemId) {
+    if (menuItemRatingRepository.existsById(itemId)) {
+      return;
+    }
+    MenuItemRating rating = MenuItemRating.builder().itemId(itemId).build();
+    menuItemReviewRepository.findAllByItemId(itemId).forEach(rating::add);
+    try {
+      menuItemRatingRepository.save(rating);
+    } catch (DataIntegrityViolationException e) {
+      // a concurrent change created it first
+    }
+  }
+
+  private <T> T inTransaction(Supplier<T> change) {
+    return new TransactionTemplate(transactionManager).execute(status -> change.get());
+  }
+
+  /**
+   * Makes a change whose ratings were created from a review read before the transaction. If the
+   * review has since been moved to an item without a rating, creates that rating and tries again
+   * once.
+   */
+  private <T> T inTransactionWithRatings(Supplier<T> change) {
+    try {
+      return inTransaction(change);
+    } catch (MissingRatingException e) {
+      createRating(e.itemId);
+      return inTransaction(change);
+    }
+  }
+
+  /** Thrown in a transaction that needs the rating of a menu item that has none. */
+  private static class MissingRatingException extends IllegalStateException {
+    private final long itemId;
+
+    MissingRatingException(long itemId) {
+      super("no rating for menu item " + itemId);
+      this.itemId = itemId;
+    }
+  }
+}
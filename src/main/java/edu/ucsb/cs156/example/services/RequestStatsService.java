@@ -0,0 +1,127 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.HandlerLatency;
+import edu.ucsb.cs156.example.models.RequestStats;
+import edu.ucsb.cs156.example.models.SlowRequest;
+import jakarta.servlet.http.HttpServletRequest;
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps the latency statistics of controller methods, which {@code LoggingAspect} reports here.
+ *
+ * <p>Each controller method has an HdrHistogram of its latencies, so that p50, p95, p99 and max are
+ * read without keeping every sample, and recording a request does not take a lock. The slowest
+ * {@code app.request-stats.slowest} requests are kept too, with their URI (none if it is 0); once
+ * that many are kept, a request faster than all of them is dropped without taking a lock either.
+ */
+@Service
+public class RequestStatsService {
+  // latencies are kept in microseconds, to within 1%
+  static final int SIGNIFICANT_DIGITS = 2;
+
+  private static final Comparator<SlowRequest> BY_DURATION =
+      Comparator.comparingDouble(SlowRequest::getDurationMs);
+
+  @Value("${app.request-stats.slowest:20}")
+  private int slowestSize;
+
+  private final Map<Method, Latencies> latencies = new ConcurrentHashMap<>();
+
+  // guarded by this
+  private final List<SlowRequest> slowest = new ArrayList<>();
+
+  // once slowest is full, how long a request must take (in microseconds) to be kept
+  private volatile long slowestThreshold = -1;
+
+  /**
+   * The latencies of one controller method; requests are recorded into a {@link Recorder} without
+   * locking, and added to the totals when the statistics are read.
+   */
+  private static class Latencies {
+    private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+    private final Histogram total = new Histogram(SIGNIFICANT_DIGITS);
+    private Histogram interval;
+
+    synchronized Histogram total() {
+      interval = recorder.getIntervalHistogram(interval);
+      total.add(interval);
+      return total.copy();
+    }
+  }
+
+  /**
+   * Records a call to a controller method.
+   *
+   * @param handler the controller method
+   * @param nanos how long it took
+   * @param request the request it handled, or null if it was not called for a request
+   */
+  public void record(Method handler, long nanos, HttpServletRequest request) {
+    long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+    latencies.computeIfAbsent(handler, method -> new Latencies()).recorder.recordValue(micros);
+    // app.request-stats.slowest=0 keeps no slow requests at all
+    if (slowestSize > 0 && micros > slowestThreshold) {
+      keepIfSlowest(handler, micros, request);
+    }
+  }
+
+  private synchronized void keepIfSlowest(Method handler, long micros, HttpServletRequest request) {
+    if (slowest.size() >= slowestSize) {
+      SlowRequest fastest = slowest.stream().min(BY_DURATION).orElseThrow();
+      if (fastest.getDurationMs() >= micros / 1000.0) {
+        return;
+      }
+      slowest.remove(fastest);
+    }
+    slowest.add(
+        SlowRequest.builder()
+            .at(LocalDateTime.now())
+            .method(request == null ? null : request.getMethod())
+            .uri(request == null ? null : request.getRequestURI())
+            .controller(handler.getDeclaringClass().getSimpleName())
+            .handler(handler.getName())
+            .durationMs(micros / 1000.0)
+            .build());
+    if (slowest.size() >= slowestSize) {
+      slowestThreshold =
+          Math.round(slowest.stream().min(BY_DURATION).orElseThrow().getDurationMs() * 1000);
+    }
+  }
+
+  /**
+   * Returns the latencies of every controller method called since the last reset, and the slowest
+   * requests.
+   *
+   * @return the request statistics
+   */
+  public RequestStats getStats() {
+    List<HandlerLatency> handlers =
+        latencies.entrySet().stream()
+            .map(entry -> HandlerLatency.of(entry.getKey(), entry.getValue().total()))
+            .sorted(Comparator.comparingDouble(HandlerLatency::getP99Ms).reversed())
+            .toList();
+    List<SlowRequest> slowestFirst;
+    synchronized (this) {
+      slowestFirst = slowest.stream().sorted(BY_DURATION.reversed()).toList();
+    }
+    return RequestStats.builder().handlers(handlers).slowest(slowestFirst).build();
+  }
+
+  /** Forgets all the requests recorded so far, e.g. before a load test. */
+  public synchronized void reset() {
+    latencies.clear();
+    slowest.clear();
+    slowestThreshold = -1;
+  }
+}
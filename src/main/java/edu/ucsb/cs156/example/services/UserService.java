@@ -0,0 +1,47 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Stores the users that log in.
+ *
+ * <p>A user is inserted the first time they log in. Two first logins of the same user (e.g. from
+ * two tabs) used to race between finding no user and inserting one, leaving two rows with the same
+ * email. Email is now unique, so the second insert fails and that login reads the row the first one
+ * inserted. Admin status is only ever granted, with a conditional UPDATE.
+ */
+@Service
+public class UserService {
+  @Autowired private UserRepository userRepository;
+
+  @Autowired private AdminRoleResolver adminRoleResolver;
+
+  /**
+   * Returns the user with the email of the given user, inserting the given user if there is none.
+   * If the given user is an admin, the stored user is made one too.
+   *
+   * @param user the user that logged in
+   * @return the stored user
+   */
+  public User upsert(User user) {
+    User stored = userRepository.findByEmail(user.getEmail()).orElse(null);
+    if (stored == null) {
+      try {
+        return userRepository.save(user);
+      } catch (DataIntegrityViolationException e) {
+        // another login inserted this user first
+        stored = userRepository.findByEmail(user.getEmail()).orElseThrow(() -> e);
+      }
+    }
+    if (user.getAdmin() && !stored.getAdmin()) {
+      userRepository.makeAdmin(stored.getEmail());
+      adminRoleResolver.invalidate(stored.getEmail());
+      stored.setAdmin(true);
+    }
+    return stored;
+  }
+}
@@ -1,20 +1,301 @@
 package edu.ucsb.cs156.example.services.jobs;
 
 import edu.ucsb.cs156.example.entities.Job;
-import edu.ucsb.cs156.example.repositories.JobsRepository;
-import lombok.AllArgsConstructor;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
-@AllArgsConstructor
+/**
+ * The context handed to a running job. Each call to {@link #log(String)} appends one line to the
+ * job's log in the joblogs table; the job row itself is not rewritten.
+ *
+ * <p>In buffered mode, lines are collected in memory and written in one JDBC batch once {@code
+ * flushLines} lines are pending or {@code flushIntervalMs} has passed since the last flush. {@link
+ * #flush()} may also be called from another thread, e.g. by the periodic flush in {@link
+ * JobService}, and is always called when the job finishes.
+ *
+ * <p>Jobs can also report structured progress with {@link #phase(String)}, {@link #progress(long,
+ * long)} and {@link #advance(long)}. These calls only update memory; {@link JobService} saves the
+ * latest progress every {@code app.jobs.progress.save-interval-ms}, so they are cheap enough to
+ * call once per unit of work.
+ *
+ * <p>A job is stopped when it is cancelled or runs for longer than its timeout. Long running jobs
+ * should check {@link #isCancelled()} between units of work and return early once it is true. A job
+ * that does not is interrupted {@code app.jobs.cancel.grace-ms} later, which ends blocking calls
+ * such as {@link Thread#sleep(long)} with an {@link InterruptedException}.
+ */
 @Slf4j
 public class JobContext {
-  private JobsRepository jobsRepository;
-  private Job job;
+  private final JobLogLinesRepository jobLogLinesRepository;
+  @Getter private final Job job;
+  private final int flushLines;
+  private final long flushIntervalMs;
+  // held for the whole of a flush, so that batches are written one at a time and in order. Not a
+  // monitor: a virtual thread blocked in the write would pin its carrier thread while holding one
+  private final ReentrantLock flushLock = new ReentrantLock();
+
+  private List<JobLogLine> pending = new ArrayList<>();
+  private int nextSeq;
+  private long lastFlushMs = System.currentTimeMillis();
+
+  private String phase;
+  private long done;
+  private long total;
+  private boolean progressChanged;
+
+  // "cancelled" or "timeout" once the job has been told to stop
+  private volatile String stopStatus;
+  private long stopRequestedMs;
+  private long deadlineMs;
+  private Thread thread;
+  private boolean interrupted;
+
+  /** A snapshot of the progress a job has reported. */
+  public record Progress(String phase, long done, long total) {}
+
+  /**
+   * Creates an unbuffered context: every line is written as soon as it is logged.
+   *
+   * @param jobLogLinesRepository repository the log lines are written to (may be null in tests)
+   * @param job the job being run
+   */
+  public JobContext(JobLogLinesRepository jobLogLinesRepository, Job job) {
+    this(jobLogLinesRepository, job, 1, 0);
+  }
+
+  /**
+   * Creates a buffered context.
+   *
+   * @param jobLogLinesRepository repository the log lines are written to (may be null in tests)
+   * @param job the job being run
+   * @param flushLines flush once this many lines are pending
+   * @param flushIntervalMs flush on the next log call once this many ms have passed since the last
+   *     flush
+   */
+  public JobContext(
+      JobLogLinesRepository jobLogLinesRepository, Job job, int flushLines, long flushIntervalMs) {
+    this(jobLogLinesRepository, job, flushLines, flushIntervalMs, 0);
+  }
+
+  /**
+   * Creates a buffered context whose lines are numbered from {@code firstSeq}, so that a job that
+   * is run again after being interrupted appends to the log of its earlier attempts.
+   *
+   * @param jobLogLinesRepository repository the log lines are written to (may be null in tests)
+   * @param job the job being run
+   * @param flushLines flush once this many lines are pending
+   * @param flushIntervalMs flush on the next log call once this many ms have passed since the last
+   *     flush
+   * @param firstSeq sequence number of the first line logged
+   */
+  public JobContext(
+      JobLogLinesRepository jobLogLinesRepository,
+      Job job,
+      int flushLines,
+      long flushIntervalMs,
+      int firstSeq) {
+    this.jobLogLinesRepository = jobLogLinesRepository;
+    this.job = job;
+    this.flushLines = flushLines;
+    this.flushIntervalMs = flushIntervalMs;
+    this.nextSeq = firstSeq;
+  }
 
   public void log(String message) {
-    log.info("Job %s: %s".formatted(job.getId(), message));
-    String previousLog = job.getLog() == null ? "" : (job.getLog() + "\n");
-    job.setLog(previousLog + message);
-    if (jobsRepository != null) jobsRepository.save(job);
+    append("INFO", message);
+  }
+
+  public void logError(String message) {
+    append("ERROR", message);
+  }
+
+  private void append(String level, String message) {
+    log.info("Job {}: {}", job.getId(), message);
+    boolean flushNow;
+    synchronized (this) {
+      pending.add(
+          JobLogLine.builder()
+              .jobId(job.getId())
+              .seq(nextSeq++)
+              .loggedAt(ZonedDateTime.now())
+              .level(level)
+              .message(message)
+              .build());
+      flushNow =
+          pending.size() >= flushLines
+              || System.currentTimeMillis() - lastFlushMs >= flushIntervalMs;
+    }
+    if (flushNow) {
+      flush();
+    }
+  }
+
+  /**
+   * Sets the phase the job is in, e.g. "downloading" or "saving".
+   *
+   * @param phase name of the phase
+   */
+  public synchronized void phase(String phase) {
+    this.phase = phase;
+    progressChanged = true;
+  }
+
+  /**
+   * Sets how many units of work the job has done, and how many it will do in all.
+   *
+   * @param done units done so far
+   * @param total units to do in all, or 0 if not known
+   */
+  public synchronized void progress(long done, long total) {
+    this.done = done;
+    this.total = total;
+    progressChanged = true;
+  }
+
+  /**
+   * Adds to the number of units of work the job has done.
+   *
+   * @param units units just done
+   */
+  public synchronized void advance(long units) {
+    done += units;
+    progressChanged = true;
+  }
+
+  /**
+   * Returns the progress reported so far.
+   *
+   * @return the current progress
+   */
+  public synchronized Progress getProgress() {
+    return new Progress(phase, done, total);
+  }
+
+  /**
+   * Returns the progress if it has changed since the last call, so that it is only saved when
+   * needed.
+   *
+   * @return the current progress, or null if it has not changed
+   */
+  public synchronized Progress takeProgressUpdate() {
+    if (!progressChanged) {
+      return null;
+    }
+    progressChanged = false;
+    return getProgress();
+  }
+
+  /**
+   * Returns whether the job has been cancelled or has timed out, in which case it should stop as
+   * soon as it can.
+   *
+   * @return true if the job should stop
+   */
+  public boolean isCancelled() {
+    return stopStatus != null;
+  }
+
+  /**
+   * Returns why the job was told to stop.
+   *
+   * @return "cancelled" or "timeout", or null if the job has not been told to stop
+   */
+  public String getStopStatus() {
+    return stopStatus;
+  }
+
+  /**
+   * Marks the job as running on the calling thread, so that it can be interrupted.
+   *
+   * @param timeoutMs how long the job may run, or 0 for no limit
+   */
+  synchronized void start(long timeoutMs) {
+    thread = Thread.currentThread();
+    deadlineMs = timeoutMs > 0 ? System.currentTimeMillis() + timeoutMs : 0;
+  }
+
+  /**
+   * Tells the job to stop. Has no effect if it has already been told to.
+   *
+   * @param status "cancelled" or "timeout"
+   */
+  synchronized void stop(String status) {
+    if (stopStatus == null) {
+      stopStatus = status;
+      stopRequestedMs = System.currentTimeMillis();
+    }
+  }
+
+  /**
+   * Stops the job if it has passed its deadline, and interrupts it if it has not stopped within
+   * {@code graceMs} of being told to.
+   *
+   * @param nowMs the current time
+   * @param graceMs how long a job is given to stop by itself
+   */
+  synchronized void enforceLimits(long nowMs, long graceMs) {
+    if (stopStatus == null && deadlineMs > 0 && nowMs >= deadlineMs) {
+      stopStatus = "timeout";
+      stopRequestedMs = nowMs;
+    }
+    if (stopStatus != null
+        && thread != null
+        && !interrupted
+        && nowMs >= stopRequestedMs + graceMs) {
+      log.warn("Job {} did not stop within {} ms, interrupting it", job.getId(), graceMs);
+      interrupted = true;
+      thread.interrupt();
+    }
+  }
+
+  /**
+   * Marks the job as finished. Called on the job's thread, it also clears an interrupt that was not
+   * consumed by the job, so that it does not break the writes that follow.
+   */
+  synchronized void finish() {
+    thread = null;
+    Thread.interrupted();
+  }
+
+  /**
+   * Writes all pending log lines in a single batch. Safe to call from any thread.
+   *
+   * <p>Flushes are serialized: a flush that finds nothing pending still waits for a concurrent one
+   * to finish writing. So once this returns, every line logged before the call has been written,
+   * and batches are written in the order of their lines.
+   *
+   * <p>If the write fails, the batch is put back in front of the lines logged since, so that the
+   * next flush writes it again, and the exception is rethrown.
+   */
+  public void flush() {
+    flushLock.lock();
+    try {
+      List<JobLogLine> batch;
+      synchronized (this) {
+        if (pending.isEmpty()) {
+          return;
+        }
+        batch = pending;
+        pending = new ArrayList<>();
+        lastFlushMs = System.currentTimeMillis();
+      }
+      try {
+        if (jobLogLinesRepository != null) jobLogLinesRepository.appendAll(batch);
+      } catch (RuntimeException e) {
+        synchronized (this) {
+          batch.addAll(pending);
+          pending = batch;
+        }
+        log.warn("Job {}: could not write {} log lines, will retry", job.getId(), batch.size());
+        throw e;
+      }
+    } finally {
+      flushLock.unlock();
+    }
   }
 }
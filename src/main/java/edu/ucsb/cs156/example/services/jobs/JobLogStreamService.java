@@ -0,0 +1,122 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ScheduledFuture;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Streams the log of a job as Server-Sent Events.
+ *
+ * <p>Each subscriber polls the joblogs table once per {@code app.jobs.log.flush-interval-ms}, i.e.
+ * as often as buffered lines are written, so lines are streamed no matter which instance runs the
+ * job. Every line is sent as a "log" event whose id is its offset, so that a client that reconnects
+ * with Last-Event-ID continues where it left off. While the job is running, lines are only sent up
+ * to the first offset that has not been committed yet, so none is skipped. Once the job has
+ * finished, its remaining lines and an "end" event with the job's status are sent and the stream is
+ * closed.
+ */
+@Slf4j
+@Service
+public class JobLogStreamService {
+  @Autowired private JobsRepository jobsRepository;
+
+  @Autowired private JobLogLinesRepository jobLogLinesRepository;
+
+  @Autowired private TaskScheduler taskScheduler;
+
+  @Value("${app.jobs.log.flush-interval-ms:1000}")
+  private long pollIntervalMs;
+
+  @Value("${app.jobs.log.stream-timeout-ms:1800000}")
+  private long timeoutMs;
+
+  /**
+   * Starts streaming the log of a job.
+   *
+   * @param jobId id of the job
+   * @param after offset of the first line to send
+   * @return the emitter the lines are sent to
+   */
+  public SseEmitter stream(Long jobId, int after) {
+    if (!jobsRepository.existsById(jobId)) {
+      throw new EntityNotFoundException(Job.class, jobId);
+    }
+
+    SseEmitter emitter = new SseEmitter(timeoutMs);
+    JobLogStream stream = new JobLogStream(jobId, after, emitter);
+    // poll() is synchronized too, so the first poll waits until the future has been set
+    synchronized (stream) {
+      stream.future =
+          taskScheduler.scheduleWithFixedDelay(stream::poll, Duration.ofMillis(pollIntervalMs));
+    }
+    emitter.onCompletion(stream::stop);
+    emitter.onTimeout(stream::stop);
+    emitter.onError(stream::fail);
+    return emitter;
+  }
+
+  /** The state of one subscriber. */
+  class JobLogStream {
+    private final long jobId;
+    private final SseEmitter emitter;
+    private int offset;
+    private ScheduledFuture<?> future;
+
+    JobLogStream(long jobId, int offset, SseEmitter emitter) {
+      this.jobId = jobId;
+      this.offset = offset;
+      this.emitter = emitter;
+    }
+
+    /** Sends the lines written since the last poll, and closes the stream if the job is done. */
+    synchronized void poll() {
+      try {
+        // read the status first: a job writes all its lines before it is saved as finished
+        String status = jobsRepository.findById(jobId).map(Job::getStatus).orElse("deleted");
+        boolean finished = !status.equals("queued") && !status.equals("running");
+        for (JobLogLine line :
+            jobLogLinesRepository.findAllByJobIdAndSeqGreaterThanEqualOrderBySeqAsc(
+                jobId, offset)) {
+          if (line.getSeq() != offset && !finished) {
+            // an earlier line is still being written; it is sent by a later poll
+            break;
+          }
+          emitter.send(
+              SseEmitter.event()
+                  .id(Integer.toString(line.getSeq()))
+                  .name("log")
+                  .data(line.getMessage()));
+          offset = line.getSeq() + 1;
+        }
+        if (finished) {
+          emitter.send(SseEmitter.event().name("end").data(status));
+          stop();
+          emitter.complete();
+        }
+      } catch (IOException | IllegalStateException e) {
+        // the client went away, or the emitter has already completed
+        fail(e);
+      }
+    }
+
+    void fail(Throwable e) {
+      log.debug("Stopped streaming log of job {}: {}", jobId, e.toString());
+      stop();
+    }
+
+    void stop() {
+      future.cancel(false);
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.models.JobRetentionStatus;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Deletes old jobs and their log lines.
+ *
+ * <p>The retention policy applies to jobs with one of the statuses in {@code
+ * app.jobs.retention.statuses}. Of those, jobs older than {@code max-age-days} are deleted, and so
+ * are all but the newest {@code keep-last}. Setting either to 0 turns that rule off. The policy is
+ * applied on {@code app.jobs.retention.cron} and on demand by admins.
+ *
+ * <p>No purge ever deletes a queued or running job, since {@link JobService} still has to claim or
+ * finish it. A purge reads the ids of the jobs to delete once, up front, and then deletes them
+ * {@code chunk-size} at a time with bulk DELETE statements, one transaction per chunk, so that a
+ * large purge neither loads the jobs (and their logs) into memory nor holds locks for long. Jobs
+ * that finish while it runs are left for the next purge. Progress is logged after each chunk and
+ * can be read from {@link #getStatus()}.
+ */
+@Slf4j
+@Service
+public class JobRetentionService {
+  // createdAt bound used when the age rule is turned off
+  static final ZonedDateTime EARLIEST = ZonedDateTime.of(1970, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+  @Autowired private JobsRepository jobsRepository;
+
+  @Autowired private JobLogLinesRepository jobLogLinesRepository;
+
+  @Autowired private TransactionTemplate transactionTemplate;
+
+  @Value("${app.jobs.retention.statuses:complete,error,rejected,cancelled,timeout}")
+  private List<String> statuses;
+
+  @Value("${app.jobs.retention.max-age-days:90}")
+  private int maxAgeDays;
+
+  @Value("${app.jobs.retention.keep-last:1000}")
+  private int keepLast;
+
+  @Value("${app.jobs.retention.chunk-size:500}")
+  private int chunkSize;
+
+  private volatile JobRetentionStatus status = JobRetentionStatus.builder().build();
+
+  /**
+   * Returns the progress of the purge that is running, or else of the last one.
+   *
+   * @return the status of the current or last purge
+   */
+  public JobRetentionStatus getStatus() {
+    return status;
+  }
+
+  /**
+   * Deletes the jobs that the retention policy no longer keeps.
+   *
+   * @return the status of the finished purge
+   */
+  @Scheduled(cron = "${app.jobs.retention.cron:0 0 3 * * *}")
+  public JobRetentionStatus applyRetentionPolicy() {
+    ZonedDateTime before = maxAgeDays > 0 ? ZonedDateTime.now().minusDays(maxAgeDays) : EARLIEST;
+    long maxId = 0;
+    if (keepLast > 0) {
+      // the newest job that is not kept, if there is one
+      List<Long> ids =
+          jobsRepository.findIdsByStatusNewestFirst(statuses, PageRequest.of(keepLast, 1));
+      maxId = ids.isEmpty() ? 0 : ids.get(0);
+    }
+    return purge("retention policy", jobsRepository.findIdsToPurge(statuses, maxId, before));
+  }
+
+  /**
+   * Deletes every job that is neither queued nor running.
+   *
+   * @return the status of the finished purge
+   */
+  public JobRetentionStatus deleteAllJobs() {
+    return purge("all jobs", jobsRepository.findIdsOfInactiveJobs());
+  }
+
+  /**
+   * Deletes jobs and their log lines in one transaction.
+   *
+   * @param ids ids of the jobs
+   * @return the number of log lines deleted
+   */
+  public int deleteJobs(List<Long> ids) {
+    return transactionTemplate.execute(
+        tx -> {
+          int lines = jobLogLinesRepository.deleteAllByJobIdIn(ids);
+          jobsRepository.deleteAllByIdIn(ids);
+          return lines;
+        });
+  }
+
+  private synchronized JobRetentionStatus purge(String description, List<Long> ids) {
+    JobRetentionStatus progress =
+        JobRetentionStatus.builder()
+            .description(description)
+            .running(true)
+            .jobsToDelete(ids.size())
+            .startedAt(ZonedDateTime.now())
+            .build();
+    status = progress;
+    log.info("Purging {}: {} jobs to delete", description, ids.size());
+
+    for (int from = 0; from < ids.size(); from += chunkSize) {
+      List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+      int lines = deleteJobs(chunk);
+      progress =
+          progress.toBuilder()
+              .jobsDeleted(progress.getJobsDeleted() + chunk.size())
+              .logLinesDeleted(progress.getLogLinesDeleted() + lines)
+              .build();
+      status = progress;
+      log.info(
+          "Purging {}: deleted {} of {} jobs", description, progress.getJobsDeleted(), ids.size());
+    }
+
+    status = progress.toBuilder().running(false).finishedAt(ZonedDateTime.now()).build();
+    return status;
+  }
+}
@@ -1,53 +1,404 @@
 package edu.ucsb.cs156.example.services.jobs;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.JobQueueFullException;
+import edu.ucsb.cs156.example.models.JobLogTail;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
 import edu.ucsb.cs156.example.services.CurrentUserService;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+/**
+ * Runs jobs and keeps track of them in the jobs table.
+ *
+ * <p>Jobs whose {@link JobContextConsumer} can be written as JSON (e.g. {@code TestJob}) are
+ * inserted with status "queued". Every instance polls the table and claims up to {@code
+ * app.jobs.queue.workers} queued jobs at a time, sends heartbeats for the jobs it is running, and
+ * puts jobs whose instance stopped sending heartbeats back on the queue. Other consumers, such as
+ * lambdas, are run right away in the instance that launched them, as before.
+ *
+ * <p>Jobs can be cancelled with {@link #cancelJob(long)}, and are stopped in the same way once they
+ * have run for longer than their timeout: their {@link JobContext} reports {@link
+ * JobContext#isCancelled()}, and if they have not stopped within {@code app.jobs.cancel.grace-ms}
+ * their thread is interrupted. A job that is running in another instance learns that it has been
+ * cancelled with its next heartbeat.
+ */
+@Slf4j
 @Service
 public class JobService {
   @Autowired private JobsRepository jobsRepository;
 
+  @Autowired private JobLogLinesRepository jobLogLinesRepository;
+
   @Autowired private CurrentUserService currentUserService;
 
+  @Autowired private ObjectMapper mapper;
+
   @Lazy @Autowired private JobService self;
 
+  @Value("${app.jobs.log.buffered:true}")
+  private boolean logBuffered;
+
+  @Value("${app.jobs.log.flush-lines:100}")
+  private int logFlushLines;
+
+  @Value("${app.jobs.log.flush-interval-ms:1000}")
+  private long logFlushIntervalMs;
+
+  @Value("${app.jobs.queue.workers:2}")
+  private int queueWorkers;
+
+  @Value("${app.jobs.queue.stale-after-ms:60000}")
+  private long staleAfterMs;
+
+  @Value("${app.jobs.queue.max-attempts:3}")
+  private int maxAttempts;
+
+  @Value("${app.jobs.timeout-ms:3600000}")
+  private long defaultTimeoutMs;
+
+  @Value("${app.jobs.cancel.grace-ms:5000}")
+  private long cancelGraceMs;
+
+  private final String workerId = UUID.randomUUID().toString();
+
+  private final Map<Long, JobContext> runningContexts = new ConcurrentHashMap<>();
+
+  // jobs this instance has claimed and not yet finished, whether or not they have started
+  private final Set<Long> claimedJobs = ConcurrentHashMap.newKeySet();
+
   public Job runAsJob(JobContextConsumer jobFunction) {
-    Job job = Job.builder().createdBy(currentUserService.getUser()).status("running").build();
+    return runAsJob(jobFunction, defaultTimeoutMs);
+  }
+
+  /**
+   * Runs a job that is stopped once it has run for {@code timeoutMs}.
+   *
+   * @param jobFunction the job
+   * @param timeoutMs how long the job may run, or 0 for no limit
+   * @return the job
+   */
+  public Job runAsJob(JobContextConsumer jobFunction, long timeoutMs) {
+    String params = toParams(jobFunction);
+    if (params != null) {
+      Job job =
+          Job.builder()
+              .createdBy(currentUserService.getUser())
+              .status("queued")
+              .type(jobFunction.getClass().getName())
+              .params(params)
+              .timeoutMs(timeoutMs)
+              .build();
+      jobsRepository.save(job);
+      return job;
+    }
+
+    Job job =
+        Job.builder()
+            .createdBy(currentUserService.getUser())
+            .status("running")
+            .claimedBy(workerId)
+            .heartbeatAt(ZonedDateTime.now())
+            .startedAt(ZonedDateTime.now())
+            .attempts(1)
+            .timeoutMs(timeoutMs)
+            .build();
 
     jobsRepository.save(job);
-    self.runJobAsync(job, jobFunction);
+    claimedJobs.add(job.getId());
+    try {
+      self.runJobAsync(job, jobFunction);
+    } catch (TaskRejectedException e) {
+      claimedJobs.remove(job.getId());
+      job.setStatus("rejected");
+      jobsRepository.save(job);
+      throw new JobQueueFullException(job.getId());
+    }
 
     return job;
   }
 
-  @Async
+  /**
+   * Returns the JSON parameters of a job, or null if the job cannot be rebuilt from JSON and so
+   * cannot be queued.
+   */
+  private String toParams(JobContextConsumer jobFunction) {
+    Class<?> type = jobFunction.getClass();
+    if (type.isSynthetic() || type.isAnonymousClass() || type.isLocalClass()) {
+      return null;
+    }
+    try {
+      return mapper.writeValueAsString(jobFunction);
+    } catch (JsonProcessingException e) {
+      return null;
+    }
+  }
+
+  private JobContextConsumer fromParams(Job job) {
+    try {
+      Class<? extends JobContextConsumer> type =
+          Class.forName(job.getType()).asSubclass(JobContextConsumer.class);
+      return mapper.readValue(job.getParams(), type);
+    } catch (Exception e) {
+      String message = String.format("Could not load job of type %s: %s", job.getType(), e);
+      return ctx -> {
+        throw new Exception(message);
+      };
+    }
+  }
+
+  /** Claims queued jobs while this instance has free workers, and runs them. */
+  @Scheduled(fixedDelayString = "${app.jobs.queue.poll-interval-ms:1000}")
+  public void pollQueue() {
+    int free = queueWorkers - claimedJobs.size();
+    if (free <= 0) {
+      return;
+    }
+    for (Long id : jobsRepository.findQueuedJobIds(PageRequest.of(0, free))) {
+      if (jobsRepository.claim(id, workerId, ZonedDateTime.now()) == 1) {
+        claimedJobs.add(id);
+        dispatch(jobsRepository.findById(id).orElseThrow());
+      }
+    }
+  }
+
+  private void dispatch(Job job) {
+    try {
+      self.runJobAsync(job, fromParams(job));
+    } catch (TaskRejectedException e) {
+      claimedJobs.remove(job.getId());
+      job.setStatus("queued");
+      job.setClaimedBy(null);
+      jobsRepository.save(job);
+    }
+  }
+
+  /** Tells other instances that the jobs claimed by this instance are still alive. */
+  @Scheduled(fixedDelayString = "${app.jobs.queue.heartbeat-interval-ms:10000}")
+  public void sendHeartbeats() {
+    Set<Long> ids = new HashSet<>(claimedJobs);
+    if (ids.isEmpty()) {
+      return;
+    }
+    jobsRepository.heartbeat(ids, ZonedDateTime.now());
+    // jobs that were cancelled through another instance
+    for (Long id : jobsRepository.findCancelRequestedIds(ids)) {
+      JobContext context = runningContexts.get(id);
+      if (context != null) {
+        context.stop("cancelled");
+      }
+    }
+  }
+
+  /**
+   * Cancels a job. A queued job is cancelled right away; a running job is told to stop (see {@link
+   * JobContext#isCancelled()}) and is saved as "cancelled" once it has. Jobs that have already
+   * finished are left as they are.
+   *
+   * @param id id of the job
+   * @return the job
+   */
+  public Job cancelJob(long id) {
+    Job job =
+        jobsRepository.findById(id).orElseThrow(() -> new EntityNotFoundException(Job.class, id));
+    if (!job.getStatus().equals("queued") && !job.getStatus().equals("running")) {
+      return job;
+    }
+
+    ZonedDateTime now = ZonedDateTime.now();
+    if (jobsRepository.cancelQueued(id, now) == 0) {
+      // the job is running: the instance running it checks for this with its heartbeats
+      jobsRepository.requestCancel(id, now);
+      JobContext context = runningContexts.get(id);
+      if (context != null) {
+        context.getJob().setCancelRequestedAt(now);
+        context.stop("cancelled");
+      }
+    }
+    return jobsRepository.findById(id).orElse(job);
+  }
+
+  /**
+   * Tells jobs that have run for longer than their timeout to stop, and interrupts jobs that have
+   * not stopped within {@code app.jobs.cancel.grace-ms} of being told to.
+   */
+  @Scheduled(fixedDelayString = "${app.jobs.cancel.check-interval-ms:1000}")
+  public void enforceJobLimits() {
+    long now = System.currentTimeMillis();
+    runningContexts.values().forEach(context -> context.enforceLimits(now, cancelGraceMs));
+  }
+
+  /**
+   * Requeues running jobs that have not had a heartbeat for {@code app.jobs.queue.stale-after-ms},
+   * because the instance running them has stopped. Jobs that cannot be rerun, or have already been
+   * tried {@code app.jobs.queue.max-attempts} times, are marked as failed instead. Runs at startup
+   * and then periodically.
+   */
+  @Scheduled(initialDelay = 0, fixedDelayString = "${app.jobs.queue.stale-after-ms:60000}")
+  public void recoverStaleJobs() {
+    ZonedDateTime now = ZonedDateTime.now();
+    ZonedDateTime staleBefore = now.minus(Duration.ofMillis(staleAfterMs));
+    int requeued = jobsRepository.requeueStaleJobs(staleBefore, maxAttempts, now);
+    int failed = jobsRepository.failStaleJobs(staleBefore, now);
+    if (requeued > 0 || failed > 0) {
+      log.warn("Recovered stale jobs: {} requeued, {} failed", requeued, failed);
+    }
+  }
+
+  /**
+   * Saves the progress that jobs running in this instance have reported since the last save, so
+   * that reporting progress does not cost a database write per call.
+   */
+  @Scheduled(fixedDelayString = "${app.jobs.progress.save-interval-ms:2000}")
+  public void saveRunningJobProgress() {
+    runningContexts.forEach(
+        (id, context) -> {
+          JobContext.Progress progress = context.takeProgressUpdate();
+          if (progress != null) {
+            jobsRepository.updateProgress(
+                id, progress.phase(), progress.done(), progress.total(), ZonedDateTime.now());
+          }
+        });
+  }
+
+  @Async("jobExecutor")
   public void runJobAsync(Job job, JobContextConsumer jobFunction) {
-    JobContext context = new JobContext(jobsRepository, job);
+    JobContext context = newContext(job);
+    context.start(job.getTimeoutMs());
+    runningContexts.put(job.getId(), context);
 
     try {
+      if (job.getAttempts() > 1) {
+        context.log(String.format("Restarting job (attempt %d)", job.getAttempts()));
+      }
       jobFunction.accept(context);
+      job.setStatus("complete");
     } catch (Exception e) {
       job.setStatus("error");
-      context.log(e.getMessage());
-      return;
+      if (!context.isCancelled()) {
+        context.logError(e.getMessage());
+      }
+    } finally {
+      context.finish();
+      runningContexts.remove(job.getId());
+      if (context.isCancelled()) {
+        // whether the job returned early or was interrupted
+        job.setStatus(context.getStopStatus());
+        context.log(
+            job.getStatus().equals("timeout")
+                ? String.format("Job timed out after %d ms", job.getTimeoutMs())
+                : "Job cancelled");
+      }
     }
 
-    job.setStatus("complete");
-    jobsRepository.save(job);
+    try {
+      context.flush();
+
+      JobContext.Progress progress = context.getProgress();
+      ZonedDateTime now = ZonedDateTime.now();
+      job.setPhase(progress.phase());
+      job.setProgressDone(progress.done());
+      job.setProgressTotal(progress.total());
+      job.setProgressAt(now);
+
+      // not save(job): that would write back every column of this copy, undoing a concurrent cancel
+      jobsRepository.finish(
+          job.getId(), job.getStatus(), progress.phase(), progress.done(), progress.total(), now);
+    } finally {
+      // even if a write failed: the job then stops getting heartbeats, so recoverStaleJobs requeues
+      // or fails it instead of it staying running, and the worker slot is freed
+      claimedJobs.remove(job.getId());
+    }
+  }
+
+  private JobContext newContext(Job job) {
+    int firstSeq =
+        job.getAttempts() > 1 ? (int) jobLogLinesRepository.countByJobId(job.getId()) : 0;
+    if (!logBuffered) {
+      return new JobContext(jobLogLinesRepository, job, 1, 0, firstSeq);
+    }
+    return new JobContext(jobLogLinesRepository, job, logFlushLines, logFlushIntervalMs, firstSeq);
   }
 
+  /**
+   * Flushes the buffered log lines of every job running in this instance, so that jobs that log
+   * rarely (e.g. while sleeping) still have their output written within the flush interval.
+   */
+  @Scheduled(fixedDelayString = "${app.jobs.log.flush-interval-ms:1000}")
+  public void flushRunningJobLogs() {
+    runningContexts.values().forEach(JobContext::flush);
+  }
+
+  /**
+   * Rebuilds the log of a job from its log lines. Jobs that ran before log lines were stored
+   * separately fall back to the legacy log column.
+   *
+   * @param jobId id of the job
+   * @return the log of the job, one line per log message
+   */
   public String getJobLogs(Long jobId) {
+    return getJobLogsAfter(jobId, 0).getLog();
+  }
+
+  /**
+   * Returns the lines a job has logged from {@code after} on. A client following a running job
+   * passes the {@code nextOffset} of each response as {@code after} of the next request.
+   *
+   * <p>While the job is queued or running, only the lines up to the first missing offset are
+   * returned, so that a line that has not been committed yet is not skipped. Once the job has
+   * finished, all its lines have been committed (it flushes its log before it is saved as
+   * finished), so every line is returned.
+   *
+   * @param jobId id of the job
+   * @param after offset of the first line to return, i.e. the number of lines already read
+   * @return the new lines, and the offset to continue from
+   */
+  public JobLogTail getJobLogsAfter(Long jobId, int after) {
+    // read the status before the lines, so a finished job has written all of them
     Job job =
         jobsRepository
             .findById(jobId)
             .orElseThrow(() -> new IllegalArgumentException("Job not found"));
+    boolean finished = !"queued".equals(job.getStatus()) && !"running".equals(job.getStatus());
+
+    List<JobLogLine> found =
+        jobLogLinesRepository.findAllByJobIdAndSeqGreaterThanEqualOrderBySeqAsc(jobId, after);
+    if (found.isEmpty() && after == 0) {
+      String log = job.getLog();
+      return new JobLogTail(log != null ? log : "", 0);
+    }
 
-    String log = job.getLog();
-    return log != null ? log : "";
+    List<String> lines = new ArrayList<>();
+    int nextOffset = after;
+    for (JobLogLine line : found) {
+      if (line.getSeq() != nextOffset && !finished) {
+        // an earlier line is still being written; it and the ones after it are returned next time
+        break;
+      }
+      lines.add(line.getMessage());
+      nextOffset = line.getSeq() + 1;
+    }
+    return new JobLogTail(String.join("\n", lines), nextOffset);
   }
 }
@@ -1,19 +1,27 @@
 package edu.ucsb.cs156.example;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
+import edu.ucsb.cs156.example.services.JsonStreamService;
 import edu.ucsb.cs156.example.services.wiremock.WiremockService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.io.UnsupportedEncodingException;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @ActiveProfiles("test")
 @Import(TestConfig.class)
@@ -28,9 +36,25 @@ public abstract class ControllerTestCase {
 
   @MockBean WiremockService mockWiremockService;
 
+  @MockBean public JsonStreamService jsonStreamService;
+
   protected Map<String, Object> responseToJson(MvcResult result)
       throws UnsupportedEncodingException, JsonProcessingException {
     String responseString = result.getResponse().getContentAsString();
     return mapper.readValue(responseString, Map.class);
   }
+
+  /**
+   * Makes jsonStreamService write the rows a controller streams as a plain JSON array, so that the
+   * streaming endpoints can be tested without a database.
+   */
+  protected void stubJsonStreams() {
+    when(jsonStreamService.jsonArray(any()))
+        .thenAnswer(
+            invocation -> {
+              Supplier<Stream<?>> query = invocation.getArgument(0);
+              List<?> rows = query.get().toList();
+              return (StreamingResponseBody) out -> out.write(mapper.writeValueAsBytes(rows));
+            });
+  }
 }
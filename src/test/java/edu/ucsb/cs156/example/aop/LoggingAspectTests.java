@@ -0,0 +1,146 @@
+package edu.ucsb.cs156.example.aop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import edu.ucsb.cs156.example.services.RequestStatsService;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+public class LoggingAspectTests {
+
+  /** A controller to time; only its mapped methods are advised. */
+  public static class TestController {
+    @GetMapping("/api/test")
+    public String ok() {
+      return "ok";
+    }
+
+    @GetMapping("/api/test/fail")
+    public String fail() {
+      throw new IllegalStateException("fail");
+    }
+  }
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private final RequestStatsService requestStatsService = mock(RequestStatsService.class);
+
+  private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/test");
+
+  private final Logger logger = (Logger) LoggerFactory.getLogger(LoggingAspect.class);
+
+  private final ListAppender<ILoggingEvent> logged = new ListAppender<>();
+
+  private Level loggerLevel;
+
+  private TestController controller;
+
+  @BeforeEach
+  public void setup() {
+    LoggingAspect aspect = new LoggingAspect();
+    ReflectionTestUtils.setField(aspect, "meterRegistry", meterRegistry);
+    ReflectionTestUtils.setField(aspect, "requestStatsService", requestStatsService);
+    AspectJProxyFactory factory = new AspectJProxyFactory(new TestController());
+    factory.addAspect(aspect);
+    controller = factory.getProxy();
+
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    loggerLevel = logger.getLevel();
+    logged.start();
+    logger.addAppender(logged);
+  }
+
+  @AfterEach
+  public void teardown() {
+    logger.detachAppender(logged);
+    logger.setLevel(loggerLevel);
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  private Timer timer(String handler, String exception) {
+    return meterRegistry
+        .get(LoggingAspect.TIMER)
+        .tags("controller", "TestController", "handler", handler, "exception", exception)
+        .timer();
+  }
+
+  @Test
+  public void call_that_returns_is_timed_without_an_exception() throws Exception {
+    // act
+    String result = controller.ok();
+    controller.ok();
+
+    // assert
+    assertEquals("ok", result);
+    assertEquals(2, timer("ok", "none").count());
+    assertEquals(1, meterRegistry.find(LoggingAspect.TIMER).timers().size());
+    verify(requestStatsService, times(2))
+        .record(eq(TestController.class.getMethod("ok")), anyLong(), eq(request));
+  }
+
+  @Test
+  public void call_that_throws_is_timed_with_its_exception() throws Exception {
+    // act
+    assertThrows(IllegalStateException.class, () -> controller.fail());
+
+    // assert
+    assertEquals(1, timer("fail", "IllegalStateException").count());
+    assertNull(
+        meterRegistry
+            .find(LoggingAspect.TIMER)
+            .tags("handler", "fail", "exception", "none")
+            .timer());
+    verify(requestStatsService)
+        .record(eq(TestController.class.getMethod("fail")), anyLong(), eq(request));
+  }
+
+  @Test
+  public void calls_are_not_logged_at_info_level() throws Exception {
+    // arrange
+    logger.setLevel(Level.INFO);
+
+    // act
+    controller.ok();
+    assertThrows(IllegalStateException.class, () -> controller.fail());
+
+    // assert
+    assertEquals(0, logged.list.size());
+  }
+
+  @Test
+  public void calls_are_logged_at_debug_level() throws Exception {
+    // arrange
+    logger.setLevel(Level.DEBUG);
+
+    // act
+    controller.ok();
+
+    // assert
+    assertEquals(1, logged.list.size());
+    assertEquals(Level.DEBUG, logged.list.get(0).getLevel());
+    assertEquals(
+        "GET /api/test handled by ok in " + TestController.class.getName(),
+        logged.list.get(0).getFormattedMessage());
+  }
+}
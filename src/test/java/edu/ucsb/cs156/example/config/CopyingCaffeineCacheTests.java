@@ -0,0 +1,149 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+public class CopyingCaffeineCacheTests {
+
+  private final AtomicLong nanos = new AtomicLong();
+
+  private final Cache<Object, Object> caffeine =
+      Caffeine.newBuilder()
+          .maximumSize(2)
+          .expireAfterWrite(Duration.ofSeconds(10))
+          .executor(Runnable::run)
+          .ticker(nanos::get)
+          .build();
+
+  @SuppressWarnings("unchecked")
+  private final CopyingCaffeineCache cache =
+      new CopyingCaffeineCache("lists", caffeine, value -> new ArrayList<>((List<Object>) value));
+
+  @Test
+  public void cache_has_its_name_and_caffeine_cache() {
+    // act & assert
+    assertEquals("lists", cache.getName());
+    assertSame(caffeine, cache.getNativeCache());
+  }
+
+  @Test
+  public void hits_are_copies_of_the_value_put() {
+    // arrange
+    List<String> value = new ArrayList<>(List.of("a"));
+    cache.put("key", value);
+    value.add("b");
+
+    // act
+    @SuppressWarnings("unchecked")
+    List<String> first = (List<String>) cache.get("key").get();
+    first.add("c");
+    Object second = cache.get("key").get();
+
+    // assert
+    assertEquals(List.of("a"), second);
+    assertNotSame(first, second);
+  }
+
+  @Test
+  public void missing_key_is_a_miss() {
+    // act & assert
+    assertNull(cache.get("key"));
+  }
+
+  @Test
+  public void null_values_are_not_cached() {
+    // act & assert
+    assertThrows(IllegalArgumentException.class, () -> cache.put("key", null));
+    assertNull(cache.get("key"));
+  }
+
+  @Test
+  public void loaded_value_is_cached_and_copied() {
+    // arrange
+    List<String> loaded = new ArrayList<>(List.of("a"));
+
+    // act
+    List<String> first = cache.get("key", () -> loaded);
+    List<String> second = cache.get("key", () -> List.of("not loaded"));
+
+    // assert
+    assertEquals(List.of("a"), first);
+    assertEquals(List.of("a"), second);
+    assertNotSame(loaded, first);
+    assertNotSame(first, second);
+  }
+
+  @Test
+  public void failure_to_load_a_value_is_reported() {
+    // act
+    RuntimeException e =
+        assertThrows(
+            RuntimeException.class,
+            () ->
+                cache.get(
+                    "key",
+                    () -> {
+                      throw new Exception("boom");
+                    }));
+
+    // assert
+    assertEquals("boom", e.getCause().getMessage());
+    assertNull(cache.get("key"));
+  }
+
+  @Test
+  public void entries_expire_after_they_are_written() {
+    // arrange
+    cache.put("key", List.of("a"));
+
+    // act
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(11));
+
+    // assert
+    assertNull(cache.get("key"));
+  }
+
+  @Test
+  public void cache_keeps_at_most_its_maximum_size() {
+    // act
+    cache.put("a", List.of("a"));
+    cache.put("b", List.of("b"));
+    cache.put("c", List.of("c"));
+    caffeine.cleanUp();
+
+    // assert
+    assertEquals(2, caffeine.estimatedSize());
+  }
+
+  @Test
+  public void evict_and_clear_remove_entries() {
+    // arrange
+    cache.put("a", List.of("a"));
+    cache.put("b", List.of("b"));
+
+    // act
+    cache.evict("a");
+
+    // assert
+    assertNull(cache.get("a"));
+    assertEquals(List.of("b"), cache.get("b").get());
+
+    // act
+    cache.clear();
+
+    // assert
+    assertNull(cache.get("b"));
+  }
+}
@@ -0,0 +1,40 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+public class JobExecutorConfigTests {
+
+  @Test
+  public void job_executor_uses_platform_threads_by_default() throws Exception {
+    ThreadPoolTaskExecutor executor = new JobExecutorConfig().jobExecutor(1, 2, 3, false);
+    executor.initialize();
+
+    boolean virtual = executor.submit(() -> Thread.currentThread().isVirtual()).get();
+    String name = executor.submit(() -> Thread.currentThread().getName()).get();
+    executor.shutdown();
+
+    assertFalse(virtual);
+    assertTrue(name.startsWith("job-"));
+    assertEquals(1, executor.getCorePoolSize());
+    assertEquals(2, executor.getMaxPoolSize());
+    assertEquals(3, executor.getQueueCapacity());
+  }
+
+  @Test
+  public void job_executor_uses_virtual_threads_when_enabled() throws Exception {
+    ThreadPoolTaskExecutor executor = new JobExecutorConfig().jobExecutor(1, 2, 3, true);
+    executor.initialize();
+
+    boolean virtual = executor.submit(() -> Thread.currentThread().isVirtual()).get();
+    String name = executor.submit(() -> Thread.currentThread().getName()).get();
+    executor.shutdown();
+
+    assertTrue(virtual);
+    assertTrue(name.startsWith("job-virtual-"));
+  }
+}
@@ -53,4 +53,21 @@ public class ApiControllerTests extends ControllerTestCase {
     assertEquals("EntityNotFoundException", json.get("type"));
     assertEquals("String with id 7 not found", json.get("message"));
   }
+
+  @Test
+  public void test_that_job_queue_full_returns_too_many_requests() throws Exception {
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/dummycontroller/launch?id=3"))
+            .andExpect(status().isTooManyRequests())
+            .andReturn();
+
+    // assert
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("JobQueueFullException", json.get("type"));
+    assertEquals("Job 3 rejected: the job queue is full, try again later", json.get("message"));
+  }
 }
@@ -7,22 +7,27 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.repositories.ArticlesRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -338,4 +343,76 @@ public class ArticlesControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("Articles with id 15 not found", json.get("message"));
   }
+
+  @Test
+  public void logged_out_users_cannot_get_a_page() throws Exception {
+    mockMvc.perform(get("/api/articles/page")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_page_of_articles() throws Exception {
+
+    // arrange
+    Articles entity = Articles.builder().id(1L).title("first").build();
+    when(articlesRepository.findBy(any(), any())).thenReturn(List.of(entity));
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/articles/page?size=10")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    verify(articlesRepository, times(1)).findBy(any(), any());
+    String expectedJson = mapper.writeValueAsString(new KeysetPage<>(List.of(entity), null));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @Test
+  public void logged_out_users_cannot_stream_all() throws Exception {
+    mockMvc.perform(get("/api/articles/stream")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_stream_all_articles() throws Exception {
+
+    // arrange
+    Articles first = Articles.builder().id(1L).title("first").build();
+    Articles second = Articles.builder().id(2L).title("second").build();
+    when(articlesRepository.streamAllBy()).thenReturn(Stream.of(first, second));
+    stubJsonStreams();
+
+    // act
+    MvcResult result =
+        mockMvc
+            .perform(get("/api/articles/stream"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    MvcResult response =
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk()).andReturn();
+
+    // assert
+    verify(articlesRepository, times(1)).streamAllBy();
+    String expectedJson = mapper.writeValueAsString(List.of(first, second));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void page_with_unknown_sort_returns_bad_request() throws Exception {
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/articles/page?sort=url"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("InvalidPageRequestException", json.get("type"));
+    assertEquals("sort must be one of id, title, email, dateAdded", json.get("message"));
+  }
 }
@@ -1,12 +1,16 @@
 package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.JobQueueFullException;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-/** This class is used to test ApiController and EntityNotFoundException */
+/**
+ * This class is used to test ApiController and its handling of EntityNotFoundException and
+ * JobQueueFullException
+ */
 @RequestMapping("/dummycontroller")
 @RestController
 public class DummyController extends ApiController {
@@ -18,4 +22,9 @@ public class DummyController extends ApiController {
     }
     throw new EntityNotFoundException(String.class, id);
   }
+
+  @GetMapping("/launch")
+  public String launch(@RequestParam Long id) throws JobQueueFullException {
+    throw new JobQueueFullException(id);
+  }
 }
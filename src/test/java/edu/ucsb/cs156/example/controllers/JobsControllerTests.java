@@ -1,70 +1,103 @@
 package edu.ucsb.cs156.example.controllers;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.config.JobExecutorConfig;
 import edu.ucsb.cs156.example.entities.Job;
-import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.models.JobExecutorStatus;
+import edu.ucsb.cs156.example.models.JobProgress;
+import edu.ucsb.cs156.example.models.JobRetentionStatus;
+import edu.ucsb.cs156.example.models.JobSummary;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.jobs.JobLogStreamService;
+import edu.ucsb.cs156.example.services.jobs.JobRetentionService;
 import edu.ucsb.cs156.example.services.jobs.JobService;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ScheduledFuture;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.task.TaskSchedulingAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.orm.jpa.AutoConfigureDataJpa;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
 @Slf4j
 @WebMvcTest(controllers = JobsController.class)
-@Import(JobService.class)
+@Import({JobService.class, JobLogStreamService.class, JobExecutorConfig.class})
+@ImportAutoConfiguration(TaskSchedulingAutoConfiguration.class)
 @AutoConfigureDataJpa
 public class JobsControllerTests extends ControllerTestCase {
 
   @MockitoBean JobsRepository jobsRepository;
 
+  @MockitoBean JobLogLinesRepository jobLogLinesRepository;
+
   @MockitoBean UserRepository userRepository;
 
+  @MockitoBean JobRetentionService jobRetentionService;
+
+  @MockitoSpyBean TaskScheduler taskScheduler;
+
   @Autowired JobService jobService;
 
   @Autowired ObjectMapper objectMapper;
 
   @WithMockUser(roles = {"ADMIN"})
   @Test
-  public void admin_can_get_all_jobs() throws Exception {
+  public void admin_can_get_all_jobs_without_their_logs() throws Exception {
 
     // arrange
 
-    Job job1 = Job.builder().log("this is job 1").build();
-    Job job2 = Job.builder().log("this is job 2").build();
-
-    ArrayList<Job> expectedJobs = new ArrayList<>();
-    expectedJobs.addAll(Arrays.asList(job1, job2));
+    List<JobSummary> expectedJobs =
+        List.of(
+            JobSummary.builder().id(1L).status("complete").logLines(2).build(),
+            JobSummary.builder().id(2L).status("running").logLines(0).build());
 
-    when(jobsRepository.findAll()).thenReturn(expectedJobs);
+    when(jobsRepository.findAllSummaries()).thenReturn(expectedJobs);
 
     // act
     MvcResult response =
@@ -72,10 +105,223 @@ public class JobsControllerTests extends ControllerTestCase {
 
     // assert
 
-    verify(jobsRepository, atLeastOnce()).findAll();
+    verify(jobsRepository, atLeastOnce()).findAllSummaries();
     String expectedJson = mapper.writeValueAsString(expectedJobs);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
+    assertEquals(false, responseString.contains("\"log\""));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  @SuppressWarnings("unchecked")
+  public void admin_can_get_first_page_of_job_summaries() throws Exception {
+
+    // arrange
+
+    JobSummary summary =
+        JobSummary.builder()
+            .id(3L)
+            .status("complete")
+            .createdAt(ZonedDateTime.parse("2025-01-02T03:04:05Z"))
+            .updatedAt(ZonedDateTime.parse("2025-01-02T03:04:06Z"))
+            .logLines(2)
+            .build();
+    PageRequest expectedRequest =
+        PageRequest.of(
+            0,
+            20,
+            Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id")));
+    when(jobsRepository.findSummaries(
+            true, "", true, JobsController.EARLIEST, JobsController.LATEST, expectedRequest))
+        .thenReturn(new PageImpl<>(List.of(summary), expectedRequest, 1));
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/jobs/page")).andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    Map<String, Object> json =
+        objectMapper.readValue(response.getResponse().getContentAsString(), Map.class);
+    List<Map<String, Object>> content = (List<Map<String, Object>>) json.get("content");
+    assertEquals(1, content.size());
+    assertEquals(3, content.get(0).get("id"));
+    assertEquals(2, content.get(0).get("logLines"));
+    assertEquals(false, content.get(0).containsKey("log"));
+    assertEquals(
+        Map.of("size", 20, "number", 0, "totalElements", 1, "totalPages", 1), json.get("page"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_filter_job_summaries_by_status_and_date() throws Exception {
+
+    // arrange
+
+    ZonedDateTime after = ZonedDateTime.parse("2025-01-01T00:00:00Z");
+    ZonedDateTime before = ZonedDateTime.parse("2025-02-01T00:00:00Z");
+    PageRequest expectedRequest =
+        PageRequest.of(
+            2, 5, Sort.by(Sort.Direction.ASC, "status").and(Sort.by(Sort.Direction.ASC, "id")));
+    when(jobsRepository.findSummaries(
+            eq(false), eq("error"), eq(false), any(), any(), eq(expectedRequest)))
+        .thenReturn(new PageImpl<>(List.of(), expectedRequest, 10));
+
+    // act
+    mockMvc
+        .perform(
+            get("/api/jobs/page")
+                .param("page", "2")
+                .param("size", "5")
+                .param("sort", "status")
+                .param("direction", "asc")
+                .param("status", "error")
+                .param("createdAfter", "2025-01-01T00:00:00Z")
+                .param("createdBefore", "2025-02-01T00:00:00Z"))
+        .andExpect(status().isOk());
+
+    // assert
+    ArgumentCaptor<ZonedDateTime> from = ArgumentCaptor.forClass(ZonedDateTime.class);
+    ArgumentCaptor<ZonedDateTime> to = ArgumentCaptor.forClass(ZonedDateTime.class);
+    verify(jobsRepository)
+        .findSummaries(
+            eq(false), eq("error"), eq(false), from.capture(), to.capture(), eq(expectedRequest));
+    assertEquals(after.toInstant(), from.getValue().toInstant());
+    assertEquals(before.toInstant(), to.getValue().toInstant());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void job_summaries_with_only_one_date_use_open_range() throws Exception {
+
+    // act
+    mockMvc
+        .perform(get("/api/jobs/page").param("createdBefore", "2025-02-01T00:00:00Z"))
+        .andExpect(status().isOk());
+    mockMvc
+        .perform(get("/api/jobs/page").param("createdAfter", "2025-01-01T00:00:00Z"))
+        .andExpect(status().isOk());
+
+    // assert
+    verify(jobsRepository)
+        .findSummaries(eq(true), eq(""), eq(false), eq(JobsController.EARLIEST), any(), any());
+    verify(jobsRepository)
+        .findSummaries(eq(true), eq(""), eq(false), any(), eq(JobsController.LATEST), any());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  @SuppressWarnings("unchecked")
+  public void job_summaries_reject_invalid_page_requests() throws Exception {
+
+    // act & assert
+    for (String query :
+        List.of("page=-1", "size=0", "size=101", "sort=log", "direction=sideways")) {
+      MvcResult response =
+          mockMvc
+              .perform(get("/api/jobs/page?" + query))
+              .andExpect(status().isBadRequest())
+              .andReturn();
+      Map<String, Object> json =
+          objectMapper.readValue(response.getResponse().getContentAsString(), Map.class);
+      assertEquals("InvalidPageRequestException", json.get("type"));
+    }
+    verify(jobsRepository, times(0))
+        .findSummaries(any(Boolean.class), any(), any(Boolean.class), any(), any(), any());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  @SuppressWarnings("unchecked")
+  public void admin_can_get_progress_of_a_job() throws Exception {
+
+    // arrange
+
+    ZonedDateTime started = ZonedDateTime.parse("2025-01-01T00:00:00Z");
+    JobProgress progress =
+        JobProgress.builder()
+            .id(4L)
+            .status("running")
+            .phase("sleeping")
+            .done(5)
+            .total(10)
+            .startedAt(started)
+            .updatedAt(started.plusSeconds(5))
+            .build();
+    when(jobsRepository.findProgressById(4L)).thenReturn(Optional.of(progress));
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/jobs/progress?id=4")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    Map<String, Object> json =
+        objectMapper.readValue(response.getResponse().getContentAsString(), Map.class);
+    assertEquals("sleeping", json.get("phase"));
+    assertEquals(50.0, json.get("percent"));
+    assertEquals(1.0, json.get("unitsPerSecond"));
+    assertEquals(
+        started.plusSeconds(10).toInstant(),
+        ZonedDateTime.parse((String) json.get("estimatedCompletionAt")).toInstant());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  @SuppressWarnings("unchecked")
+  public void progress_of_missing_job_returns_not_found() throws Exception {
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/progress?id=4"))
+            .andExpect(status().isNotFound())
+            .andReturn();
+
+    // assert
+    Map<String, Object> json =
+        objectMapper.readValue(response.getResponse().getContentAsString(), Map.class);
+    assertEquals("Job with id 4 not found", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  @SuppressWarnings("unchecked")
+  public void admin_can_get_progress_of_running_jobs() throws Exception {
+
+    // arrange
+
+    JobProgress progress = JobProgress.builder().id(4L).status("running").build();
+    when(jobsRepository.findProgressOfRunningJobs()).thenReturn(List.of(progress));
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/jobs/progress/running")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    List<Map<String, Object>> json =
+        objectMapper.readValue(response.getResponse().getContentAsString(), List.class);
+    assertEquals(1, json.size());
+    assertEquals(4, json.get(0).get("id"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_get_job_executor_status() throws Exception {
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/jobs/executor")).andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    JobExecutorStatus executorStatus =
+        objectMapper.readValue(
+            response.getResponse().getContentAsString(), JobExecutorStatus.class);
+    assertEquals(2, executorStatus.getCorePoolSize());
+    assertEquals(4, executorStatus.getMaxPoolSize());
+    assertEquals(0, executorStatus.getQueueSize());
+    assertEquals(100, executorStatus.getQueueRemainingCapacity());
   }
 
   @WithMockUser(roles = {"ADMIN"})
@@ -127,8 +373,6 @@ public class JobsControllerTests extends ControllerTestCase {
   @Test
   public void admin_can_delete_all_jobs() throws Exception {
 
-    doNothing().when(jobsRepository).deleteAll();
-
     // act
     MvcResult response =
         mockMvc
@@ -138,12 +382,60 @@ public class JobsControllerTests extends ControllerTestCase {
 
     // assert
 
-    verify(jobsRepository, times(1)).deleteAll();
+    verify(jobRetentionService, times(1)).deleteAllJobs();
     String expectedJson = mapper.writeValueAsString(Map.of("message", "All jobs deleted"));
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
 
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_get_retention_status() throws Exception {
+
+    // arrange
+
+    JobRetentionStatus retentionStatus =
+        JobRetentionStatus.builder()
+            .description("retention policy")
+            .running(true)
+            .jobsToDelete(1200)
+            .jobsDeleted(500)
+            .logLinesDeleted(7000)
+            .build();
+    when(jobRetentionService.getStatus()).thenReturn(retentionStatus);
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/jobs/retention")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals(
+        mapper.writeValueAsString(retentionStatus), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_apply_retention_policy() throws Exception {
+
+    // arrange
+
+    JobRetentionStatus retentionStatus =
+        JobRetentionStatus.builder().description("retention policy").jobsDeleted(3).build();
+    when(jobRetentionService.applyRetentionPolicy()).thenReturn(retentionStatus);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/retention/run").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(jobRetentionService, times(1)).applyRetentionPolicy();
+    assertEquals(
+        mapper.writeValueAsString(retentionStatus), response.getResponse().getContentAsString());
+  }
+
   @WithMockUser(roles = {"ADMIN"})
   @Test
   public void test_getJobLogs_admin_can_get_job_log() throws Exception {
@@ -158,9 +450,184 @@ public class JobsControllerTests extends ControllerTestCase {
     mockMvc
         .perform(get("/api/jobs/logs/{id}", jobId))
         .andExpect(status().isOk())
+        .andExpect(header().string("X-Next-Offset", "0"))
         .andExpect(content().string(jobLog));
   }
 
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void test_getJobLogs_admin_can_get_new_lines_after_offset() throws Exception {
+    // Arrange
+    Long jobId = 5L;
+    when(jobsRepository.findById(jobId)).thenReturn(Optional.of(Job.builder().id(5L).build()));
+    when(jobLogLinesRepository.findAllByJobIdAndSeqGreaterThanEqualOrderBySeqAsc(5L, 2))
+        .thenReturn(
+            List.of(
+                JobLogLine.builder().jobId(5L).seq(2).message("three").build(),
+                JobLogLine.builder().jobId(5L).seq(3).message("four").build()));
+
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}?after=2", jobId))
+        .andExpect(status().isOk())
+        .andExpect(header().string("X-Next-Offset", "4"))
+        .andExpect(content().string("three\nfour"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void test_getJobLogs_returns_nothing_when_there_are_no_new_lines() throws Exception {
+    // Arrange
+    Long jobId = 5L;
+    Job job = Job.builder().id(5L).log("legacy log").build();
+    when(jobsRepository.findById(jobId)).thenReturn(Optional.of(job));
+
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}?after=4", jobId))
+        .andExpect(status().isOk())
+        .andExpect(header().string("X-Next-Offset", "4"))
+        .andExpect(content().string(""));
+  }
+
+  /**
+   * Keeps the log stream started by the next request from polling on a scheduler thread, which
+   * could write to the response while MockMvc is still reading it. The test runs the poll itself
+   * with {@link #pollLogStream()} once async processing has started.
+   */
+  private void holdLogStreamPolls() {
+    doReturn(mock(ScheduledFuture.class))
+        .when(taskScheduler)
+        .scheduleWithFixedDelay(any(Runnable.class), any(Duration.class));
+  }
+
+  private void pollLogStream() {
+    ArgumentCaptor<Runnable> poll = ArgumentCaptor.forClass(Runnable.class);
+    verify(taskScheduler).scheduleWithFixedDelay(poll.capture(), any(Duration.class));
+    poll.getValue().run();
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_stream_the_log_of_a_finished_job() throws Exception {
+    // Arrange
+    Job job = Job.builder().id(6L).status("complete").build();
+    when(jobsRepository.existsById(6L)).thenReturn(true);
+    when(jobsRepository.findById(6L)).thenReturn(Optional.of(job));
+    when(jobLogLinesRepository.findAllByJobIdAndSeqGreaterThanEqualOrderBySeqAsc(6L, 0))
+        .thenReturn(
+            List.of(
+                JobLogLine.builder().jobId(6L).seq(0).message("one").build(),
+                JobLogLine.builder().jobId(6L).seq(1).message("two").build()));
+
+    holdLogStreamPolls();
+
+    // Act
+    MvcResult result =
+        mockMvc
+            .perform(get("/api/jobs/logs/{id}/stream", 6L))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    pollLogStream();
+
+    // Assert
+    mockMvc
+        .perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(
+            content()
+                .string(
+                    "id:0\nevent:log\ndata:one\n\n"
+                        + "id:1\nevent:log\ndata:two\n\n"
+                        + "event:end\ndata:complete\n\n"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void stream_of_a_finished_job_sends_lines_past_one_that_was_never_written()
+      throws Exception {
+    // Arrange
+    Job job = Job.builder().id(6L).status("error").build();
+    when(jobsRepository.existsById(6L)).thenReturn(true);
+    when(jobsRepository.findById(6L)).thenReturn(Optional.of(job));
+    when(jobLogLinesRepository.findAllByJobIdAndSeqGreaterThanEqualOrderBySeqAsc(6L, 0))
+        .thenReturn(
+            List.of(
+                JobLogLine.builder().jobId(6L).seq(0).message("one").build(),
+                JobLogLine.builder().jobId(6L).seq(2).message("three").build()));
+    holdLogStreamPolls();
+
+    // Act
+    MvcResult result =
+        mockMvc
+            .perform(get("/api/jobs/logs/{id}/stream", 6L))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    pollLogStream();
+
+    // Assert
+    mockMvc
+        .perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(
+            content()
+                .string(
+                    "id:0\nevent:log\ndata:one\n\n"
+                        + "id:2\nevent:log\ndata:three\n\n"
+                        + "event:end\ndata:error\n\n"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void stream_resumes_after_last_event_id() throws Exception {
+    // Arrange
+    when(jobsRepository.existsById(6L)).thenReturn(true);
+    when(jobsRepository.findById(6L)).thenReturn(Optional.empty());
+
+    holdLogStreamPolls();
+
+    // Act
+    MvcResult result =
+        mockMvc
+            .perform(get("/api/jobs/logs/{id}/stream?after=1", 6L).header("Last-Event-ID", "4"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    pollLogStream();
+
+    // Assert
+    mockMvc
+        .perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(content().string("event:end\ndata:deleted\n\n"));
+    verify(jobLogLinesRepository).findAllByJobIdAndSeqGreaterThanEqualOrderBySeqAsc(6L, 5);
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  @SuppressWarnings("unchecked")
+  public void job_logs_reject_negative_offsets() throws Exception {
+    // Act & Assert
+    for (MockHttpServletRequestBuilder request :
+        List.of(
+            get("/api/jobs/logs/{id}?after=-5", 6L),
+            get("/api/jobs/logs/{id}/stream?after=-5", 6L),
+            get("/api/jobs/logs/{id}/stream", 6L).header("Last-Event-ID", "-2"))) {
+      MvcResult response = mockMvc.perform(request).andExpect(status().isBadRequest()).andReturn();
+      Map<String, Object> json =
+          objectMapper.readValue(response.getResponse().getContentAsString(), Map.class);
+      assertEquals("InvalidPageRequestException", json.get("type"));
+      assertEquals("after must be at least 0", json.get("message"));
+    }
+    verify(jobsRepository, never()).findById(any());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void stream_of_missing_job_returns_not_found() throws Exception {
+    // Act & Assert
+    mockMvc.perform(get("/api/jobs/logs/{id}/stream", 7L)).andExpect(status().isNotFound());
+  }
+
   @WithMockUser(roles = {"ADMIN"})
   @Test
   public void test_getJobLogs_admin_can_get_empty_log() throws Exception {
@@ -184,7 +651,6 @@ public class JobsControllerTests extends ControllerTestCase {
     // arrange
 
     when(jobsRepository.existsById(eq(1L))).thenReturn(true);
-    doNothing().when(jobsRepository).deleteById(eq(1L));
 
     // act
     MvcResult response =
@@ -195,7 +661,7 @@ public class JobsControllerTests extends ControllerTestCase {
 
     // assert
 
-    verify(jobsRepository, times(1)).deleteById(eq(1L));
+    verify(jobRetentionService, times(1)).deleteJobs(eq(List.of(1L)));
     String expectedJson = mapper.writeValueAsString(Map.of("message", "Job with id 1 deleted"));
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -224,40 +690,43 @@ public class JobsControllerTests extends ControllerTestCase {
     assertEquals(expectedJson, responseString);
   }
 
+  @SuppressWarnings("unchecked")
+  private List<String> loggedMessages() {
+    ArgumentCaptor<List<JobLogLine>> captor = ArgumentCaptor.forClass(List.class);
+    verify(jobLogLinesRepository, atLeastOnce()).appendAll(captor.capture());
+    return captor.getAllValues().stream()
+        .flatMap(List::stream)
+        .map(JobLogLine::getMessage)
+        .toList();
+  }
+
+  /** Makes the queue poller find, claim and load the job that was just launched. */
+  private void queueReturns(Job launched) {
+    when(jobsRepository.claim(eq(0L), any(), any())).thenReturn(1).thenReturn(0);
+    when(jobsRepository.findById(eq(0L)))
+        .thenAnswer(
+            invocation -> {
+              launched.setStatus("running");
+              launched.setAttempts(1);
+              return Optional.of(launched);
+            });
+    when(jobsRepository.findQueuedJobIds(any())).thenReturn(List.of(0L)).thenReturn(List.of());
+  }
+
   @WithMockUser(roles = {"ADMIN"})
   @Test
   public void admin_can_launch_test_job() throws Exception {
 
     // arrange
 
-    User user = currentUserService.getUser();
-
-    Job jobStarted =
-        Job.builder()
-            .id(0L)
-            .createdBy(user)
-            .createdAt(null)
-            .updatedAt(null)
-            .status("running")
-            .log("Hello World! from test job!")
-            .build();
-
-    Job jobCompleted =
-        Job.builder()
-            .id(0L)
-            .createdBy(user)
-            .createdAt(null)
-            .updatedAt(null)
-            .status("complete")
-            .log("Hello World! from test job!\nGoodbye from test job!")
-            .build();
-
-    when(jobsRepository.save(any(Job.class))).thenReturn(jobStarted).thenReturn(jobCompleted);
+    ArgumentCaptor<Job> jobCaptor = ArgumentCaptor.forClass(Job.class);
+    when(jobsRepository.save(jobCaptor.capture()))
+        .thenAnswer(invocation -> invocation.getArgument(0));
 
     // act
     MvcResult response =
         mockMvc
-            .perform(post("/api/jobs/launch/testjob?fail=false&sleepMs=2000").with(csrf()))
+            .perform(post("/api/jobs/launch/testjob?fail=false&sleepMs=4000").with(csrf()))
             .andExpect(status().isOk())
             .andReturn();
 
@@ -265,14 +734,31 @@ public class JobsControllerTests extends ControllerTestCase {
     String responseString = response.getResponse().getContentAsString();
     Job jobReturned = objectMapper.readValue(responseString, Job.class);
 
-    assertEquals("running", jobReturned.getStatus());
+    assertEquals("queued", jobReturned.getStatus());
+    assertEquals("edu.ucsb.cs156.example.jobs.TestJob", jobReturned.getType());
+    assertEquals("{\"fail\":false,\"sleepMs\":4000}", jobReturned.getParams());
+    verify(jobLogLinesRepository, times(0)).appendAll(any());
 
+    queueReturns(jobCaptor.getValue());
+
+    // the first line is written by the periodic flush while the job is still sleeping
     await()
-        .atMost(1, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(2)).save(eq(jobStarted)));
+        .atMost(3900, MILLISECONDS)
+        .untilAsserted(
+            () -> assertEquals(List.of("Hello World! from test job!"), loggedMessages()));
+
     await()
         .atMost(10, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(4)).save(eq(jobCompleted)));
+        .untilAsserted(
+            () ->
+                verify(jobsRepository)
+                    .finish(eq(0L), eq("complete"), any(), anyLong(), anyLong(), any()));
+    verify(jobsRepository, times(1)).save(any(Job.class));
+    assertEquals("complete", jobCaptor.getValue().getStatus());
+    assertNull(jobCaptor.getValue().getLog());
+
+    assertEquals(
+        List.of("Hello World! from test job!", "Goodbye from test job!"), loggedMessages());
   }
 
   @WithMockUser(roles = {"ADMIN"})
@@ -281,29 +767,9 @@ public class JobsControllerTests extends ControllerTestCase {
 
     // arrange
 
-    User user = currentUserService.getUser();
-
-    Job jobStarted =
-        Job.builder()
-            .id(0L)
-            .createdBy(user)
-            .createdAt(null)
-            .updatedAt(null)
-            .status("running")
-            .log("Hello World! from test job!")
-            .build();
-
-    Job jobFailed =
-        Job.builder()
-            .id(0L)
-            .createdBy(user)
-            .createdAt(null)
-            .updatedAt(null)
-            .status("error")
-            .log("Hello World! from test job!\nFail!")
-            .build();
-
-    when(jobsRepository.save(any(Job.class))).thenReturn(jobStarted).thenReturn(jobFailed);
+    ArgumentCaptor<Job> jobCaptor = ArgumentCaptor.forClass(Job.class);
+    when(jobsRepository.save(jobCaptor.capture()))
+        .thenAnswer(invocation -> invocation.getArgument(0));
 
     // act
     MvcResult response =
@@ -315,14 +781,89 @@ public class JobsControllerTests extends ControllerTestCase {
     String responseString = response.getResponse().getContentAsString();
     Job jobReturned = objectMapper.readValue(responseString, Job.class);
 
-    assertEquals("running", jobReturned.getStatus());
+    assertEquals("queued", jobReturned.getStatus());
+
+    queueReturns(jobCaptor.getValue());
 
     await()
-        .atMost(1, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(2)).save(eq(jobStarted)));
+        .atMost(10, SECONDS)
+        .untilAsserted(
+            () ->
+                verify(jobsRepository)
+                    .finish(eq(0L), eq("error"), any(), anyLong(), anyLong(), any()));
+    verify(jobsRepository, times(1)).save(any(Job.class));
+    assertEquals("error", jobCaptor.getValue().getStatus());
+
+    assertEquals(List.of("Hello World! from test job!", "Fail!"), loggedMessages());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void test_job_that_runs_past_its_timeout_stops() throws Exception {
+
+    // arrange
+
+    ArgumentCaptor<Job> jobCaptor = ArgumentCaptor.forClass(Job.class);
+    when(jobsRepository.save(jobCaptor.capture()))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/jobs/launch/testjob?fail=false&sleepMs=60000&timeoutMs=500")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    Job jobReturned =
+        objectMapper.readValue(response.getResponse().getContentAsString(), Job.class);
+    assertEquals(500L, jobReturned.getTimeoutMs());
+
+    queueReturns(jobCaptor.getValue());
 
     await()
         .atMost(10, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(3)).save(eq(jobFailed)));
+        .untilAsserted(
+            () ->
+                verify(jobsRepository)
+                    .finish(eq(0L), eq("timeout"), any(), anyLong(), anyLong(), any()));
+    verify(jobsRepository, times(1)).save(any(Job.class));
+    assertEquals("timeout", jobCaptor.getValue().getStatus());
+    assertEquals(
+        List.of("Hello World! from test job!", "Job timed out after 500 ms"), loggedMessages());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_cancel_a_queued_job() throws Exception {
+
+    // arrange
+
+    Job queued = Job.builder().id(7L).status("queued").build();
+    Job cancelled = Job.builder().id(7L).status("cancelled").build();
+    when(jobsRepository.findById(7L)).thenReturn(Optional.of(queued), Optional.of(cancelled));
+    when(jobsRepository.cancelQueued(eq(7L), any())).thenReturn(1);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/cancel?id=7").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    Job jobReturned =
+        objectMapper.readValue(response.getResponse().getContentAsString(), Job.class);
+    assertEquals("cancelled", jobReturned.getStatus());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void cancelling_a_missing_job_returns_not_found() throws Exception {
+
+    // act
+    mockMvc.perform(post("/api/jobs/cancel?id=7").with(csrf())).andExpect(status().isNotFound());
   }
 }
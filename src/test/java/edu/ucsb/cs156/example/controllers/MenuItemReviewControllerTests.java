@@ -3,29 +3,40 @@ package edu.ucsb.cs156.example.controllers;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.MenuItemRating;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingRepository;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.MenuItemRatingService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -35,6 +46,8 @@ import org.springframework.test.web.servlet.MvcResult;
 public class MenuItemReviewControllerTests extends ControllerTestCase {
 
   @MockBean MenuItemReviewRepository menuItemReviewRepository;
+  @MockBean MenuItemRatingRepository menuItemRatingRepository;
+  @MockBean MenuItemRatingService menuItemRatingService;
   @MockBean UserRepository userRepository;
 
   // Authorization tests for /api/menuitemreview/admin/all
@@ -175,7 +188,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
             .comments("good")
             .build();
 
-    when(menuItemReviewRepository.save(eq(menuitemreview1))).thenReturn(menuitemreview1);
+    when(menuItemRatingService.post(eq(menuitemreview1))).thenReturn(menuitemreview1);
 
     // act
     MvcResult response =
@@ -187,7 +200,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(menuItemReviewRepository, times(1)).save(eq(menuitemreview1));
+    verify(menuItemRatingService, times(1)).post(eq(menuitemreview1));
     String expectedJson = mapper.writeValueAsString(menuitemreview1);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -222,7 +235,8 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
 
     String requestBody = mapper.writeValueAsString(editedMenuItemReview);
 
-    when(menuItemReviewRepository.findById(eq(67L))).thenReturn(Optional.of(menuitemreview1));
+    when(menuItemRatingService.update(eq(67L), eq(editedMenuItemReview)))
+        .thenReturn(editedMenuItemReview);
 
     // act
     MvcResult response =
@@ -237,9 +251,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(menuItemReviewRepository, times(1)).findById(67L);
-    verify(menuItemReviewRepository, times(1))
-        .save(editedMenuItemReview); // should be saved with correct user
+    verify(menuItemRatingService, times(1)).update(67L, editedMenuItemReview);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(requestBody, responseString);
   }
@@ -262,7 +274,8 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
 
     String requestBody = mapper.writeValueAsString(editedMenuItemReview);
 
-    when(menuItemReviewRepository.findById(eq(67L))).thenReturn(Optional.empty());
+    when(menuItemRatingService.update(eq(67L), eq(editedMenuItemReview)))
+        .thenThrow(new EntityNotFoundException(MenuItemReview.class, 67L));
 
     // act
     MvcResult response =
@@ -277,7 +290,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(menuItemReviewRepository, times(1)).findById(67L);
+    verify(menuItemRatingService, times(1)).update(67L, editedMenuItemReview);
     Map<String, Object> json = responseToJson(response);
     assertEquals("MenuItemReview with id 67 not found", json.get("message"));
   }
@@ -286,21 +299,6 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
   @WithMockUser(roles = {"ADMIN", "USER"})
   @Test
   public void admin_can_delete_a_menuitemreview() throws Exception {
-    // arrange
-
-    LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
-
-    MenuItemReview menuitemreview1 =
-        MenuItemReview.builder()
-            .itemId(1)
-            .reviewerEmail("krystellebaluyot@ucsb.edu")
-            .stars(4)
-            .dateReviewed(ldt1)
-            .comments("good")
-            .build();
-
-    when(menuItemReviewRepository.findById(eq(15L))).thenReturn(Optional.of(menuitemreview1));
-
     // act
     MvcResult response =
         mockMvc
@@ -309,8 +307,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(menuItemReviewRepository, times(1)).findById(15L);
-    verify(menuItemReviewRepository, times(1)).delete(any());
+    verify(menuItemRatingService, times(1)).delete(15L);
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("MenuItemReview with id 15 deleted", json.get("message"));
@@ -322,7 +319,9 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
       throws Exception {
     // arrange
 
-    when(menuItemReviewRepository.findById(eq(15L))).thenReturn(Optional.empty());
+    doThrow(new EntityNotFoundException(MenuItemReview.class, 15L))
+        .when(menuItemRatingService)
+        .delete(15L);
 
     // act
     MvcResult response =
@@ -332,8 +331,215 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(menuItemReviewRepository, times(1)).findById(15L);
+    verify(menuItemRatingService, times(1)).delete(15L);
     Map<String, Object> json = responseToJson(response);
     assertEquals("MenuItemReview with id 15 not found", json.get("message"));
   }
+
+  @Test
+  public void logged_out_users_cannot_get_a_page() throws Exception {
+    mockMvc.perform(get("/api/menuitemreview/page")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_page_of_menu_item_reviews() throws Exception {
+
+    // arrange
+    MenuItemReview entity = MenuItemReview.builder().id(1L).stars(5).build();
+    when(menuItemReviewRepository.findBy(any(), any())).thenReturn(List.of(entity));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreview/page?size=10"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(menuItemReviewRepository, times(1)).findBy(any(), any());
+    String expectedJson = mapper.writeValueAsString(new KeysetPage<>(List.of(entity), null));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_filtered_page_of_menu_item_reviews() throws Exception {
+
+    // arrange
+    MenuItemReview entity = MenuItemReview.builder().id(1L).itemId(7).stars(5).build();
+    when(menuItemReviewRepository.findBy(any(), any())).thenReturn(List.of(entity));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                get("/api/menuitemreview/page")
+                    .param("itemId", "7")
+                    .param("reviewerEmail", "cgaucho@ucsb.edu")
+                    .param("reviewedAfter", "2022-01-01T00:00:00")
+                    .param("reviewedBefore", "2022-02-01T00:00:00"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(menuItemReviewRepository, times(1)).findBy(any(), any());
+    String expectedJson = mapper.writeValueAsString(new KeysetPage<>(List.of(entity), null));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @Test
+  public void logged_out_users_cannot_stream_all() throws Exception {
+    mockMvc.perform(get("/api/menuitemreview/stream")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_stream_all_menu_item_reviews() throws Exception {
+
+    // arrange
+    MenuItemReview first = MenuItemReview.builder().id(1L).stars(5).build();
+    MenuItemReview second = MenuItemReview.builder().id(2L).stars(3).build();
+    when(menuItemReviewRepository.streamAllBy()).thenReturn(Stream.of(first, second));
+    stubJsonStreams();
+
+    // act
+    MvcResult result =
+        mockMvc
+            .perform(get("/api/menuitemreview/stream"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    MvcResult response =
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk()).andReturn();
+
+    // assert
+    verify(menuItemReviewRepository, times(1)).streamAllBy();
+    String expectedJson = mapper.writeValueAsString(List.of(first, second));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  /////////// ratings ///////////
+  @Test
+  public void logged_out_users_cannot_get_a_rating() throws Exception {
+    mockMvc.perform(get("/api/menuitemreview/rating?itemId=1")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_the_rating_of_a_menu_item() throws Exception {
+    // arrange
+    MenuItemRating rating =
+        MenuItemRating.builder()
+            .itemId(1)
+            .reviewCount(2)
+            .totalStars(9)
+            .stars4(1)
+            .stars5(1)
+            .lastReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+            .build();
+    when(menuItemRatingRepository.findById(eq(1L))).thenReturn(Optional.of(rating));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreview/rating?itemId=1"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals(
+        Map.of(
+            "itemId",
+            1,
+            "reviewCount",
+            2,
+            "totalStars",
+            9,
+            "averageStars",
+            4.5,
+            "histogram",
+            List.of(0, 0, 0, 0, 1, 1),
+            "lastReviewed",
+            "2022-01-03T00:00:00"),
+        json);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void the_rating_of_a_menu_item_with_no_reviews_is_empty() throws Exception {
+    // arrange
+    when(menuItemRatingRepository.findById(eq(7L))).thenReturn(Optional.empty());
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreview/rating?itemId=7"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        mapper.writeValueAsString(MenuItemRating.builder().itemId(7).build()),
+        response.getResponse().getContentAsString());
+  }
+
+  @Test
+  public void logged_out_users_cannot_get_top_rated() throws Exception {
+    mockMvc.perform(get("/api/menuitemreview/toprated")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_the_top_rated_menu_items() throws Exception {
+    // arrange
+    List<MenuItemRating> ratings =
+        List.of(
+            MenuItemRating.builder().itemId(3).reviewCount(1).totalStars(5).stars5(1).build(),
+            MenuItemRating.builder().itemId(1).reviewCount(2).totalStars(9).stars4(1).build());
+    when(menuItemRatingRepository.findTopRated(eq(2L), eq(Limit.of(5)))).thenReturn(ratings);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreview/toprated?count=5&minReviews=2"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(ratings), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void top_rated_counts_only_menu_items_with_reviews() throws Exception {
+    // arrange
+    when(menuItemRatingRepository.findTopRated(eq(1L), eq(Limit.of(10)))).thenReturn(List.of());
+
+    // act
+    mockMvc.perform(get("/api/menuitemreview/toprated?minReviews=0")).andExpect(status().isOk());
+
+    // assert
+    verify(menuItemRatingRepository, times(1)).findTopRated(1L, Limit.of(10));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void top_rated_count_must_be_between_1_and_100() throws Exception {
+    for (String count : List.of("0", "101")) {
+      // act
+      MvcResult response =
+          mockMvc
+              .perform(get("/api/menuitemreview/toprated?count=" + count))
+              .andExpect(status().isBadRequest())
+              .andReturn();
+
+      // assert
+      Map<String, Object> json = responseToJson(response);
+      assertEquals("count must be between 1 and 100", json.get("message"));
+    }
+  }
 }
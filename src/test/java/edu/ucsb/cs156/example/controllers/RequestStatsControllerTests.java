@@ -0,0 +1,105 @@
+package edu.ucsb.cs156.example.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.models.HandlerLatency;
+import edu.ucsb.cs156.example.models.RequestStats;
+import edu.ucsb.cs156.example.models.SlowRequest;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.RequestStatsService;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+@WebMvcTest(controllers = RequestStatsController.class)
+public class RequestStatsControllerTests extends ControllerTestCase {
+
+  @MockBean UserRepository userRepository;
+
+  @MockBean RequestStatsService requestStatsService;
+
+  @Test
+  public void logged_out_users_cannot_get_request_stats() throws Exception {
+    mockMvc.perform(get("/api/admin/requeststats")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_get_request_stats() throws Exception {
+    mockMvc.perform(get("/api/admin/requeststats")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_reset_request_stats() throws Exception {
+    mockMvc.perform(delete("/api/admin/requeststats").with(csrf())).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_get_request_stats() throws Exception {
+    // arrange
+    RequestStats stats =
+        RequestStats.builder()
+            .handlers(
+                List.of(
+                    HandlerLatency.builder()
+                        .controller("RestaurantsController")
+                        .handler("allRestaurants")
+                        .count(3)
+                        .p50Ms(1.5)
+                        .p95Ms(20)
+                        .p99Ms(20)
+                        .maxMs(20)
+                        .build()))
+            .slowest(
+                List.of(
+                    SlowRequest.builder()
+                        .at(LocalDateTime.parse("2022-01-03T00:00:00"))
+                        .method("GET")
+                        .uri("/api/restaurants/all")
+                        .controller("RestaurantsController")
+                        .handler("allRestaurants")
+                        .durationMs(20)
+                        .build()))
+            .build();
+    when(requestStatsService.getStats()).thenReturn(stats);
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/admin/requeststats")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    String expectedJson = mapper.writeValueAsString(stats);
+    assertEquals(expectedJson, response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_reset_request_stats() throws Exception {
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(delete("/api/admin/requeststats").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(requestStatsService, times(1)).reset();
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("Request statistics reset", json.get("message"));
+  }
+}
@@ -7,22 +7,27 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.models.KeysetPage;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -331,4 +336,59 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDate with id 67 not found", json.get("message"));
   }
+
+  @Test
+  public void logged_out_users_cannot_get_a_page() throws Exception {
+    mockMvc.perform(get("/api/ucsbdates/page")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_page_of_ucsb_dates() throws Exception {
+
+    // arrange
+    UCSBDate entity = UCSBDate.builder().id(1L).name("firstDayOfClasses").build();
+    when(ucsbDateRepository.findBy(any(), any())).thenReturn(List.of(entity));
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/ucsbdates/page?size=10")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    verify(ucsbDateRepository, times(1)).findBy(any(), any());
+    String expectedJson = mapper.writeValueAsString(new KeysetPage<>(List.of(entity), null));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @Test
+  public void logged_out_users_cannot_stream_all() throws Exception {
+    mockMvc.perform(get("/api/ucsbdates/stream")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_stream_all_ucsb_dates() throws Exception {
+
+    // arrange
+    UCSBDate first = UCSBDate.builder().id(1L).name("firstDayOfClasses").build();
+    UCSBDate second = UCSBDate.builder().id(2L).name("lastDayOfClasses").build();
+    when(ucsbDateRepository.streamAllBy()).thenReturn(Stream.of(first, second));
+    stubJsonStreams();
+
+    // act
+    MvcResult result =
+        mockMvc
+            .perform(get("/api/ucsbdates/stream"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    MvcResult response =
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk()).andReturn();
+
+    // assert
+    verify(ucsbDateRepository, times(1)).streamAllBy();
+    String expectedJson = mapper.writeValueAsString(List.of(first, second));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
 }
@@ -7,22 +7,31 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.NearbyDiningCommons;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.DiningCommonsLocator;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
@@ -38,6 +47,8 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
   @MockBean UserRepository userRepository;
 
+  @MockBean DiningCommonsLocator diningCommonsLocator;
+
   // Authorization tests for /api/ucsbdiningcommons/admin/all
 
   @Test
@@ -209,6 +220,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
     // assert
     verify(ucsbDiningCommonsRepository, times(1)).save(ortega);
+    verify(diningCommonsLocator, times(1)).invalidate();
     String expectedJson = mapper.writeValueAsString(ortega);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -242,6 +254,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
     // assert
     verify(ucsbDiningCommonsRepository, times(1)).findById("portola");
     verify(ucsbDiningCommonsRepository, times(1)).delete(any());
+    verify(diningCommonsLocator, times(1)).invalidate();
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommons with id portola deleted", json.get("message"));
@@ -316,6 +329,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
     verify(ucsbDiningCommonsRepository, times(1)).findById("carrillo");
     verify(ucsbDiningCommonsRepository, times(1))
         .save(carrilloEdited); // should be saved with updated info
+    verify(diningCommonsLocator, times(1)).invalidate();
     String responseString = response.getResponse().getContentAsString();
     assertEquals(requestBody, responseString);
   }
@@ -357,4 +371,152 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommons with id munger-hall not found", json.get("message"));
   }
+
+  @Test
+  public void logged_out_users_cannot_get_a_page() throws Exception {
+    mockMvc.perform(get("/api/ucsbdiningcommons/page")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_page_of_commons() throws Exception {
+
+    // arrange
+    UCSBDiningCommons entity = UCSBDiningCommons.builder().code("ortega").name("Ortega").build();
+    when(ucsbDiningCommonsRepository.findBy(any(), any())).thenReturn(List.of(entity));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons/page?size=10"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsRepository, times(1)).findBy(any(), any());
+    String expectedJson = mapper.writeValueAsString(new KeysetPage<>(List.of(entity), null));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @Test
+  public void logged_out_users_cannot_stream_all() throws Exception {
+    mockMvc.perform(get("/api/ucsbdiningcommons/stream")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_stream_all_commons() throws Exception {
+
+    // arrange
+    UCSBDiningCommons first = UCSBDiningCommons.builder().code("ortega").name("Ortega").build();
+    UCSBDiningCommons second = UCSBDiningCommons.builder().code("portola").name("Portola").build();
+    when(ucsbDiningCommonsRepository.streamAllBy()).thenReturn(Stream.of(first, second));
+    stubJsonStreams();
+
+    // act
+    MvcResult result =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons/stream"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    MvcResult response =
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk()).andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsRepository, times(1)).streamAllBy();
+    String expectedJson = mapper.writeValueAsString(List.of(first, second));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  // Tests for GET /api/ucsbdiningcommons/nearest
+
+  @Test
+  public void logged_out_users_cannot_get_nearest() throws Exception {
+    mockMvc
+        .perform(get("/api/ucsbdiningcommons/nearest?latitude=34.41&longitude=-119.85"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_the_nearest_commons() throws Exception {
+    // arrange
+    UCSBDiningCommons ortega =
+        UCSBDiningCommons.builder()
+            .name("Ortega")
+            .code("ortega")
+            .hasSackMeal(true)
+            .hasTakeOutMeal(true)
+            .latitude(34.410987)
+            .longitude(-119.84709)
+            .build();
+    List<NearbyDiningCommons> nearest = List.of(new NearbyDiningCommons(ortega, 123.4));
+    when(diningCommonsLocator.nearest(eq(34.41), eq(-119.85), eq(3), any())).thenReturn(nearest);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons/nearest?latitude=34.41&longitude=-119.85&count=3"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(nearest), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void nearest_commons_are_filtered_by_meals() throws Exception {
+    // arrange
+    UCSBDiningCommons both =
+        UCSBDiningCommons.builder().hasSackMeal(true).hasTakeOutMeal(true).build();
+    UCSBDiningCommons sackOnly = UCSBDiningCommons.builder().hasSackMeal(true).build();
+    UCSBDiningCommons takeOutOnly = UCSBDiningCommons.builder().hasTakeOutMeal(true).build();
+    UCSBDiningCommons neither = UCSBDiningCommons.builder().build();
+
+    // act
+    mockMvc
+        .perform(get("/api/ucsbdiningcommons/nearest?latitude=34.41&longitude=-119.85"))
+        .andExpect(status().isOk());
+    mockMvc
+        .perform(
+            get(
+                "/api/ucsbdiningcommons/nearest?latitude=34.41&longitude=-119.85&hasSackMeal=true&hasTakeOutMeal=false"))
+        .andExpect(status().isOk());
+
+    // assert
+    ArgumentCaptor<Predicate<UCSBDiningCommons>> filters = ArgumentCaptor.forClass(Predicate.class);
+    verify(diningCommonsLocator, times(2))
+        .nearest(eq(34.41), eq(-119.85), eq(1), filters.capture());
+    Predicate<UCSBDiningCommons> noFilter = filters.getAllValues().get(0);
+    Predicate<UCSBDiningCommons> sackNoTakeOut = filters.getAllValues().get(1);
+    assertEquals(
+        List.of(true, true, true, true),
+        Stream.of(both, sackOnly, takeOutOnly, neither).map(noFilter::test).toList());
+    assertEquals(
+        List.of(false, true, false, false),
+        Stream.of(both, sackOnly, takeOutOnly, neither).map(sackNoTakeOut::test).toList());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void nearest_count_must_be_between_1_and_100() throws Exception {
+    for (String count : List.of("0", "101")) {
+      // act
+      MvcResult response =
+          mockMvc
+              .perform(
+                  get(
+                      "/api/ucsbdiningcommons/nearest?latitude=34.41&longitude=-119.85&count="
+                          + count))
+              .andExpect(status().isBadRequest())
+              .andReturn();
+
+      // assert
+      Map<String, Object> json = responseToJson(response);
+      assertEquals("count must be between 1 and 100", json.get("message"));
+    }
+  }
 }
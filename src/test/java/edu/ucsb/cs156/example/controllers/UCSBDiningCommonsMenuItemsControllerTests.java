@@ -1,5 +1,6 @@
 package edu.ucsb.cs156.example.controllers;
 
+import static edu.ucsb.cs156.example.controllers.UCSBDiningCommonsMenuItemsController.etag;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -7,25 +8,33 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItems;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.models.MenuStation;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemsRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -332,4 +341,188 @@ public class UCSBDiningCommonsMenuItemsControllerTests extends ControllerTestCas
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommonsMenuItems with id 67 not found", json.get("message"));
   }
+
+  @Test
+  public void logged_out_users_cannot_get_a_page() throws Exception {
+    mockMvc.perform(get("/api/ucsbdiningcommonsmenuitems/page")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_page_of_menu_items() throws Exception {
+
+    // arrange
+    UCSBDiningCommonsMenuItems entity =
+        UCSBDiningCommonsMenuItems.builder().id(1L).name("Pizza").build();
+    when(ucsbDiningCommonsMenuItemsRepository.findBy(any(), any())).thenReturn(List.of(entity));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommonsmenuitems/page?size=10"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsMenuItemsRepository, times(1)).findBy(any(), any());
+    String expectedJson = mapper.writeValueAsString(new KeysetPage<>(List.of(entity), null));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @Test
+  public void logged_out_users_cannot_stream_all() throws Exception {
+    mockMvc.perform(get("/api/ucsbdiningcommonsmenuitems/stream")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_stream_all_menu_items() throws Exception {
+
+    // arrange
+    UCSBDiningCommonsMenuItems first =
+        UCSBDiningCommonsMenuItems.builder().id(1L).name("Pizza").build();
+    UCSBDiningCommonsMenuItems second =
+        UCSBDiningCommonsMenuItems.builder().id(2L).name("Tacos").build();
+    when(ucsbDiningCommonsMenuItemsRepository.streamAllBy()).thenReturn(Stream.of(first, second));
+    stubJsonStreams();
+
+    // act
+    MvcResult result =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommonsmenuitems/stream"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    MvcResult response =
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk()).andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsMenuItemsRepository, times(1)).streamAllBy();
+    String expectedJson = mapper.writeValueAsString(List.of(first, second));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  // Tests for GET /api/ucsbdiningcommonsmenuitems/menu
+
+  private static UCSBDiningCommonsMenuItems item(long id, String name, String station) {
+    return UCSBDiningCommonsMenuItems.builder()
+        .id(id)
+        .diningCommonsCode("ortega")
+        .name(name)
+        .station(station)
+        .build();
+  }
+
+  private final List<UCSBDiningCommonsMenuItems> ortegaMenu =
+      List.of(
+          item(3, "Baked Pesto Pasta", "Entree Specials"),
+          item(1, "Tofu Banh Mi", "Entree Specials"),
+          item(2, "Chicken Caesar Salad", "Salads"),
+          item(4, "Fruit", null));
+
+  @Test
+  public void logged_out_users_cannot_get_a_menu() throws Exception {
+    mockMvc
+        .perform(get("/api/ucsbdiningcommonsmenuitems/menu?diningCommonsCode=ortega"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_menu_grouped_by_station() throws Exception {
+    // arrange
+    when(ucsbDiningCommonsMenuItemsRepository.findAllByDiningCommonsCode(
+            "ortega", Sort.by("station", "name", "id")))
+        .thenReturn(ortegaMenu);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommonsmenuitems/menu?diningCommonsCode=ortega"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"" + etag(ortegaMenu) + "\""))
+            .andExpect(header().string("Cache-Control", "no-cache"))
+            .andReturn();
+
+    // assert
+    List<MenuStation> expected =
+        List.of(
+            new MenuStation("Entree Specials", List.of(ortegaMenu.get(0), ortegaMenu.get(1))),
+            new MenuStation("Salads", List.of(ortegaMenu.get(2))),
+            new MenuStation(null, List.of(ortegaMenu.get(3))));
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void menu_of_commons_with_no_items_is_empty() throws Exception {
+    // arrange
+    when(ucsbDiningCommonsMenuItemsRepository.findAllByDiningCommonsCode(eq("munger"), any()))
+        .thenReturn(List.of());
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommonsmenuitems/menu?diningCommonsCode=munger"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals("[]", response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void unchanged_menu_is_not_sent_again() throws Exception {
+    // arrange
+    when(ucsbDiningCommonsMenuItemsRepository.findAllByDiningCommonsCode(eq("ortega"), any()))
+        .thenReturn(ortegaMenu);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                get("/api/ucsbdiningcommonsmenuitems/menu?diningCommonsCode=ortega")
+                    .header("If-None-Match", "\"" + etag(ortegaMenu) + "\""))
+            .andExpect(status().isNotModified())
+            .andReturn();
+
+    // assert
+    assertEquals("", response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void changed_menu_is_sent_again() throws Exception {
+    // arrange
+    String oldEtag = etag(ortegaMenu);
+    List<UCSBDiningCommonsMenuItems> changed =
+        List.of(ortegaMenu.get(0), ortegaMenu.get(1), item(2, "Cobb Salad", "Salads"));
+    when(ucsbDiningCommonsMenuItemsRepository.findAllByDiningCommonsCode(eq("ortega"), any()))
+        .thenReturn(changed);
+
+    // act & assert
+    mockMvc
+        .perform(
+            get("/api/ucsbdiningcommonsmenuitems/menu?diningCommonsCode=ortega")
+                .header("If-None-Match", "\"" + oldEtag + "\""))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "\"" + etag(changed) + "\""));
+  }
+
+  @Test
+  public void etag_changes_with_any_id_name_or_station() {
+    UCSBDiningCommonsMenuItems salad = item(2, "Chicken Caesar Salad", "Salads");
+    List<String> etags =
+        Stream.of(
+                salad,
+                item(5, "Chicken Caesar Salad", "Salads"),
+                item(2, "Cobb Salad", "Salads"),
+                item(2, "Chicken Caesar Salad", "Greens"))
+            .map(changed -> etag(List.of(changed)))
+            .toList();
+    assertEquals(4, etags.stream().distinct().count());
+    assertEquals(etag(List.of(salad)), etag(List.of(item(2, "Chicken Caesar Salad", "Salads"))));
+  }
 }
@@ -1,18 +1,25 @@
 package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.repositories.UserFilter;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -50,17 +57,85 @@ public class UsersControllerTests extends ControllerTestCase {
     ArrayList<User> expectedUsers = new ArrayList<>();
     expectedUsers.addAll(Arrays.asList(u1, u2, u));
 
-    when(userRepository.findAll()).thenReturn(expectedUsers);
+    when(userRepository.streamAllBy(new UserFilter(null, null, null)))
+        .thenReturn(expectedUsers.stream());
+    stubJsonStreams();
     String expectedJson = mapper.writeValueAsString(expectedUsers);
 
     // act
 
+    MvcResult result =
+        mockMvc.perform(get("/api/admin/users")).andExpect(request().asyncStarted()).andReturn();
     MvcResult response =
-        mockMvc.perform(get("/api/admin/users")).andExpect(status().isOk()).andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk()).andReturn();
 
     // assert
 
-    verify(userRepository, times(1)).findAll();
+    verify(userRepository, times(1)).streamAllBy(new UserFilter(null, null, null));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_filter_the_users() throws Exception {
+
+    // arrange
+
+    User admin = User.builder().id(1L).email("cgaucho@ucsb.edu").admin(true).build();
+    UserFilter filter = new UserFilter(true, "ucsb.edu", "cg");
+    when(userRepository.streamAllBy(filter)).thenReturn(Stream.of(admin));
+    stubJsonStreams();
+
+    // act
+
+    MvcResult result =
+        mockMvc
+            .perform(get("/api/admin/users?admin=true&hostedDomain=ucsb.edu&emailPrefix=cg"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    MvcResult response =
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    verify(userRepository, times(1)).streamAllBy(filter);
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(List.of(admin)), responseString);
+  }
+
+  @Test
+  public void logged_out_users_cannot_get_a_page() throws Exception {
+    mockMvc.perform(get("/api/admin/users/page")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_get_a_page() throws Exception {
+    mockMvc.perform(get("/api/admin/users/page")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_get_a_page_of_users() throws Exception {
+
+    // arrange
+
+    User user = User.builder().id(1L).email("cgaucho@ucsb.edu").build();
+    when(userRepository.findBy(any(), any())).thenReturn(List.of(user));
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/admin/users/page?admin=false&size=10"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    verify(userRepository, times(1)).findBy(any(), any());
+    String expectedJson = mapper.writeValueAsString(new KeysetPage<>(List.of(user), null));
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
@@ -0,0 +1,92 @@
+package edu.ucsb.cs156.example.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class MenuItemRatingTests {
+
+  private static final LocalDateTime JAN = LocalDateTime.parse("2024-01-01T12:00:00");
+  private static final LocalDateTime FEB = LocalDateTime.parse("2024-02-01T12:00:00");
+
+  private static MenuItemReview review(int stars, LocalDateTime dateReviewed) {
+    return MenuItemReview.builder().itemId(1).stars(stars).dateReviewed(dateReviewed).build();
+  }
+
+  @Test
+  public void rating_with_no_reviews_has_no_average() {
+    // arrange
+    MenuItemRating rating = MenuItemRating.builder().itemId(1).build();
+
+    // act & assert
+    assertNull(rating.getAverageStars());
+    assertEquals(List.of(0L, 0L, 0L, 0L, 0L, 0L), rating.getHistogram());
+    assertNull(rating.getLastReviewed());
+  }
+
+  @Test
+  public void reviews_are_counted_in_the_histogram_and_average() {
+    // arrange
+    MenuItemRating rating = MenuItemRating.builder().itemId(1).build();
+
+    // act
+    for (int stars = 0; stars <= 5; stars++) {
+      rating.add(review(stars, JAN));
+    }
+    rating.add(review(5, JAN));
+
+    // assert
+    assertEquals(7, rating.getReviewCount());
+    assertEquals(20, rating.getTotalStars());
+    assertEquals(20.0 / 7, rating.getAverageStars());
+    assertEquals(List.of(1L, 1L, 1L, 1L, 1L, 2L), rating.getHistogram());
+  }
+
+  @Test
+  public void stars_outside_0_to_5_count_only_in_the_average() {
+    // arrange
+    MenuItemRating rating = MenuItemRating.builder().itemId(1).build();
+
+    // act
+    rating.add(review(4, JAN));
+    rating.add(review(8, JAN));
+
+    // assert
+    assertEquals(6.0, rating.getAverageStars());
+    assertEquals(List.of(0L, 0L, 0L, 0L, 1L, 0L), rating.getHistogram());
+  }
+
+  @Test
+  public void last_reviewed_is_the_latest_date() {
+    // arrange
+    MenuItemRating rating = MenuItemRating.builder().itemId(1).build();
+
+    // act
+    rating.add(review(3, JAN));
+    rating.add(review(3, FEB));
+    rating.add(review(3, JAN));
+    rating.add(review(3, null));
+
+    // assert
+    assertEquals(FEB, rating.getLastReviewed());
+  }
+
+  @Test
+  public void removing_a_review_undoes_adding_it() {
+    // arrange
+    MenuItemRating rating = MenuItemRating.builder().itemId(1).build();
+    rating.add(review(2, JAN));
+    rating.add(review(5, FEB));
+
+    // act
+    rating.remove(review(5, FEB));
+
+    // assert
+    assertEquals(1, rating.getReviewCount());
+    assertEquals(2.0, rating.getAverageStars());
+    assertEquals(List.of(0L, 0L, 1L, 0L, 0L, 0L), rating.getHistogram());
+  }
+}
@@ -0,0 +1,48 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+public class ActuatorIT {
+  @Autowired public MockMvc mockMvc;
+
+  @Test
+  public void logged_out_users_cannot_get_mappings() throws Exception {
+    mockMvc.perform(get("/actuator/mappings")).andExpect(status().is(403));
+  }
+
+  @Test
+  public void logged_out_users_cannot_get_health() throws Exception {
+    mockMvc.perform(get("/actuator/health")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_get_mappings() throws Exception {
+    mockMvc.perform(get("/actuator/mappings")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admins_can_get_mappings_and_metrics() throws Exception {
+    mockMvc.perform(get("/actuator/mappings")).andExpect(status().isOk());
+    mockMvc.perform(get("/actuator/metrics")).andExpect(status().isOk());
+  }
+}
@@ -0,0 +1,117 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class UCSBDatesCacheIT {
+  @Autowired UCSBDateRepository ucsbDateRepository;
+
+  @Autowired EntityManagerFactory entityManagerFactory;
+
+  @Autowired public MockMvc mockMvc;
+
+  @Autowired public ObjectMapper mapper;
+
+  @MockBean UserRepository userRepository;
+
+  private Statistics statistics;
+
+  private UCSBDate date;
+
+  @BeforeEach
+  public void setup() {
+    date =
+        ucsbDateRepository.save(
+            UCSBDate.builder()
+                .quarterYYYYQ("20241")
+                .name("groundhogDay")
+                .localDateTime(LocalDateTime.parse("2024-02-02T00:00:00"))
+                .build());
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void dates_are_read_from_the_database_only_once() throws Exception {
+    // act
+    for (int i = 0; i < 2; i++) {
+      mockMvc.perform(get("/api/ucsbdates/all")).andExpect(status().isOk());
+      mockMvc.perform(get("/api/ucsbdates?id=" + date.getId())).andExpect(status().isOk());
+    }
+
+    // assert: findAll() ran its query once, and every date after that came from the caches
+    assertEquals(1, statistics.getQueryCacheMissCount());
+    assertEquals(1, statistics.getQueryCacheHitCount());
+    assertEquals(0, statistics.getDomainDataRegionStatistics("ucsbdates").getMissCount());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_update_is_seen_by_the_next_read() throws Exception {
+    // arrange
+    mockMvc.perform(get("/api/ucsbdates/all")).andExpect(status().isOk());
+    ucsbDateRepository.findAllByQuarterYYYYQ("20241");
+
+    UCSBDate edited =
+        UCSBDate.builder()
+            .id(date.getId())
+            .quarterYYYYQ("20242")
+            .name("masterOfTheUniverse")
+            .localDateTime(LocalDateTime.parse("2024-05-05T00:00:00"))
+            .build();
+
+    // act
+    mockMvc
+        .perform(
+            put("/api/ucsbdates?id=" + date.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(edited))
+                .with(csrf()))
+        .andExpect(status().isOk());
+    MvcResult all =
+        mockMvc.perform(get("/api/ucsbdates/all")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals(
+        mapper.writeValueAsString(List.of(edited)), all.getResponse().getContentAsString());
+    assertEquals(List.of(), ucsbDateRepository.findAllByQuarterYYYYQ("20241"));
+    assertEquals(List.of(edited), ucsbDateRepository.findAllByQuarterYYYYQ("20242"));
+  }
+}
@@ -0,0 +1,138 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * One of the CRUD controllers the load test drives, with the fields of the {@code n}th row it
+ * creates there.
+ *
+ * @param path the controller's path, e.g. {@code /api/restaurants}
+ * @param idParam the request parameter that identifies a row
+ * @param fields the fields of a row, sent as request parameters to {@code /post} and as the body of
+ *     {@code PUT}
+ */
+record CrudEndpoint(String path, String idParam, IntFunction<Map<String, Object>> fields) {
+  private static final String DATE = "2022-01-03T00:00:00";
+
+  static final List<CrudEndpoint> ALL =
+      List.of(
+          new CrudEndpoint(
+              "/api/articles",
+              "id",
+              n ->
+                  fields(
+                      "title",
+                      "Article " + n,
+                      "url",
+                      "https://example.org/articles/" + n,
+                      "explanation",
+                      "An article about something that happened at UCSB",
+                      "email",
+                      "cgaucho@ucsb.edu",
+                      "dateAdded",
+                      DATE)),
+          new CrudEndpoint(
+              "/api/helprequests",
+              "id",
+              n ->
+                  fields(
+                      "requesterEmail",
+                      "cgaucho@ucsb.edu",
+                      "teamId",
+                      "s22-5pm-" + n % 4,
+                      "tableOrBreakoutRoom",
+                      "table " + n % 10,
+                      "requestTime",
+                      DATE,
+                      "explanation",
+                      "Need help with the backend tests",
+                      "solved",
+                      n % 2 == 0)),
+          new CrudEndpoint(
+              "/api/menuitemreview",
+              "id",
+              n ->
+                  fields(
+                      "itemId",
+                      n % 100,
+                      "reviewerEmail",
+                      "cgaucho@ucsb.edu",
+                      "stars",
+                      n % 5 + 1,
+                      "dateReviewed",
+                      DATE,
+                      "comments",
+                      "Tasty, but a little too salty")),
+          new CrudEndpoint(
+              "/api/restaurants",
+              "id",
+              n -> fields("name", "Restaurant " + n, "description", "Burritos and tacos")),
+          new CrudEndpoint(
+              "/api/ucsbdates",
+              "id",
+              n -> fields("quarterYYYYQ", "20222", "name", "Day " + n, "localDateTime", DATE)),
+          new CrudEndpoint(
+              "/api/ucsbdiningcommons",
+              "code",
+              n ->
+                  fields(
+                      "code",
+                      "commons-" + n,
+                      "name",
+                      "Dining Commons " + n,
+                      "hasSackMeal",
+                      false,
+                      "hasTakeOutMeal",
+                      true,
+                      "hasDiningCam",
+                      true,
+                      "latitude",
+                      34.409953,
+                      "longitude",
+                      -119.85277)),
+          new CrudEndpoint(
+              "/api/ucsbdiningcommonsmenuitems",
+              "id",
+              n ->
+                  fields(
+                      "diningCommonsCode", "ortega",
+                      "name", "Menu item " + n,
+                      "station", "Entrees")),
+          new CrudEndpoint(
+              "/api/ucsborganization",
+              "id",
+              n ->
+                  fields(
+                      "orgCode", "ORG" + n,
+                      "orgTranslationShort", "Organization " + n,
+                      "orgTranslation", "Student Organization " + n,
+                      "inactive", false)),
+          new CrudEndpoint(
+              "/api/ucsbrecommendationrequest",
+              "id",
+              n ->
+                  fields(
+                      "requesterEmail",
+                      "cgaucho@ucsb.edu",
+                      "professorEmail",
+                      "phtcon@ucsb.edu",
+                      "explanation",
+                      "Applying to grad school",
+                      "dateRequested",
+                      DATE,
+                      "dateNeeded",
+                      DATE,
+                      "done",
+                      false)));
+
+  private static Map<String, Object> fields(Object... namesAndValues) {
+    Map<String, Object> fields = new LinkedHashMap<>();
+    for (int i = 0; i < namesAndValues.length; i += 2) {
+      fields.put((String) namesAndValues[i], namesAndValues[i + 1]);
+    }
+    return fields;
+  }
+}
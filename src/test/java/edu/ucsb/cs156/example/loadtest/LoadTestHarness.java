@@ -0,0 +1,369 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import edu.ucsb.cs156.example.ExampleApplication;
+import edu.ucsb.cs156.example.services.wiremock.WiremockServiceImpl;
+import java.io.File;
+import java.net.http.HttpResponse;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Load test of the whole backend: starts the app with the integration profile (an in-memory H2
+ * database) and the wiremock OAuth provider, logs in simulated users, and has them send a mix of
+ * requests to every {@code /api} controller as fast as the app answers, for a fixed time.
+ *
+ * <p>Most users are regular users, who read (lists, pages, rows by id, the current user); every
+ * fifth user is an admin, who also creates, updates and deletes rows, and launches jobs. At the
+ * end, it prints the throughput, error rate and latency percentiles of each operation and overall,
+ * and writes them, with the app's own view from {@code /api/admin/requeststats}, to {@code
+ * target/loadtest-result.json}. Run with:
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *   -Dexec.mainClass=edu.ucsb.cs156.example.loadtest.LoadTestHarness \
+ *   -Dexec.args="20 60 10"
+ * </pre>
+ *
+ * <p>The arguments are the number of users, and the seconds to measure for after a warmup of the
+ * given number of seconds. The app listens on port 8080 and wiremock on 8090, as the integration
+ * profile expects, so neither may be in use. See docs/load-testing.md.
+ */
+public class LoadTestHarness {
+  private static final String BASE_URL = "http://localhost:8080";
+  private static final String ADMIN_EMAIL = "admingaucho@ucsb.edu"; // app.admin.emails
+  private static final int ROWS_PER_TABLE = 50;
+
+  private static final ObjectMapper mapper = new ObjectMapper();
+
+  public static void main(String[] args) throws Exception {
+    int users = intArg(args, 0, 20);
+    int seconds = intArg(args, 1, 60);
+    int warmupSeconds = intArg(args, 2, 10);
+
+    ConfigurableApplicationContext app =
+        new SpringApplicationBuilder(ExampleApplication.class)
+            .run(
+                "--spring.profiles.active=integration",
+                "--server.port=8080",
+                "--spring.main.banner-mode=off",
+                // the integration profile logs every SQL statement and its parameters
+                "--logging.level.sql=INFO",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO",
+                // keep the app's log out of the report
+                "--logging.threshold.console=OFF",
+                "--logging.file.name=target/loadtest-app.log");
+
+    WireMockServer wireMockServer = new WireMockServer(options().port(8090).globalTemplating(true));
+    WiremockServiceImpl.setupOauthMocks(wireMockServer, false);
+    stubUserPerLogin(wireMockServer);
+    wireMockServer.start();
+    try {
+      Map<String, Object> result = run(users, seconds, warmupSeconds);
+      System.out.println(report(result));
+      File file = new File("target/loadtest-result.json");
+      mapper.writerWithDefaultPrettyPrinter().writeValue(file, result);
+      System.out.println("Results written to " + file);
+    } finally {
+      app.close();
+      wireMockServer.stop();
+    }
+  }
+
+  private static int intArg(String[] args, int index, int defaultValue) {
+    return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+  }
+
+  /**
+   * Replaces the single user of {@code setupOauthMocks} with one user per email: the email entered
+   * in the login form is passed through the authorization code and the access token, and {@code
+   * /userinfo} answers with it.
+   */
+  private static void stubUserPerLogin(WireMockServer wireMockServer) {
+    wireMockServer.stubFor(
+        post(urlPathEqualTo("/login"))
+            .willReturn(
+                aResponse()
+                    .withStatus(302)
+                    .withHeader(
+                        "Location",
+                        "{{formData request.body 'form' urlDecode=true}}{{{form.redirectUri}}}?code={{{urlEncode form.username}}}&state={{{urlEncode form.state}}}")));
+    wireMockServer.stubFor(
+        post(urlPathEqualTo("/oauth/token"))
+            .willReturn(
+                okJson(
+                    "{{formData request.body 'form' urlDecode=true}}{\"access_token\":\"{{{form.code}}}\",\"token_type\": \"Bearer\",\"expires_in\":\"3600\",\"scope\":\"https://www.googleapis.com/auth/userinfo.profile https://www.googleapis.com/auth/userinfo.email openid\"}")));
+    wireMockServer.stubFor(
+        get(urlPathEqualTo("/userinfo"))
+            .willReturn(
+                okJson(
+                    """
+                    {{regexExtract request.headers.Authorization 'Bearer (.+)' 'token'}}
+                    {
+                      "sub": "{{{token.0}}}",
+                      "name": "Load Gaucho",
+                      "given_name": "Load",
+                      "family_name": "Gaucho",
+                      "picture": "https://lh3.googleusercontent.com/a/picture",
+                      "email": "{{{token.0}}}",
+                      "email_verified": true,
+                      "locale": "en",
+                      "hd": "ucsb.edu"
+                    }
+                    """)));
+  }
+
+  private static Map<String, Object> run(int users, int seconds, int warmupSeconds)
+      throws Exception {
+    VirtualUser seeder = new VirtualUser(BASE_URL, ADMIN_EMAIL);
+    seeder.login();
+    Map<CrudEndpoint, List<String>> seeded = new LinkedHashMap<>();
+    for (CrudEndpoint endpoint : CrudEndpoint.ALL) {
+      List<String> ids = new ArrayList<>();
+      for (int n = 0; n < ROWS_PER_TABLE; n++) {
+        ids.add(create(seeder, endpoint, n));
+      }
+      seeded.put(endpoint, ids);
+    }
+
+    List<VirtualUser> virtualUsers = new ArrayList<>();
+    for (int i = 0; i < users; i++) {
+      VirtualUser user =
+          new VirtualUser(BASE_URL, i % 5 == 0 ? ADMIN_EMAIL : "loaduser%d@ucsb.edu".formatted(i));
+      user.login();
+      virtualUsers.add(user);
+    }
+
+    long warmupEnd = System.nanoTime() + warmupSeconds * 1_000_000_000L;
+    long end = warmupEnd + seconds * 1_000_000_000L;
+    // users run on platform threads: on virtual threads, they would share the carrier threads of
+    // the
+    // app's virtual threads (when it uses them), and with few cores the app's request threads could
+    // keep some users from being scheduled for the whole run
+    try (ExecutorService threads =
+        Executors.newThreadPerTaskExecutor(Thread.ofPlatform().factory())) {
+      List<Future<?>> running = new ArrayList<>();
+      for (int i = 0; i < users; i++) {
+        VirtualUser user = virtualUsers.get(i);
+        Scenario scenario = new Scenario(user, user.getEmail().equals(ADMIN_EMAIL), seeded, i);
+        running.add(
+            threads.submit(
+                () -> {
+                  while (System.nanoTime() < end) {
+                    scenario.next();
+                  }
+                  return null;
+                }));
+      }
+      Thread.sleep(Math.max(0, (warmupEnd - System.nanoTime()) / 1_000_000));
+      // every request that finishes from now on is counted, including one that has been waiting
+      // since the warmup: leaving those out would hide requests that wait for a long time
+      virtualUsers.forEach(user -> user.recording = true);
+      seeder.delete("reset request stats", "/api/admin/requeststats");
+      for (Future<?> user : running) {
+        user.get();
+      }
+    }
+    JsonNode server =
+        mapper.readTree(seeder.get("request stats", "/api/admin/requeststats").body());
+
+    Map<String, Histogram> latencies = new TreeMap<>();
+    Map<String, Long> errors = new HashMap<>();
+    for (VirtualUser user : virtualUsers) {
+      user.latencies.forEach(
+          (operation, histogram) ->
+              latencies.computeIfAbsent(operation, name -> new Histogram(2)).add(histogram));
+      user.errors.forEach((operation, count) -> errors.merge(operation, count, Long::sum));
+    }
+    Histogram all = new Histogram(2);
+    latencies.values().forEach(all::add);
+
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("users", users);
+    result.put("seconds", seconds);
+    result.put(
+        "total", stats("total", all, errors.values().stream().mapToLong(l -> l).sum(), seconds));
+    result.put(
+        "operations",
+        latencies.entrySet().stream()
+            .map(
+                entry ->
+                    stats(
+                        entry.getKey(),
+                        entry.getValue(),
+                        errors.getOrDefault(entry.getKey(), 0L),
+                        seconds))
+            .toList());
+    result.put("server", server);
+    return result;
+  }
+
+  private static String create(VirtualUser user, CrudEndpoint endpoint, int n) throws Exception {
+    HttpResponse<String> response =
+        user.post(
+            "POST " + endpoint.path() + "/post",
+            endpoint.path() + "/post?" + VirtualUser.query(endpoint.fields().apply(n)));
+    if (response == null || response.statusCode() != 200) {
+      return null;
+    }
+    return mapper.readTree(response.body()).get(endpoint.idParam()).asText();
+  }
+
+  private static Map<String, Object> stats(
+      String operation, Histogram micros, long errors, int seconds) {
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("operation", operation);
+    stats.put("requests", micros.getTotalCount());
+    stats.put("errors", errors);
+    stats.put(
+        "errorRate", micros.getTotalCount() == 0 ? 0 : (double) errors / micros.getTotalCount());
+    stats.put("throughputPerSec", (double) micros.getTotalCount() / seconds);
+    stats.put("meanMs", micros.getMean() / 1000.0);
+    stats.put("p50Ms", micros.getValueAtPercentile(50) / 1000.0);
+    stats.put("p95Ms", micros.getValueAtPercentile(95) / 1000.0);
+    stats.put("p99Ms", micros.getValueAtPercentile(99) / 1000.0);
+    stats.put("maxMs", micros.getMaxValue() / 1000.0);
+    return stats;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static String report(Map<String, Object> result) {
+    StringBuilder report = new StringBuilder();
+    String format = "%-55s %9s %7s %9s %9s %9s %9s %9s %9s%n";
+    report.append(
+        format.formatted(
+            "operation",
+            "requests",
+            "errors",
+            "req/s",
+            "mean ms",
+            "p50 ms",
+            "p95 ms",
+            "p99 ms",
+            "max ms"));
+    List<Map<String, Object>> rows =
+        new ArrayList<>((List<Map<String, Object>>) result.get("operations"));
+    rows.add((Map<String, Object>) result.get("total"));
+    for (Map<String, Object> row : rows) {
+      report.append(
+          format.formatted(
+              row.get("operation"),
+              row.get("requests"),
+              row.get("errors"),
+              "%.1f".formatted(row.get("throughputPerSec")),
+              "%.1f".formatted(row.get("meanMs")),
+              "%.1f".formatted(row.get("p50Ms")),
+              "%.1f".formatted(row.get("p95Ms")),
+              "%.1f".formatted(row.get("p99Ms")),
+              "%.1f".formatted(row.get("maxMs"))));
+    }
+    return report.toString();
+  }
+
+  /**
+   * What one user does, one request at a time. Regular users only read; admins also write, to rows
+   * they created, so that no reader ever looks for a row that was deleted.
+   */
+  private static class Scenario {
+    private final VirtualUser user;
+    private final boolean admin;
+    private final Map<CrudEndpoint, List<String>> seeded;
+    private final Map<CrudEndpoint, Deque<String>> created = new HashMap<>();
+    private final int index;
+    private final Random random;
+    private int rowsCreated;
+
+    Scenario(VirtualUser user, boolean admin, Map<CrudEndpoint, List<String>> seeded, int index) {
+      this.user = user;
+      this.admin = admin;
+      this.seeded = seeded;
+      this.index = index;
+      // the same users make the same choices on every run
+      this.random = new Random(index);
+    }
+
+    void next() throws Exception {
+      CrudEndpoint endpoint = CrudEndpoint.ALL.get(random.nextInt(CrudEndpoint.ALL.size()));
+      List<String> ids = seeded.get(endpoint);
+      int choice = random.nextInt(admin ? 100 : 75);
+      if (choice < 10) {
+        user.get("GET /api/currentUser", "/api/currentUser");
+      } else if (choice < 20) {
+        user.get("GET " + endpoint.path() + "/all", endpoint.path() + "/all");
+      } else if (choice < 40) {
+        user.get("GET " + endpoint.path() + "/page", endpoint.path() + "/page?size=20");
+      } else if (choice < 70) {
+        String id = ids.get(random.nextInt(ids.size()));
+        user.get("GET " + endpoint.path(), endpoint.path() + "?" + endpoint.idParam() + "=" + id);
+      } else if (choice < 75) {
+        user.get("GET /api/systemInfo", "/api/systemInfo");
+      } else if (choice < 85) {
+        create(endpoint);
+      } else if (choice < 90) {
+        update(endpoint);
+      } else if (choice < 95) {
+        delete(endpoint);
+      } else if (choice < 97) {
+        user.post(
+            "POST /api/jobs/launch/testjob", "/api/jobs/launch/testjob?fail=false&sleepMs=100");
+      } else {
+        user.get("GET /api/jobs/page", "/api/jobs/page?size=20");
+      }
+    }
+
+    private void create(CrudEndpoint endpoint) throws Exception {
+      // rows are numbered apart from the seeded ones, and from those of other users, so that
+      // dining commons codes are unique
+      int n = (index + 1) * 1_000_000 + rowsCreated++;
+      String id = LoadTestHarness.create(user, endpoint, n);
+      if (id != null) {
+        created.computeIfAbsent(endpoint, e -> new ArrayDeque<>()).add(id);
+      }
+    }
+
+    private void update(CrudEndpoint endpoint) throws Exception {
+      Deque<String> ids = created.get(endpoint);
+      if (ids == null || ids.isEmpty()) {
+        create(endpoint);
+        return;
+      }
+      user.put(
+          "PUT " + endpoint.path(),
+          endpoint.path() + "?" + endpoint.idParam() + "=" + ids.peekLast(),
+          mapper.writeValueAsString(endpoint.fields().apply(rowsCreated)));
+    }
+
+    private void delete(CrudEndpoint endpoint) throws Exception {
+      Deque<String> ids = created.get(endpoint);
+      if (ids == null || ids.isEmpty()) {
+        create(endpoint);
+        return;
+      }
+      user.delete(
+          "DELETE " + endpoint.path(),
+          endpoint.path() + "?" + endpoint.idParam() + "=" + ids.pollFirst());
+    }
+  }
+}
@@ -0,0 +1,180 @@
+package edu.ucsb.cs156.example.loadtest;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.HdrHistogram.Histogram;
+
+/**
+ * One simulated user of the load test: an HTTP client with its own cookies, and so its own session,
+ * that logs in through the wiremock OAuth provider as a browser would.
+ *
+ * <p>Each user records the latency of its requests in its own histograms, one per operation (e.g.
+ * {@code GET /api/restaurants/all}), so that the users do not contend on shared counters; the
+ * histograms are added up at the end of the run.
+ */
+class VirtualUser {
+  private static final Pattern HIDDEN_INPUT =
+      Pattern.compile("<input type=\"hidden\" name=\"(\\w+)\" value=\"([^\"]*)\"");
+
+  private final String baseUrl;
+  private final String email;
+  private final CookieManager cookies = new CookieManager();
+  private final HttpClient client;
+
+  // latencies in microseconds, and the number of failed requests, by operation
+  final Map<String, Histogram> latencies = new HashMap<>();
+  final Map<String, Long> errors = new HashMap<>();
+
+  // requests that finish while this is set are recorded, i.e. not those that finish in the warmup
+  volatile boolean recording;
+
+  VirtualUser(String baseUrl, String email) {
+    this.baseUrl = baseUrl;
+    this.email = email;
+    this.client =
+        HttpClient.newBuilder()
+            .cookieHandler(cookies)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+  }
+
+  String getEmail() {
+    return email;
+  }
+
+  /**
+   * Logs in: the app redirects to the login page of the wiremock OAuth provider, whose form is
+   * posted with this user's email, and the provider redirects back to the app with a code for it.
+   */
+  void login() throws IOException, InterruptedException {
+    HttpResponse<String> loginPage =
+        client.send(
+            HttpRequest.newBuilder(URI.create(baseUrl + "/oauth2/authorization/my-oauth-provider"))
+                .build(),
+            BodyHandlers.ofString());
+    Map<String, Object> form = new LinkedHashMap<>();
+    Matcher hidden = HIDDEN_INPUT.matcher(loginPage.body());
+    while (hidden.find()) {
+      form.put(hidden.group(1), unescapeHtml(hidden.group(2)));
+    }
+    form.put("username", email);
+    form.put("password", "password");
+
+    HttpResponse<String> home =
+        client.send(
+            HttpRequest.newBuilder(loginPage.uri().resolve("/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(BodyPublishers.ofString(query(form)))
+                .build(),
+            BodyHandlers.ofString());
+    HttpResponse<String> currentUser =
+        client.send(
+            HttpRequest.newBuilder(URI.create(baseUrl + "/api/currentUser")).build(),
+            BodyHandlers.ofString());
+    if (home.statusCode() != 200
+        || currentUser.statusCode() != 200
+        || !currentUser.body().contains(email)) {
+      throw new IllegalStateException(
+          "%s could not log in: %s %d, /api/currentUser %d"
+              .formatted(email, home.uri(), home.statusCode(), currentUser.statusCode()));
+    }
+  }
+
+  HttpResponse<String> get(String operation, String pathAndQuery) throws InterruptedException {
+    return send(operation, request(pathAndQuery).GET());
+  }
+
+  HttpResponse<String> post(String operation, String pathAndQuery) throws InterruptedException {
+    return send(operation, request(pathAndQuery).POST(BodyPublishers.noBody()));
+  }
+
+  HttpResponse<String> put(String operation, String pathAndQuery, String json)
+      throws InterruptedException {
+    return send(
+        operation,
+        request(pathAndQuery)
+            .header("Content-Type", "application/json")
+            .PUT(BodyPublishers.ofString(json)));
+  }
+
+  HttpResponse<String> delete(String operation, String pathAndQuery) throws InterruptedException {
+    return send(operation, request(pathAndQuery).DELETE());
+  }
+
+  private HttpRequest.Builder request(String pathAndQuery) {
+    HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + pathAndQuery));
+    // the app keeps the CSRF token in a cookie, and expects it back in a header, as the frontend
+    // does
+    cookies.getCookieStore().getCookies().stream()
+        .filter(cookie -> cookie.getName().equals("XSRF-TOKEN"))
+        .map(HttpCookie::getValue)
+        .findFirst()
+        .ifPresent(token -> request.header("X-XSRF-TOKEN", token));
+    return request;
+  }
+
+  /**
+   * Sends a request, and records how long it took and whether it failed.
+   *
+   * @return the response, or null if the request could not be sent
+   */
+  private HttpResponse<String> send(String operation, HttpRequest.Builder request)
+      throws InterruptedException {
+    long start = System.nanoTime();
+    HttpResponse<String> response = null;
+    try {
+      response = client.send(request.build(), BodyHandlers.ofString());
+    } catch (IOException e) {
+      // counted as an error below
+    }
+    long nanos = System.nanoTime() - start;
+    if (recording) {
+      latencies
+          .computeIfAbsent(operation, name -> new Histogram(2))
+          .recordValue(TimeUnit.NANOSECONDS.toMicros(nanos));
+      if (response == null || response.statusCode() >= 400) {
+        errors.merge(operation, 1L, Long::sum);
+      }
+    }
+    return response;
+  }
+
+  static String query(Map<String, Object> params) {
+    return params.entrySet().stream()
+        .map(
+            param ->
+                param.getKey()
+                    + "="
+                    + URLEncoder.encode(String.valueOf(param.getValue()), StandardCharsets.UTF_8))
+        .collect(Collectors.joining("&"));
+  }
+
+  // wiremock's templates escape the values they write into the login page, as HTML
+  private static String unescapeHtml(String html) {
+    return html.replace("&#x3D;", "=")
+        .replace("&#x27;", "'")
+        .replace("&#x60;", "`")
+        .replace("&quot;", "\"")
+        .replace("&lt;", "<")
+        .replace("&gt;", ">")
+        .replace("&amp;", "&");
+  }
+}
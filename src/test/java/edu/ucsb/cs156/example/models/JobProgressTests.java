@@ -0,0 +1,78 @@
+package edu.ucsb.cs156.example.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.ZonedDateTime;
+import org.junit.jupiter.api.Test;
+
+public class JobProgressTests {
+
+  private static final ZonedDateTime STARTED = ZonedDateTime.parse("2025-01-01T00:00:00Z");
+
+  @Test
+  public void rate_and_eta_are_computed_from_progress_so_far() {
+    // arrange
+    JobProgress progress =
+        JobProgress.builder()
+            .done(25)
+            .total(100)
+            .startedAt(STARTED)
+            .updatedAt(STARTED.plusSeconds(10))
+            .build();
+
+    // act & assert
+    assertEquals(25.0, progress.getPercent());
+    assertEquals(2.5, progress.getUnitsPerSecond());
+    assertEquals(STARTED.plusSeconds(40), progress.getEstimatedCompletionAt());
+  }
+
+  @Test
+  public void eta_of_job_that_is_past_its_total_is_last_update() {
+    // arrange
+    JobProgress progress =
+        JobProgress.builder()
+            .done(120)
+            .total(100)
+            .startedAt(STARTED)
+            .updatedAt(STARTED.plusSeconds(10))
+            .build();
+
+    // act & assert
+    assertEquals(STARTED.plusSeconds(10), progress.getEstimatedCompletionAt());
+  }
+
+  @Test
+  public void unknown_total_has_no_percent_or_eta() {
+    // arrange
+    JobProgress progress =
+        JobProgress.builder()
+            .done(25)
+            .startedAt(STARTED)
+            .updatedAt(STARTED.plusSeconds(10))
+            .build();
+
+    // act & assert
+    assertNull(progress.getPercent());
+    assertEquals(2.5, progress.getUnitsPerSecond());
+    assertNull(progress.getEstimatedCompletionAt());
+  }
+
+  @Test
+  public void rate_is_unknown_until_units_are_done_over_time() {
+    // act & assert
+    assertNull(JobProgress.builder().total(10).build().getUnitsPerSecond());
+    assertNull(JobProgress.builder().done(1).total(10).build().getUnitsPerSecond());
+    assertNull(
+        JobProgress.builder().done(1).total(10).startedAt(STARTED).build().getUnitsPerSecond());
+    assertNull(
+        JobProgress.builder()
+            .done(1)
+            .total(10)
+            .startedAt(STARTED)
+            .updatedAt(STARTED)
+            .build()
+            .getUnitsPerSecond());
+    assertNull(JobProgress.builder().total(10).build().getEstimatedCompletionAt());
+  }
+}
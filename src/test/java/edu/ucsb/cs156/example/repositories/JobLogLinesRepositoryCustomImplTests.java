@@ -0,0 +1,83 @@
+package edu.ucsb.cs156.example.repositories;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+public class JobLogLinesRepositoryCustomImplTests {
+
+  @Mock private JdbcTemplate jdbcTemplate;
+
+  @InjectMocks private JobLogLinesRepositoryCustomImpl repository;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void appendAll_inserts_lines_in_one_batch() throws Exception {
+    // Arrange
+    ZonedDateTime loggedAt = ZonedDateTime.parse("2025-01-02T03:04:05Z");
+    JobLogLine line =
+        JobLogLine.builder()
+            .jobId(7L)
+            .seq(2)
+            .loggedAt(loggedAt)
+            .level("INFO")
+            .message("hello")
+            .build();
+    List<JobLogLine> lines = List.of(line);
+
+    // Act
+    repository.appendAll(lines);
+
+    // Assert
+    ArgumentCaptor<ParameterizedPreparedStatementSetter<JobLogLine>> setter =
+        ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+    verify(jdbcTemplate)
+        .batchUpdate(
+            eq(JobLogLinesRepositoryCustomImpl.INSERT_SQL), eq(lines), eq(1), setter.capture());
+
+    PreparedStatement ps = mock(PreparedStatement.class);
+    setter.getValue().setValues(ps, line);
+    verify(ps).setLong(1, 7L);
+    verify(ps).setInt(2, 2);
+    verify(ps).setTimestamp(3, Timestamp.from(loggedAt.toInstant()));
+    verify(ps).setString(4, "INFO");
+    verify(ps).setString(5, "hello");
+  }
+
+  @Test
+  void appendAll_with_no_lines_does_nothing() {
+    // Act
+    repository.appendAll(List.of());
+
+    // Assert
+    verify(jdbcTemplate, never())
+        .batchUpdate(
+            anyString(),
+            any(List.class),
+            anyInt(),
+            any(ParameterizedPreparedStatementSetter.class));
+  }
+}
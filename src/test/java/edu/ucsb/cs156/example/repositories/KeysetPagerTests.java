@@ -0,0 +1,345 @@
+package edu.ucsb.cs156.example.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.errors.InvalidPageRequestException;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import lombok.Getter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.repository.query.FluentQuery.FetchableFluentQuery;
+
+@SuppressWarnings({"unchecked", "rawtypes"})
+public class KeysetPagerTests {
+
+  private final KeysetPager<Restaurant> pager =
+      new KeysetPager<>(Restaurant.class, "id", List.of("id", "name"));
+
+  private ScrollingRepository<Restaurant, Long> repository;
+  private FetchableFluentQuery<Restaurant> fluentQuery;
+  private final List<Specification<Restaurant>> specs = new ArrayList<>();
+
+  private Root<Restaurant> root;
+  private CriteriaQuery<?> query;
+  private CriteriaBuilder cb;
+  private Path<Comparable> id;
+  private Path<Comparable> name;
+
+  private static Restaurant restaurant(long id, String name) {
+    return Restaurant.builder().id(id).name(name).build();
+  }
+
+  private static String cursor(String json) {
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String json(String cursor) {
+    return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+  }
+
+  @BeforeEach
+  public void setup() {
+    repository = mock(ScrollingRepository.class);
+    fluentQuery = mock(FetchableFluentQuery.class);
+    when(fluentQuery.sortBy(any())).thenReturn(fluentQuery);
+    when(fluentQuery.limit(anyInt())).thenReturn(fluentQuery);
+    when(repository.findBy(any(), any()))
+        .thenAnswer(
+            invocation -> {
+              specs.add(invocation.getArgument(0));
+              return ((Function<FetchableFluentQuery<Restaurant>, Object>)
+                      invocation.getArgument(1))
+                  .apply(fluentQuery);
+            });
+
+    root = mock(Root.class);
+    query = mock(CriteriaQuery.class);
+    cb = mock(CriteriaBuilder.class);
+    id = mock(Path.class);
+    name = mock(Path.class);
+    when(root.<Comparable>get("id")).thenReturn(id);
+    when(root.<Comparable>get("name")).thenReturn(name);
+  }
+
+  private Predicate where(int query) {
+    return specs.get(query).toPredicate(root, this.query, cb);
+  }
+
+  @Test
+  void first_page_by_id_reads_one_extra_row_to_find_the_next_cursor() throws Exception {
+    // Arrange
+    when(fluentQuery.all())
+        .thenReturn(List.of(restaurant(1, "a"), restaurant(2, "b"), restaurant(3, "c")));
+
+    // Act
+    KeysetPage<Restaurant> page = pager.page(repository, "id", "asc", 2, null);
+
+    // Assert
+    assertEquals(List.of(restaurant(1, "a"), restaurant(2, "b")), page.getContent());
+    assertEquals(
+        "{\"sort\":\"id\",\"direction\":\"asc\",\"value\":null,\"id\":2}",
+        json(page.getNextCursor()));
+    verify(fluentQuery).sortBy(Sort.by(Sort.Direction.ASC, "id"));
+    verify(fluentQuery).limit(3);
+    Predicate all = mock(Predicate.class);
+    when(cb.conjunction()).thenReturn(all);
+    assertEquals(all, where(0));
+  }
+
+  @Test
+  void next_page_by_id_seeks_past_the_cursor() throws Exception {
+    // Arrange
+    when(fluentQuery.all()).thenReturn(List.of(restaurant(4, "d")));
+    Predicate afterId = mock(Predicate.class);
+    when(cb.lessThan(id, (Comparable) 5L)).thenReturn(afterId);
+
+    // Act
+    KeysetPage<Restaurant> page =
+        pager.page(
+            repository,
+            "name",
+            "asc",
+            2,
+            cursor("{\"sort\":\"id\",\"direction\":\"desc\",\"value\":null,\"id\":5}"));
+
+    // Assert
+    assertEquals(List.of(restaurant(4, "d")), page.getContent());
+    assertNull(page.getNextCursor());
+    verify(fluentQuery).sortBy(Sort.by(Sort.Direction.DESC, "id"));
+    assertEquals(afterId, where(0));
+    verify(cb).lessThan(id, (Comparable) 5L);
+  }
+
+  @Test
+  void ascending_sort_reads_rows_with_null_values_first() throws Exception {
+    // Arrange
+    when(fluentQuery.all())
+        .thenReturn(List.of(restaurant(7, null)))
+        .thenReturn(List.of(restaurant(2, "a"), restaurant(1, "b")));
+
+    // Act
+    KeysetPage<Restaurant> page = pager.page(repository, "name", "asc", 2, null);
+
+    // Assert
+    assertEquals(List.of(restaurant(7, null), restaurant(2, "a")), page.getContent());
+    assertEquals(
+        "{\"sort\":\"name\",\"direction\":\"asc\",\"value\":\"a\",\"id\":2}",
+        json(page.getNextCursor()));
+    verify(fluentQuery).limit(3);
+    verify(fluentQuery).limit(2);
+    verify(fluentQuery).sortBy(Sort.by(Sort.Direction.ASC, "id"));
+    verify(fluentQuery).sortBy(Sort.by(Sort.Direction.ASC, "name").and(Sort.by("id")));
+
+    where(0);
+    verify(cb).isNull(name);
+    where(1);
+    verify(cb).isNotNull(name);
+  }
+
+  @Test
+  void descending_sort_continues_from_a_value_and_then_reads_rows_with_null_values()
+      throws Exception {
+    // Arrange
+    when(fluentQuery.all())
+        .thenReturn(List.of(restaurant(3, "a")))
+        .thenReturn(List.of(restaurant(8, null)));
+    Predicate beyond = mock(Predicate.class);
+    Predicate same = mock(Predicate.class);
+    Predicate afterId = mock(Predicate.class);
+    Predicate sameValue = mock(Predicate.class);
+    Predicate result = mock(Predicate.class);
+    when(cb.lessThan(name, (Comparable) "b")).thenReturn(beyond);
+    when(cb.equal(name, "b")).thenReturn(same);
+    when(cb.lessThan(id, (Comparable) 5L)).thenReturn(afterId);
+    when(cb.and(same, afterId)).thenReturn(sameValue);
+    when(cb.or(beyond, sameValue)).thenReturn(result);
+
+    // Act
+    KeysetPage<Restaurant> page =
+        pager.page(
+            repository,
+            "id",
+            "asc",
+            5,
+            cursor("{\"sort\":\"name\",\"direction\":\"desc\",\"value\":\"b\",\"id\":5}"));
+
+    // Assert
+    assertEquals(List.of(restaurant(3, "a"), restaurant(8, null)), page.getContent());
+    assertNull(page.getNextCursor());
+    verify(fluentQuery)
+        .sortBy(Sort.by(Sort.Direction.DESC, "name").and(Sort.by(Sort.Direction.DESC, "id")));
+    verify(fluentQuery).sortBy(Sort.by(Sort.Direction.DESC, "id"));
+    assertEquals(result, where(0));
+    where(1);
+    verify(cb).isNull(name);
+  }
+
+  @Test
+  void ascending_sort_continues_from_a_value() throws Exception {
+    // Arrange
+    when(fluentQuery.all()).thenReturn(List.of(restaurant(1, "b")));
+
+    // Act
+    KeysetPage<Restaurant> page =
+        pager.page(
+            repository,
+            "name",
+            "asc",
+            2,
+            cursor("{\"sort\":\"name\",\"direction\":\"asc\",\"value\":\"a\",\"id\":2}"));
+
+    // Assert
+    assertEquals(List.of(restaurant(1, "b")), page.getContent());
+    assertEquals(1, specs.size());
+    where(0);
+    verify(cb).greaterThan(name, (Comparable) "a");
+    verify(cb).greaterThan(id, (Comparable) 2L);
+  }
+
+  @Test
+  void cursor_in_rows_with_null_values_continues_by_id() throws Exception {
+    // Arrange
+    when(fluentQuery.all()).thenReturn(List.of()).thenReturn(List.of(restaurant(1, "a")));
+    Predicate isNull = mock(Predicate.class);
+    Predicate afterId = mock(Predicate.class);
+    Predicate result = mock(Predicate.class);
+    when(cb.isNull(name)).thenReturn(isNull);
+    when(cb.greaterThan(id, (Comparable) 7L)).thenReturn(afterId);
+    when(cb.and(isNull, afterId)).thenReturn(result);
+
+    // Act
+    KeysetPage<Restaurant> page =
+        pager.page(
+            repository,
+            "name",
+            "asc",
+            2,
+            cursor("{\"sort\":\"name\",\"direction\":\"asc\",\"value\":null,\"id\":7}"));
+
+    // Assert
+    assertEquals(List.of(restaurant(1, "a")), page.getContent());
+    assertEquals(result, where(0));
+    // the rows with values are read from the start
+    where(1);
+    verify(cb).isNotNull(name);
+  }
+
+  @Test
+  void filter_is_added_to_every_query() throws Exception {
+    // Arrange
+    when(fluentQuery.all()).thenReturn(List.of()).thenReturn(List.of(restaurant(1, "a")));
+    Predicate isNull = mock(Predicate.class);
+    Predicate all = mock(Predicate.class);
+    Predicate nulls = mock(Predicate.class);
+    Predicate values = mock(Predicate.class);
+    Predicate matches = mock(Predicate.class);
+    Predicate filteredNulls = mock(Predicate.class);
+    Predicate filteredValues = mock(Predicate.class);
+    when(cb.isNull(name)).thenReturn(isNull);
+    when(cb.conjunction()).thenReturn(all);
+    when(cb.and(isNull, all)).thenReturn(nulls);
+    when(cb.isNotNull(name)).thenReturn(values);
+    when(cb.and(nulls, matches)).thenReturn(filteredNulls);
+    when(cb.and(values, matches)).thenReturn(filteredValues);
+    Specification<Restaurant> filter = (root, query, cb) -> matches;
+
+    // Act
+    KeysetPage<Restaurant> page = pager.page(repository, filter, "name", "asc", 2, null);
+
+    // Assert
+    assertEquals(List.of(restaurant(1, "a")), page.getContent());
+    assertEquals(filteredNulls, where(0));
+    assertEquals(filteredValues, where(1));
+  }
+
+  @Test
+  void invalid_requests_are_rejected() throws Exception {
+    assertEquals(
+        "size must be between 1 and 100",
+        assertThrows(
+                InvalidPageRequestException.class,
+                () -> pager.page(repository, "id", "asc", 0, null))
+            .getMessage());
+    assertEquals(
+        "size must be between 1 and 100",
+        assertThrows(
+                InvalidPageRequestException.class,
+                () -> pager.page(repository, "id", "asc", 101, null))
+            .getMessage());
+    assertEquals(
+        "sort must be one of id, name",
+        assertThrows(
+                InvalidPageRequestException.class,
+                () -> pager.page(repository, "description", "asc", 10, null))
+            .getMessage());
+    assertEquals(
+        "direction must be asc or desc",
+        assertThrows(
+                InvalidPageRequestException.class,
+                () -> pager.page(repository, "id", "up", 10, null))
+            .getMessage());
+  }
+
+  @Test
+  void invalid_cursors_are_rejected() throws Exception {
+    for (String cursor :
+        List.of(
+            "not base64!",
+            cursor("not json"),
+            cursor("{\"sort\":\"description\",\"direction\":\"asc\",\"value\":\"x\",\"id\":1}"),
+            cursor("{\"sort\":\"id\",\"direction\":\"asc\",\"value\":null,\"id\":null}"),
+            cursor("{\"sort\":\"id\",\"direction\":\"asc\",\"value\":null,\"id\":\"one\"}"))) {
+      InvalidPageRequestException e =
+          assertThrows(
+              InvalidPageRequestException.class,
+              () -> pager.page(repository, "id", "asc", 10, cursor));
+      assertEquals("cursor is not valid", e.getMessage());
+    }
+  }
+
+  /** An entity with a sort property that cannot be written as JSON. */
+  @Getter
+  static class Unwritable {
+    private final long id = 1;
+    private final Object value = new Object();
+  }
+
+  @Test
+  void cursor_that_cannot_be_written_throws() throws Exception {
+    // Arrange
+    KeysetPager<Unwritable> unwritablePager =
+        new KeysetPager<>(Unwritable.class, "id", List.of("id", "value"));
+    ScrollingRepository<Unwritable, Long> unwritableRepository = mock(ScrollingRepository.class);
+    when(unwritableRepository.findBy(any(), any()))
+        .thenReturn(List.of(new Unwritable(), new Unwritable()));
+
+    // Act & Assert
+    IllegalStateException e =
+        assertThrows(
+            IllegalStateException.class,
+            () -> unwritablePager.page(unwritableRepository, "value", "asc", 1, null));
+    assertEquals("Could not encode cursor", e.getMessage());
+  }
+}
@@ -0,0 +1,73 @@
+package edu.ucsb.cs156.example.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("unchecked")
+public class MenuItemReviewFilterTests {
+
+  private static final LocalDateTime JAN = LocalDateTime.parse("2022-01-01T00:00:00");
+  private static final LocalDateTime FEB = LocalDateTime.parse("2022-02-01T00:00:00");
+
+  private Root<MenuItemReview> root;
+  private CriteriaQuery<?> query;
+  private CriteriaBuilder cb;
+  private final Predicate result = mock(Predicate.class);
+
+  @BeforeEach
+  public void setup() {
+    root = mock(Root.class);
+    query = mock(CriteriaQuery.class);
+    cb = mock(CriteriaBuilder.class);
+  }
+
+  @Test
+  void no_filters_match_every_review() throws Exception {
+    // Arrange
+    when(cb.and()).thenReturn(result);
+
+    // Act
+    Predicate where = new MenuItemReviewFilter(null, null, null, null).toPredicate(root, query, cb);
+
+    // Assert
+    assertEquals(result, where);
+  }
+
+  @Test
+  void every_filter_given_must_match() throws Exception {
+    // Arrange
+    Path<Object> itemId = mock(Path.class);
+    Path<Object> reviewerEmail = mock(Path.class);
+    Path<LocalDateTime> dateReviewed = mock(Path.class);
+    when(root.get("itemId")).thenReturn(itemId);
+    when(root.get("reviewerEmail")).thenReturn(reviewerEmail);
+    when(root.<LocalDateTime>get("dateReviewed")).thenReturn(dateReviewed);
+    Predicate ofItem = mock(Predicate.class);
+    Predicate byReviewer = mock(Predicate.class);
+    Predicate after = mock(Predicate.class);
+    Predicate before = mock(Predicate.class);
+    when(cb.equal(itemId, 7L)).thenReturn(ofItem);
+    when(cb.equal(reviewerEmail, "cgaucho@ucsb.edu")).thenReturn(byReviewer);
+    when(cb.greaterThanOrEqualTo(dateReviewed, JAN)).thenReturn(after);
+    when(cb.lessThan(dateReviewed, FEB)).thenReturn(before);
+    when(cb.and(ofItem, byReviewer, after, before)).thenReturn(result);
+
+    // Act
+    Predicate where =
+        new MenuItemReviewFilter(7L, "cgaucho@ucsb.edu", JAN, FEB).toPredicate(root, query, cb);
+
+    // Assert
+    assertEquals(result, where);
+  }
+}
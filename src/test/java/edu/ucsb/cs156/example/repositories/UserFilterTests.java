@@ -0,0 +1,73 @@
+package edu.ucsb.cs156.example.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.User;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("unchecked")
+public class UserFilterTests {
+
+  private Root<User> root;
+  private CriteriaQuery<?> query;
+  private CriteriaBuilder cb;
+  private final Predicate result = mock(Predicate.class);
+
+  @BeforeEach
+  public void setup() {
+    root = mock(Root.class);
+    query = mock(CriteriaQuery.class);
+    cb = mock(CriteriaBuilder.class);
+  }
+
+  @Test
+  void no_filters_match_every_user() throws Exception {
+    // Arrange
+    when(cb.and()).thenReturn(result);
+
+    // Act
+    Predicate where = new UserFilter(null, null, null).toPredicate(root, query, cb);
+
+    // Assert
+    assertEquals(result, where);
+  }
+
+  @Test
+  void every_filter_given_must_match() throws Exception {
+    // Arrange
+    Path<Object> admin = mock(Path.class);
+    Path<Object> hostedDomain = mock(Path.class);
+    Path<String> email = mock(Path.class);
+    when(root.get("admin")).thenReturn(admin);
+    when(root.get("hostedDomain")).thenReturn(hostedDomain);
+    when(root.<String>get("email")).thenReturn(email);
+    Predicate isAdmin = mock(Predicate.class);
+    Predicate inDomain = mock(Predicate.class);
+    Predicate startsWith = mock(Predicate.class);
+    when(cb.equal(admin, true)).thenReturn(isAdmin);
+    when(cb.equal(hostedDomain, "ucsb.edu")).thenReturn(inDomain);
+    when(cb.like(email, "c\\_gaucho%", '\\')).thenReturn(startsWith);
+    when(cb.and(isAdmin, inDomain, startsWith)).thenReturn(result);
+
+    // Act
+    Predicate where = new UserFilter(true, "ucsb.edu", "c_gaucho").toPredicate(root, query, cb);
+
+    // Assert
+    assertEquals(result, where);
+  }
+
+  @Test
+  void email_prefix_is_taken_literally() throws Exception {
+    assertEquals("cgaucho%", UserFilter.likePrefix("cgaucho"));
+    assertEquals("100\\%\\_sure\\\\%", UserFilter.likePrefix("100%_sure\\"));
+    assertEquals("%", UserFilter.likePrefix(""));
+  }
+}
@@ -0,0 +1,156 @@
+package edu.ucsb.cs156.example.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.config.CacheConfig;
+import edu.ucsb.cs156.example.entities.User;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.test.util.AopTestUtils;
+
+@SpringJUnitConfig
+public class UserRepositoryCacheTests {
+
+  @Configuration
+  @Import(CacheConfig.class)
+  static class Config {
+    @Bean
+    public UserRepository userRepository() {
+      return mock(UserRepository.class);
+    }
+  }
+
+  @Autowired private UserRepository userRepository;
+
+  @Autowired private CacheManager cacheManager;
+
+  private UserRepository database;
+
+  private final User user = User.builder().id(1L).email("cgaucho@ucsb.edu").build();
+
+  @BeforeEach
+  public void setup() {
+    database = AopTestUtils.getTargetObject(userRepository);
+    reset(database);
+    cacheManager.getCache(UserRepository.USERS_BY_EMAIL).clear();
+  }
+
+  @Test
+  public void user_is_read_from_the_database_only_once() {
+    // arrange
+    when(database.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(user));
+
+    // act
+    Optional<User> first = userRepository.findByEmail("cgaucho@ucsb.edu");
+    Optional<User> second = userRepository.findByEmail("cgaucho@ucsb.edu");
+
+    // assert
+    assertEquals(Optional.of(user), first);
+    assertEquals(Optional.of(user), second);
+    verify(database, times(1)).findByEmail("cgaucho@ucsb.edu");
+  }
+
+  @Test
+  public void missing_user_is_not_cached() {
+    // arrange
+    when(database.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.empty());
+
+    // act
+    userRepository.findByEmail("cgaucho@ucsb.edu");
+    userRepository.findByEmail("cgaucho@ucsb.edu");
+
+    // assert
+    verify(database, times(2)).findByEmail("cgaucho@ucsb.edu");
+  }
+
+  @Test
+  public void saving_a_user_evicts_them() {
+    // arrange
+    User admin = User.builder().id(1L).email("cgaucho@ucsb.edu").admin(true).build();
+    when(database.findByEmail("cgaucho@ucsb.edu"))
+        .thenReturn(Optional.of(user))
+        .thenReturn(Optional.of(admin));
+    userRepository.findByEmail("cgaucho@ucsb.edu");
+
+    // act
+    userRepository.save(admin);
+    Optional<User> found = userRepository.findByEmail("cgaucho@ucsb.edu");
+
+    // assert
+    assertEquals(Optional.of(admin), found);
+    verify(database).save(admin);
+    verify(database, times(2)).findByEmail("cgaucho@ucsb.edu");
+  }
+
+  @Test
+  public void changing_a_cached_user_does_not_change_the_cache() {
+    // arrange
+    when(database.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(user));
+    userRepository.findByEmail("cgaucho@ucsb.edu").get().setAdmin(true);
+
+    // act
+    User found = userRepository.findByEmail("cgaucho@ucsb.edu").get();
+
+    // assert
+    assertEquals(false, found.getAdmin());
+    verify(database, times(1)).findByEmail("cgaucho@ucsb.edu");
+  }
+
+  private void assertEvictedBy(Runnable write) {
+    when(database.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(user));
+    userRepository.findByEmail("cgaucho@ucsb.edu");
+
+    write.run();
+    userRepository.findByEmail("cgaucho@ucsb.edu");
+
+    verify(database, times(2)).findByEmail("cgaucho@ucsb.edu");
+  }
+
+  @Test
+  public void making_a_user_an_admin_evicts_them() {
+    assertEvictedBy(() -> userRepository.makeAdmin("cgaucho@ucsb.edu"));
+  }
+
+  @Test
+  public void deleting_a_user_evicts_them() {
+    assertEvictedBy(() -> userRepository.delete(user));
+  }
+
+  @Test
+  public void deleting_a_user_by_id_clears_the_cache() {
+    assertEvictedBy(() -> userRepository.deleteById(1L));
+  }
+
+  @Test
+  public void deleting_users_by_id_clears_the_cache() {
+    assertEvictedBy(() -> userRepository.deleteAllById(List.of(1L)));
+  }
+
+  @Test
+  public void deleting_several_users_clears_the_cache() {
+    assertEvictedBy(() -> userRepository.deleteAll(List.of(user)));
+  }
+
+  @Test
+  public void deleting_every_user_clears_the_cache() {
+    assertEvictedBy(() -> userRepository.deleteAll());
+  }
+
+  @Test
+  public void saving_several_users_clears_the_cache() {
+    assertEvictedBy(() -> userRepository.saveAll(List.of(user)));
+  }
+}
@@ -0,0 +1,61 @@
+package edu.ucsb.cs156.example.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class UserRepositoryCustomImplTests {
+
+  @Mock private EntityManager entityManager;
+
+  @InjectMocks private UserRepositoryCustomImpl repository;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void streamAllBy_streams_the_matching_users_read_only_100_at_a_time() throws Exception {
+    // Arrange
+    CriteriaBuilder cb = mock(CriteriaBuilder.class);
+    CriteriaQuery<User> query = mock(CriteriaQuery.class);
+    Root<User> root = mock(Root.class);
+    TypedQuery<User> typedQuery = mock(TypedQuery.class);
+    Predicate predicate = mock(Predicate.class);
+    Stream<User> users = Stream.of(User.builder().id(1L).build());
+    when(entityManager.getCriteriaBuilder()).thenReturn(cb);
+    when(cb.createQuery(User.class)).thenReturn(query);
+    when(query.from(User.class)).thenReturn(root);
+    when(entityManager.createQuery(query)).thenReturn(typedQuery);
+    when(typedQuery.setHint(HibernateHints.HINT_FETCH_SIZE, 100)).thenReturn(typedQuery);
+    when(typedQuery.setHint(HibernateHints.HINT_READ_ONLY, true)).thenReturn(typedQuery);
+    when(typedQuery.getResultStream()).thenReturn(users);
+
+    // Act
+    Stream<User> result = repository.streamAllBy((r, q, b) -> predicate);
+
+    // Assert
+    assertEquals(users, result);
+    verify(query).where(predicate);
+    verify(typedQuery).setHint(HibernateHints.HINT_FETCH_SIZE, 100);
+    verify(typedQuery).setHint(HibernateHints.HINT_READ_ONLY, true);
+  }
+}
@@ -0,0 +1,123 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class AdminRoleResolverTests {
+
+  @Mock private UserRepository userRepository;
+
+  @InjectMocks private AdminRoleResolver adminRoleResolver;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(adminRoleResolver, "adminEmails", Set.of("phtcon@ucsb.edu"));
+    ReflectionTestUtils.setField(adminRoleResolver, "ttlMs", 1000L);
+    when(userRepository.findAdminByEmail("admin@ucsb.edu")).thenReturn(Optional.of(true));
+    when(userRepository.findAdminByEmail("user@ucsb.edu")).thenReturn(Optional.of(false));
+    when(userRepository.findAdminByEmail("new@ucsb.edu")).thenReturn(Optional.empty());
+  }
+
+  @Test
+  public void configured_admin_is_an_admin_without_a_query() {
+    assertTrue(adminRoleResolver.isAdmin("phtcon@ucsb.edu"));
+    verify(userRepository, never()).findAdminByEmail(anyString());
+  }
+
+  @Test
+  public void admin_flag_is_read_from_the_database() {
+    assertTrue(adminRoleResolver.isAdmin("admin@ucsb.edu"));
+    assertFalse(adminRoleResolver.isAdmin("user@ucsb.edu"));
+    assertFalse(adminRoleResolver.isAdmin("new@ucsb.edu"));
+  }
+
+  @Test
+  public void admin_flag_is_cached_until_it_expires() {
+    // act
+    adminRoleResolver.isAdmin("user@ucsb.edu", 0);
+    adminRoleResolver.isAdmin("user@ucsb.edu", 999);
+
+    // assert
+    verify(userRepository, times(1)).findAdminByEmail("user@ucsb.edu");
+
+    // act
+    when(userRepository.findAdminByEmail("user@ucsb.edu")).thenReturn(Optional.of(true));
+    boolean admin = adminRoleResolver.isAdmin("user@ucsb.edu", 1000);
+
+    // assert
+    assertTrue(admin);
+    verify(userRepository, times(2)).findAdminByEmail("user@ucsb.edu");
+  }
+
+  @Test
+  public void invalidated_flags_are_read_again() {
+    // arrange
+    adminRoleResolver.isAdmin("user@ucsb.edu", 0);
+    adminRoleResolver.isAdmin("admin@ucsb.edu", 0);
+
+    // act
+    adminRoleResolver.invalidate("user@ucsb.edu");
+    adminRoleResolver.isAdmin("user@ucsb.edu", 1);
+    adminRoleResolver.isAdmin("admin@ucsb.edu", 1);
+    adminRoleResolver.invalidateAll();
+    adminRoleResolver.isAdmin("user@ucsb.edu", 2);
+    adminRoleResolver.isAdmin("admin@ucsb.edu", 2);
+
+    // assert
+    verify(userRepository, times(3)).findAdminByEmail("user@ucsb.edu");
+    verify(userRepository, times(2)).findAdminByEmail("admin@ucsb.edu");
+  }
+
+  @Test
+  public void full_cache_drops_expired_flags_first() {
+    // arrange: fill the cache with flags that expire at 1000, except the last one
+    when(userRepository.findAdminByEmail(anyString())).thenReturn(Optional.of(false));
+    for (int i = 0; i < AdminRoleResolver.MAX_ENTRIES - 1; i++) {
+      adminRoleResolver.isAdmin("user" + i + "@ucsb.edu", 0);
+    }
+    adminRoleResolver.isAdmin("recent@ucsb.edu", 500);
+
+    // act
+    adminRoleResolver.isAdmin("another@ucsb.edu", 1000);
+    adminRoleResolver.isAdmin("recent@ucsb.edu", 1000);
+    adminRoleResolver.isAdmin("user0@ucsb.edu", 1000);
+
+    // assert: the expired flags were dropped, the recent one was kept
+    verify(userRepository, times(1)).findAdminByEmail("recent@ucsb.edu");
+    verify(userRepository, times(2)).findAdminByEmail("user0@ucsb.edu");
+  }
+
+  @Test
+  public void full_cache_of_fresh_flags_is_cleared() {
+    // arrange
+    when(userRepository.findAdminByEmail(anyString())).thenReturn(Optional.of(false));
+    for (int i = 0; i < AdminRoleResolver.MAX_ENTRIES; i++) {
+      adminRoleResolver.isAdmin("user" + i + "@ucsb.edu", 0);
+    }
+
+    // act
+    adminRoleResolver.isAdmin("another@ucsb.edu", 1);
+    adminRoleResolver.isAdmin("another@ucsb.edu", 2);
+    adminRoleResolver.isAdmin("user0@ucsb.edu", 2);
+
+    // assert
+    verify(userRepository, times(1)).findAdminByEmail("another@ucsb.edu");
+    verify(userRepository, times(2)).findAdminByEmail("user0@ucsb.edu");
+  }
+}
@@ -0,0 +1,129 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.models.NearbyDiningCommons;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class DiningCommonsLocatorTests {
+
+  @Mock private UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @InjectMocks private DiningCommonsLocator diningCommonsLocator;
+
+  private final UCSBDiningCommons ortega =
+      UCSBDiningCommons.builder()
+          .code("ortega")
+          .hasSackMeal(true)
+          .latitude(34.410987)
+          .longitude(-119.84709)
+          .build();
+  private final UCSBDiningCommons carrillo =
+      UCSBDiningCommons.builder()
+          .code("carrillo")
+          .latitude(34.409953)
+          .longitude(-119.85277)
+          .build();
+  private final UCSBDiningCommons noLatitude =
+      UCSBDiningCommons.builder().code("nolat").longitude(-119.85).build();
+  private final UCSBDiningCommons noLongitude =
+      UCSBDiningCommons.builder().code("nolon").latitude(34.41).build();
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(diningCommonsLocator, "ttlMs", 1000L);
+    when(ucsbDiningCommonsRepository.findAll())
+        .thenReturn(List.of(ortega, carrillo, noLatitude, noLongitude));
+  }
+
+  private static List<String> codes(List<NearbyDiningCommons> nearest) {
+    return nearest.stream().map(nearby -> nearby.getCommons().getCode()).toList();
+  }
+
+  @Test
+  public void nearest_commons_with_a_location_are_found() {
+    // act
+    List<NearbyDiningCommons> nearest =
+        diningCommonsLocator.nearest(34.409953, -119.85277, 10, commons -> true);
+
+    // assert
+    assertEquals(List.of("carrillo", "ortega"), codes(nearest));
+    assertEquals(0.0, nearest.get(0).getDistanceMeters(), 1e-6);
+    assertEquals(533, nearest.get(1).getDistanceMeters(), 1);
+  }
+
+  @Test
+  public void filter_is_applied() {
+    // act
+    List<NearbyDiningCommons> nearest =
+        diningCommonsLocator.nearest(34.409953, -119.85277, 1, UCSBDiningCommons::getHasSackMeal);
+
+    // assert
+    assertEquals(List.of("ortega"), codes(nearest));
+  }
+
+  @Test
+  public void index_is_built_once_until_it_expires() {
+    // act
+    diningCommonsLocator.nearest(34.41, -119.85, 1, commons -> true, 0);
+    diningCommonsLocator.nearest(34.41, -119.85, 1, commons -> true, 999);
+    diningCommonsLocator.nearest(34.41, -119.85, 1, commons -> true, 1000);
+
+    // assert
+    verify(ucsbDiningCommonsRepository, times(2)).findAll();
+  }
+
+  @Test
+  public void index_is_rebuilt_after_invalidate() {
+    // arrange
+    diningCommonsLocator.nearest(34.41, -119.85, 1, commons -> true, 0);
+    when(ucsbDiningCommonsRepository.findAll()).thenReturn(List.of(carrillo));
+
+    // act
+    diningCommonsLocator.invalidate();
+    List<NearbyDiningCommons> nearest =
+        diningCommonsLocator.nearest(34.410987, -119.84709, 1, commons -> true, 1);
+
+    // assert
+    assertEquals(List.of("carrillo"), codes(nearest));
+    verify(ucsbDiningCommonsRepository, times(2)).findAll();
+  }
+
+  @Test
+  public void index_read_before_an_invalidate_is_not_kept() {
+    // arrange: a commons changes while the index is being read
+    when(ucsbDiningCommonsRepository.findAll())
+        .thenAnswer(
+            invocation -> {
+              diningCommonsLocator.invalidate();
+              return List.of(ortega);
+            })
+        .thenReturn(List.of(carrillo));
+
+    // act
+    List<NearbyDiningCommons> first =
+        diningCommonsLocator.nearest(34.409953, -119.85277, 1, commons -> true, 0);
+    List<NearbyDiningCommons> second =
+        diningCommonsLocator.nearest(34.409953, -119.85277, 1, commons -> true, 1);
+    List<NearbyDiningCommons> third =
+        diningCommonsLocator.nearest(34.409953, -119.85277, 1, commons -> true, 2);
+
+    // assert: the first index was used for its search only
+    assertEquals(List.of("ortega"), codes(first));
+    assertEquals(List.of("carrillo"), codes(second));
+    assertEquals(List.of("carrillo"), codes(third));
+    verify(ucsbDiningCommonsRepository, times(2)).findAll();
+  }
+}
@@ -0,0 +1,123 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.services.GeoKdTree.Neighbor;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.Test;
+
+public class GeoKdTreeTests {
+
+  /** A place, with its name and coordinates in degrees. */
+  private record Place(String name, double latitude, double longitude) {}
+
+  private static GeoKdTree<Place> tree(List<Place> places) {
+    return new GeoKdTree<>(places, Place::latitude, Place::longitude);
+  }
+
+  /** Great-circle distance in meters, by the haversine formula. */
+  private static double haversine(double lat1, double lon1, double lat2, double lon2) {
+    double dLat = Math.toRadians(lat2 - lat1);
+    double dLon = Math.toRadians(lon2 - lon1);
+    double a =
+        Math.pow(Math.sin(dLat / 2), 2)
+            + Math.cos(Math.toRadians(lat1))
+                * Math.cos(Math.toRadians(lat2))
+                * Math.pow(Math.sin(dLon / 2), 2);
+    return 2 * Math.asin(Math.sqrt(a)) * GeoKdTree.EARTH_RADIUS_METERS;
+  }
+
+  @Test
+  public void empty_tree_finds_nothing() {
+    // arrange
+    GeoKdTree<Place> tree = tree(List.of());
+
+    // act & assert
+    assertEquals(0, tree.size());
+    assertEquals(List.of(), tree.nearest(34.41, -119.85, 3, place -> true));
+  }
+
+  @Test
+  public void nearest_places_and_distances_are_those_of_a_linear_scan() {
+    // arrange
+    Random random = new Random(156);
+    List<Place> places = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      places.add(
+          new Place("p" + i, random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180));
+    }
+    GeoKdTree<Place> tree = tree(places);
+    Predicate<Place> even = place -> Integer.parseInt(place.name().substring(1)) % 2 == 0;
+
+    for (int query = 0; query < 200; query++) {
+      double latitude = random.nextDouble() * 180 - 90;
+      double longitude = random.nextDouble() * 360 - 180;
+      int count = 1 + query % 7;
+      Predicate<Place> filter = query % 2 == 0 ? place -> true : even;
+
+      // act
+      List<Neighbor<Place>> nearest = tree.nearest(latitude, longitude, count, filter);
+
+      // assert
+      List<Place> expected =
+          places.stream()
+              .filter(filter)
+              .sorted(
+                  Comparator.comparingDouble(
+                      place -> haversine(latitude, longitude, place.latitude(), place.longitude())))
+              .limit(count)
+              .toList();
+      assertEquals(expected, nearest.stream().map(Neighbor::place).toList());
+      for (Neighbor<Place> neighbor : nearest) {
+        Place place = neighbor.place();
+        assertEquals(
+            haversine(latitude, longitude, place.latitude(), place.longitude()),
+            neighbor.distanceMeters(),
+            1e-3);
+      }
+    }
+  }
+
+  @Test
+  public void distances_are_measured_across_the_antimeridian() {
+    // arrange
+    Place fiji = new Place("fiji", -17.7, 179.9);
+    Place samoa = new Place("samoa", -13.8, -171.8);
+    GeoKdTree<Place> tree = tree(List.of(samoa, fiji));
+
+    // act
+    List<Neighbor<Place>> nearest = tree.nearest(-17.7, -179.9, 2, place -> true);
+
+    // assert
+    assertEquals(List.of(fiji, samoa), nearest.stream().map(Neighbor::place).toList());
+    assertTrue(nearest.get(0).distanceMeters() < 25_000);
+  }
+
+  @Test
+  public void places_that_do_not_match_are_skipped() {
+    // arrange
+    Place ortega = new Place("ortega", 34.410987, -119.84709);
+    Place carrillo = new Place("carrillo", 34.409953, -119.85277);
+    Place portola = new Place("portola", 34.417723, -119.867427);
+    GeoKdTree<Place> tree = tree(List.of(ortega, carrillo, portola));
+
+    // act
+    List<Neighbor<Place>> nearest =
+        tree.nearest(34.410987, -119.84709, 5, place -> !place.name().equals("carrillo"));
+
+    // assert
+    assertEquals(List.of(ortega, portola), nearest.stream().map(Neighbor::place).toList());
+    assertEquals(0.0, nearest.get(0).distanceMeters(), 1e-6);
+  }
+
+  @Test
+  public void antipodal_distance_is_half_the_circumference() {
+    assertEquals(Math.PI * GeoKdTree.EARTH_RADIUS_METERS, GeoKdTree.meters(4.0), 1e-6);
+    assertEquals(Math.PI * GeoKdTree.EARTH_RADIUS_METERS, GeoKdTree.meters(4.0000001), 1e-6);
+  }
+}
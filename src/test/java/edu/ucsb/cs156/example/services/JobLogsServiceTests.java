@@ -5,8 +5,12 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.when;
 
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.models.JobLogTail;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
 import edu.ucsb.cs156.example.services.jobs.JobService;
+import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -18,6 +22,8 @@ public class JobLogsServiceTests {
 
   @Mock private JobsRepository jobRepository;
 
+  @Mock private JobLogLinesRepository jobLogLinesRepository;
+
   @InjectMocks private JobService jobService;
 
   @BeforeEach
@@ -40,6 +46,89 @@ public class JobLogsServiceTests {
     assertEquals("This is a job log", result);
   }
 
+  @Test
+  void test_getJobLogs_rebuilds_log_from_log_lines() {
+    // Arrange
+    Long jobId = 4L;
+    Job job = Job.builder().id(jobId).build();
+    job.setLog("legacy log that should be ignored");
+    when(jobRepository.findById(jobId)).thenReturn(Optional.of(job));
+    when(jobLogLinesRepository.findAllByJobIdAndSeqGreaterThanEqualOrderBySeqAsc(jobId, 0))
+        .thenReturn(
+            List.of(
+                JobLogLine.builder().jobId(jobId).seq(0).message("line one").build(),
+                JobLogLine.builder().jobId(jobId).seq(1).message("").build(),
+                JobLogLine.builder().jobId(jobId).seq(2).message("line three").build()));
+
+    // Act
+    String result = jobService.getJobLogs(jobId);
+
+    // Assert
+    assertEquals("line one\n\nline three", result);
+  }
+
+  @Test
+  void test_getJobLogsAfter_of_running_job_stops_at_a_line_not_yet_committed() {
+    // Arrange
+    Long jobId = 5L;
+    Job job = Job.builder().id(jobId).status("running").build();
+    when(jobRepository.findById(jobId)).thenReturn(Optional.of(job));
+    // the batch holding line 1 commits after the one holding line 2
+    when(jobLogLinesRepository.findAllByJobIdAndSeqGreaterThanEqualOrderBySeqAsc(jobId, 0))
+        .thenReturn(
+            List.of(
+                JobLogLine.builder().jobId(jobId).seq(0).message("zero").build(),
+                JobLogLine.builder().jobId(jobId).seq(2).message("two").build()));
+    when(jobLogLinesRepository.findAllByJobIdAndSeqGreaterThanEqualOrderBySeqAsc(jobId, 1))
+        .thenReturn(
+            List.of(
+                JobLogLine.builder().jobId(jobId).seq(1).message("one").build(),
+                JobLogLine.builder().jobId(jobId).seq(2).message("two").build()));
+
+    // Act
+    JobLogTail first = jobService.getJobLogsAfter(jobId, 0);
+    JobLogTail second = jobService.getJobLogsAfter(jobId, first.getNextOffset());
+
+    // Assert
+    assertEquals(new JobLogTail("zero", 1), first);
+    assertEquals(new JobLogTail("one\ntwo", 3), second);
+  }
+
+  @Test
+  void test_getJobLogsAfter_of_queued_job_returns_nothing_before_its_first_line() {
+    // Arrange
+    Long jobId = 5L;
+    Job job = Job.builder().id(jobId).status("queued").build();
+    when(jobRepository.findById(jobId)).thenReturn(Optional.of(job));
+    when(jobLogLinesRepository.findAllByJobIdAndSeqGreaterThanEqualOrderBySeqAsc(jobId, 3))
+        .thenReturn(List.of(JobLogLine.builder().jobId(jobId).seq(4).message("four").build()));
+
+    // Act
+    JobLogTail result = jobService.getJobLogsAfter(jobId, 3);
+
+    // Assert
+    assertEquals(new JobLogTail("", 3), result);
+  }
+
+  @Test
+  void test_getJobLogsAfter_of_finished_job_skips_lines_that_were_never_written() {
+    // Arrange
+    Long jobId = 5L;
+    Job job = Job.builder().id(jobId).status("complete").build();
+    when(jobRepository.findById(jobId)).thenReturn(Optional.of(job));
+    when(jobLogLinesRepository.findAllByJobIdAndSeqGreaterThanEqualOrderBySeqAsc(jobId, 0))
+        .thenReturn(
+            List.of(
+                JobLogLine.builder().jobId(jobId).seq(0).message("zero").build(),
+                JobLogLine.builder().jobId(jobId).seq(2).message("two").build()));
+
+    // Act
+    JobLogTail result = jobService.getJobLogsAfter(jobId, 0);
+
+    // Assert
+    assertEquals(new JobLogTail("zero\ntwo", 3), result);
+  }
+
   @Test
   void test_getJobLogs_with_null_log() {
     // Arrange
@@ -0,0 +1,112 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import jakarta.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+public class JsonStreamServiceTests {
+
+  @Mock private EntityManager entityManager;
+
+  @Mock private PlatformTransactionManager transactionManager;
+
+  @InjectMocks private JsonStreamService jsonStreamService;
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  private final TransactionStatus transaction = mock(TransactionStatus.class);
+
+  private final Restaurant first = Restaurant.builder().id(1L).name("Freebirds").build();
+
+  private final Restaurant second = Restaurant.builder().id(2L).name("Chipotle").build();
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(jsonStreamService, "mapper", mapper);
+    when(transactionManager.getTransaction(any())).thenReturn(transaction);
+  }
+
+  @Test
+  public void rows_are_written_as_an_array_in_a_read_only_transaction() throws Exception {
+    // arrange
+    AtomicBoolean closed = new AtomicBoolean();
+    Stream<Restaurant> rows = Stream.of(first, second).onClose(() -> closed.set(true));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    // act
+    jsonStreamService.jsonArray(() -> rows).writeTo(out);
+
+    // assert
+    assertEquals(mapper.writeValueAsString(List.of(first, second)), out.toString());
+    assertTrue(closed.get());
+    InOrder inOrder = inOrder(transactionManager, entityManager);
+    inOrder.verify(transactionManager).getTransaction(argThat(def -> def.isReadOnly()));
+    inOrder.verify(entityManager).detach(first);
+    inOrder.verify(entityManager).detach(second);
+    inOrder.verify(transactionManager).commit(transaction);
+  }
+
+  @Test
+  public void no_rows_are_written_as_an_empty_array() throws Exception {
+    // arrange
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    // act
+    jsonStreamService.jsonArray(Stream::empty).writeTo(out);
+
+    // assert
+    assertEquals("[]", out.toString());
+  }
+
+  @Test
+  public void write_error_rolls_back_and_is_rethrown() throws Exception {
+    // arrange
+    IOException error = new IOException("Broken pipe");
+    OutputStream out =
+        new OutputStream() {
+          @Override
+          public void write(int b) throws IOException {
+            throw error;
+          }
+        };
+    AtomicBoolean closed = new AtomicBoolean();
+    Stream<Restaurant> rows = Stream.of(first).onClose(() -> closed.set(true));
+
+    // act
+    IOException thrown =
+        assertThrows(IOException.class, () -> jsonStreamService.jsonArray(() -> rows).writeTo(out));
+
+    // assert
+    assertEquals(error, thrown);
+    assertTrue(closed.get());
+    verify(transactionManager).rollback(transaction);
+    verify(transactionManager, never()).commit(any());
+  }
+}
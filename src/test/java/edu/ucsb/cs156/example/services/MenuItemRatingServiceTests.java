@@ -0,0 +1,366 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.MenuItemRating;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+public class MenuItemRatingServiceTests {
+
+  private static final LocalDateTime JAN = LocalDateTime.parse("2024-01-01T12:00:00");
+  private static final LocalDateTime FEB = LocalDateTime.parse("2024-02-01T12:00:00");
+
+  @Mock private MenuItemReviewRepository menuItemReviewRepository;
+
+  @Mock private MenuItemRatingRepository menuItemRatingRepository;
+
+  @Mock private PlatformTransactionManager transactionManager;
+
+  @InjectMocks private MenuItemRatingService menuItemRatingService;
+
+  private final TransactionStatus transaction = mock(TransactionStatus.class);
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    when(transactionManager.getTransaction(any())).thenReturn(transaction);
+    when(menuItemReviewRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+  }
+
+  private static MenuItemReview review(long id, long itemId, int stars, LocalDateTime date) {
+    return MenuItemReview.builder()
+        .id(id)
+        .itemId(itemId)
+        .reviewerEmail("cgaucho@ucsb.edu")
+        .stars(stars)
+        .dateReviewed(date)
+        .comments("good")
+        .build();
+  }
+
+  private static MenuItemRating rating(long itemId, MenuItemReview... reviews) {
+    MenuItemRating rating = MenuItemRating.builder().itemId(itemId).version(0L).build();
+    for (MenuItemReview review : reviews) {
+      rating.add(review);
+    }
+    return rating;
+  }
+
+  private void stubRating(MenuItemRating rating) {
+    when(menuItemRatingRepository.existsById(rating.getItemId())).thenReturn(true);
+    when(menuItemRatingRepository.findLockedByItemId(rating.getItemId()))
+        .thenReturn(Optional.of(rating));
+  }
+
+  private void stubReview(MenuItemReview review) {
+    when(menuItemReviewRepository.findById(review.getId())).thenReturn(Optional.of(review));
+    when(menuItemReviewRepository.findLockedById(review.getId())).thenReturn(Optional.of(review));
+  }
+
+  @Test
+  public void posted_review_is_counted_in_the_rating() {
+    // arrange
+    MenuItemRating rating = rating(1, review(1, 1, 2, JAN));
+    stubRating(rating);
+    MenuItemReview posted = review(0, 1, 5, FEB);
+
+    // act
+    MenuItemReview result = menuItemRatingService.post(posted);
+
+    // assert
+    assertSame(posted, result);
+    assertEquals(2, rating.getReviewCount());
+    assertEquals(7, rating.getTotalStars());
+    assertEquals(FEB, rating.getLastReviewed());
+    verify(menuItemReviewRepository, never()).findAllByItemId(anyLong());
+    verify(transactionManager).commit(transaction);
+  }
+
+  @Test
+  public void rating_is_created_from_the_reviews_before_the_first_change() {
+    // arrange
+    MenuItemRating stored = rating(1);
+    when(menuItemRatingRepository.existsById(1L)).thenReturn(false);
+    when(menuItemReviewRepository.findAllByItemId(1L))
+        .thenReturn(List.of(review(1, 1, 3, JAN), review(2, 1, 4, JAN)));
+    when(menuItemRatingRepository.findLockedByItemId(1L)).thenReturn(Optional.of(stored));
+
+    // act
+    menuItemRatingService.post(review(0, 1, 5, FEB));
+
+    // assert
+    ArgumentCaptor<MenuItemRating> created = ArgumentCaptor.forClass(MenuItemRating.class);
+    verify(menuItemRatingRepository).save(created.capture());
+    assertEquals(1, created.getValue().getItemId());
+    assertEquals(2, created.getValue().getReviewCount());
+    assertEquals(7, created.getValue().getTotalStars());
+    assertEquals(JAN, created.getValue().getLastReviewed());
+  }
+
+  @Test
+  public void rating_created_by_a_concurrent_change_is_used() {
+    // arrange
+    MenuItemRating stored = rating(1);
+    when(menuItemRatingRepository.existsById(1L)).thenReturn(false);
+    when(menuItemRatingRepository.save(any()))
+        .thenThrow(new DataIntegrityViolationException("duplicate key"));
+    when(menuItemRatingRepository.findLockedByItemId(1L)).thenReturn(Optional.of(stored));
+
+    // act
+    menuItemRatingService.post(review(0, 1, 5, FEB));
+
+    // assert
+    assertEquals(1, stored.getReviewCount());
+    verify(transactionManager).commit(transaction);
+  }
+
+  @Test
+  public void missing_rating_is_an_error() {
+    // arrange
+    when(menuItemRatingRepository.existsById(1L)).thenReturn(true);
+    when(menuItemRatingRepository.findLockedByItemId(1L)).thenReturn(Optional.empty());
+
+    // act
+    IllegalStateException e =
+        assertThrows(
+            IllegalStateException.class, () -> menuItemRatingService.post(review(0, 1, 5, FEB)));
+
+    // assert
+    assertEquals("no rating for menu item 1", e.getMessage());
+    verify(menuItemReviewRepository, never()).save(any());
+    verify(transactionManager).rollback(transaction);
+  }
+
+  @Test
+  public void edit_of_a_review_replaces_it_in_the_rating() {
+    // arrange
+    MenuItemReview stored = review(7, 1, 2, FEB);
+    MenuItemRating rating = rating(1, review(6, 1, 4, JAN), stored);
+    stubRating(rating);
+    stubReview(stored);
+    when(menuItemReviewRepository.findLastReviewedByItemId(1L)).thenReturn(JAN);
+    MenuItemReview incoming = review(0, 1, 5, JAN);
+
+    // act
+    MenuItemReview result = menuItemRatingService.update(7, incoming);
+
+    // assert
+    assertEquals(review(7, 1, 5, JAN), result);
+    assertEquals(2, rating.getReviewCount());
+    assertEquals(9, rating.getTotalStars());
+    assertEquals(List.of(0L, 0L, 0L, 0L, 1L, 1L), rating.getHistogram());
+    assertEquals(JAN, rating.getLastReviewed());
+    verify(transactionManager).commit(transaction);
+  }
+
+  @Test
+  public void review_moved_to_another_item_moves_between_ratings() {
+    // arrange
+    MenuItemReview stored = review(7, 5, 2, FEB);
+    MenuItemRating from = rating(5, review(6, 5, 4, JAN), stored);
+    MenuItemRating to = rating(3);
+    stubRating(from);
+    stubRating(to);
+    stubReview(stored);
+    when(menuItemReviewRepository.findLastReviewedByItemId(5L)).thenReturn(JAN);
+
+    // act
+    menuItemRatingService.update(7, review(0, 3, 1, FEB));
+
+    // assert
+    assertEquals(1, from.getReviewCount());
+    assertEquals(4, from.getTotalStars());
+    assertEquals(JAN, from.getLastReviewed());
+    assertEquals(1, to.getReviewCount());
+    assertEquals(1, to.getTotalStars());
+    assertEquals(FEB, to.getLastReviewed());
+    InOrder inOrder = inOrder(menuItemRatingRepository);
+    inOrder.verify(menuItemRatingRepository).findLockedByItemId(3L);
+    inOrder.verify(menuItemRatingRepository).findLockedByItemId(5L);
+  }
+
+  @Test
+  public void ratings_are_locked_in_order_of_item_id() {
+    // arrange
+    MenuItemReview stored = review(7, 3, 2, FEB);
+    MenuItemRating from = rating(3, stored);
+    MenuItemRating to = rating(5);
+    stubRating(from);
+    stubRating(to);
+    stubReview(stored);
+
+    // act
+    menuItemRatingService.update(7, review(0, 5, 1, FEB));
+
+    // assert
+    assertEquals(0, from.getReviewCount());
+    assertEquals(1, to.getReviewCount());
+    InOrder inOrder = inOrder(menuItemRatingRepository);
+    inOrder.verify(menuItemRatingRepository).findLockedByItemId(3L);
+    inOrder.verify(menuItemRatingRepository).findLockedByItemId(5L);
+  }
+
+  @Test
+  public void edit_of_review_moved_meanwhile_creates_the_rating_and_tries_again() {
+    // arrange
+    MenuItemReview moved = review(7, 9, 2, FEB);
+    MenuItemRating from = rating(9, moved);
+    MenuItemRating to = rating(3);
+    stubRating(rating(1));
+    stubRating(to);
+    when(menuItemReviewRepository.findById(7L)).thenReturn(Optional.of(review(7, 1, 2, FEB)));
+    when(menuItemReviewRepository.findLockedById(7L)).thenReturn(Optional.of(moved));
+    when(menuItemRatingRepository.existsById(9L)).thenReturn(false);
+    when(menuItemReviewRepository.findAllByItemId(9L)).thenReturn(List.of(moved));
+    when(menuItemRatingRepository.findLockedByItemId(9L))
+        .thenReturn(Optional.empty(), Optional.of(from));
+
+    // act
+    menuItemRatingService.update(7, review(0, 3, 1, FEB));
+
+    // assert
+    ArgumentCaptor<MenuItemRating> created = ArgumentCaptor.forClass(MenuItemRating.class);
+    verify(menuItemRatingRepository).save(created.capture());
+    assertEquals(9, created.getValue().getItemId());
+    assertEquals(0, from.getReviewCount());
+    assertEquals(1, to.getReviewCount());
+    InOrder inOrder = inOrder(transactionManager);
+    inOrder.verify(transactionManager).rollback(transaction);
+    inOrder.verify(transactionManager).commit(transaction);
+  }
+
+  @Test
+  public void edit_is_tried_again_only_once() {
+    // arrange
+    stubRating(rating(1));
+    stubRating(rating(3));
+    when(menuItemReviewRepository.findById(7L)).thenReturn(Optional.of(review(7, 1, 2, FEB)));
+    when(menuItemReviewRepository.findLockedById(7L)).thenReturn(Optional.of(review(7, 9, 2, FEB)));
+    when(menuItemRatingRepository.existsById(9L)).thenReturn(true);
+    when(menuItemRatingRepository.findLockedByItemId(9L)).thenReturn(Optional.empty());
+
+    // act
+    IllegalStateException e =
+        assertThrows(
+            IllegalStateException.class,
+            () -> menuItemRatingService.update(7, review(0, 3, 1, FEB)));
+
+    // assert
+    assertEquals("no rating for menu item 9", e.getMessage());
+    verify(menuItemReviewRepository, never()).save(any());
+    verify(transactionManager, times(2)).rollback(transaction);
+  }
+
+  @Test
+  public void edit_of_missing_review_is_not_found() {
+    // arrange
+    when(menuItemReviewRepository.findById(7L)).thenReturn(Optional.empty());
+
+    // act
+    EntityNotFoundException e =
+        assertThrows(
+            EntityNotFoundException.class,
+            () -> menuItemRatingService.update(7, review(0, 1, 5, FEB)));
+
+    // assert
+    assertEquals("MenuItemReview with id 7 not found", e.getMessage());
+    verify(transactionManager, never()).getTransaction(any());
+  }
+
+  @Test
+  public void edit_of_review_deleted_meanwhile_is_not_found() {
+    // arrange
+    stubRating(rating(1));
+    when(menuItemReviewRepository.findById(7L)).thenReturn(Optional.of(review(7, 1, 2, JAN)));
+    when(menuItemReviewRepository.findLockedById(7L)).thenReturn(Optional.empty());
+
+    // act
+    assertThrows(
+        EntityNotFoundException.class, () -> menuItemRatingService.update(7, review(0, 1, 5, FEB)));
+
+    // assert
+    verify(menuItemReviewRepository, never()).save(any());
+    verify(transactionManager).rollback(transaction);
+  }
+
+  @Test
+  public void deleted_review_is_no_longer_counted() {
+    // arrange
+    MenuItemReview stored = review(7, 1, 2, FEB);
+    MenuItemRating rating = rating(1, review(6, 1, 4, JAN), stored);
+    stubRating(rating);
+    stubReview(stored);
+    when(menuItemReviewRepository.findLastReviewedByItemId(1L)).thenReturn(JAN);
+
+    // act
+    menuItemRatingService.delete(7);
+
+    // assert
+    verify(menuItemReviewRepository).delete(stored);
+    assertEquals(1, rating.getReviewCount());
+    assertEquals(4, rating.getTotalStars());
+    assertEquals(JAN, rating.getLastReviewed());
+    verify(transactionManager).commit(transaction);
+  }
+
+  @Test
+  public void delete_of_review_moved_meanwhile_creates_the_rating_and_tries_again() {
+    // arrange
+    MenuItemReview moved = review(7, 9, 2, FEB);
+    MenuItemRating rating = rating(9, moved);
+    stubRating(rating(1));
+    when(menuItemReviewRepository.findById(7L)).thenReturn(Optional.of(review(7, 1, 2, FEB)));
+    when(menuItemReviewRepository.findLockedById(7L)).thenReturn(Optional.of(moved));
+    when(menuItemRatingRepository.existsById(9L)).thenReturn(false);
+    when(menuItemRatingRepository.findLockedByItemId(9L))
+        .thenReturn(Optional.empty(), Optional.of(rating));
+
+    // act
+    menuItemRatingService.delete(7);
+
+    // assert
+    verify(menuItemReviewRepository, times(1)).delete(moved);
+    assertEquals(0, rating.getReviewCount());
+    verify(transactionManager).commit(transaction);
+  }
+
+  @Test
+  public void delete_of_missing_review_is_not_found() {
+    // arrange
+    when(menuItemReviewRepository.findById(7L)).thenReturn(Optional.empty());
+
+    // act
+    EntityNotFoundException e =
+        assertThrows(EntityNotFoundException.class, () -> menuItemRatingService.delete(7));
+
+    // assert
+    assertEquals("MenuItemReview with id 7 not found", e.getMessage());
+    verify(menuItemReviewRepository, never()).delete(any());
+  }
+}
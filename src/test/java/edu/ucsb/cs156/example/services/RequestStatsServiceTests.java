@@ -0,0 +1,179 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import edu.ucsb.cs156.example.controllers.RestaurantsController;
+import edu.ucsb.cs156.example.models.HandlerLatency;
+import edu.ucsb.cs156.example.models.RequestStats;
+import edu.ucsb.cs156.example.models.SlowRequest;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class RequestStatsServiceTests {
+
+  private RequestStatsService requestStatsService;
+
+  private Method all;
+  private Method getById;
+
+  private static long millis(long ms) {
+    return TimeUnit.MILLISECONDS.toNanos(ms);
+  }
+
+  private static MockHttpServletRequest request(String uri) {
+    return new MockHttpServletRequest("GET", uri);
+  }
+
+  @BeforeEach
+  public void setup() throws Exception {
+    requestStatsService = new RequestStatsService();
+    ReflectionTestUtils.setField(requestStatsService, "slowestSize", 3);
+    all = RestaurantsController.class.getMethod("allRestaurants");
+    getById = RestaurantsController.class.getMethod("getById", Long.class);
+  }
+
+  @Test
+  public void no_requests_have_no_stats() {
+    // act
+    RequestStats stats = requestStatsService.getStats();
+
+    // assert
+    assertEquals(List.of(), stats.getHandlers());
+    assertEquals(List.of(), stats.getSlowest());
+  }
+
+  @Test
+  public void latencies_are_kept_per_handler_slowest_p99_first() {
+    // arrange
+    for (int ms = 1; ms <= 100; ms++) {
+      requestStatsService.record(all, millis(ms), null);
+    }
+    requestStatsService.record(getById, millis(500), null);
+
+    // act
+    List<HandlerLatency> handlers = requestStatsService.getStats().getHandlers();
+
+    // assert
+    assertEquals(2, handlers.size());
+    HandlerLatency slow = handlers.get(0);
+    assertEquals("RestaurantsController", slow.getController());
+    assertEquals("getById", slow.getHandler());
+    assertEquals(1, slow.getCount());
+    assertEquals(500, slow.getMaxMs(), 5);
+
+    HandlerLatency fast = handlers.get(1);
+    assertEquals("allRestaurants", fast.getHandler());
+    assertEquals(100, fast.getCount());
+    assertEquals(50, fast.getP50Ms(), 0.5);
+    assertEquals(95, fast.getP95Ms(), 1);
+    assertEquals(99, fast.getP99Ms(), 1);
+    assertEquals(100, fast.getMaxMs(), 1);
+  }
+
+  @Test
+  public void requests_recorded_after_reading_are_added_to_the_totals() {
+    // arrange
+    requestStatsService.record(all, millis(10), null);
+    requestStatsService.getStats();
+
+    // act
+    requestStatsService.record(all, millis(30), null);
+    HandlerLatency latency = requestStatsService.getStats().getHandlers().get(0);
+
+    // assert
+    assertEquals(2, latency.getCount());
+    assertEquals(30, latency.getMaxMs(), 0.3);
+  }
+
+  @Test
+  public void only_the_slowest_requests_are_kept_slowest_first() {
+    // arrange
+    requestStatsService.record(all, millis(20), request("/api/restaurants/all"));
+    requestStatsService.record(getById, millis(40), request("/api/restaurants"));
+    requestStatsService.record(all, millis(10), request("/api/restaurants/all"));
+    requestStatsService.record(all, millis(30), request("/api/restaurants/all"));
+    requestStatsService.record(all, millis(5), request("/api/restaurants/all"));
+    requestStatsService.record(all, millis(10), request("/api/restaurants/all"));
+
+    // act
+    List<SlowRequest> slowest = requestStatsService.getStats().getSlowest();
+
+    // assert
+    assertEquals(
+        List.of(40.0, 30.0, 20.0), slowest.stream().map(SlowRequest::getDurationMs).toList());
+    SlowRequest first = slowest.get(0);
+    assertEquals("GET", first.getMethod());
+    assertEquals("/api/restaurants", first.getUri());
+    assertEquals("RestaurantsController", first.getController());
+    assertEquals("getById", first.getHandler());
+    assertNotNull(first.getAt());
+  }
+
+  @Test
+  public void request_as_slow_as_the_fastest_kept_one_is_not_kept() {
+    // arrange
+    requestStatsService.record(all, millis(20), request("/first"));
+    requestStatsService.record(all, millis(30), request("/second"));
+    requestStatsService.record(all, millis(40), request("/third"));
+    // the threshold is only read before taking the lock
+    ReflectionTestUtils.setField(requestStatsService, "slowestThreshold", -1L);
+
+    // act
+    requestStatsService.record(all, millis(20), request("/fourth"));
+
+    // assert
+    assertEquals(
+        List.of("/third", "/second", "/first"),
+        requestStatsService.getStats().getSlowest().stream().map(SlowRequest::getUri).toList());
+  }
+
+  @Test
+  public void no_slow_requests_are_kept_when_slowest_is_0() {
+    // arrange
+    ReflectionTestUtils.setField(requestStatsService, "slowestSize", 0);
+
+    // act
+    requestStatsService.record(all, millis(20), request("/api/restaurants/all"));
+    RequestStats stats = requestStatsService.getStats();
+
+    // assert
+    assertEquals(1, stats.getHandlers().get(0).getCount());
+    assertEquals(List.of(), stats.getSlowest());
+  }
+
+  @Test
+  public void handler_called_outside_a_request_has_no_uri() {
+    // act
+    requestStatsService.record(all, millis(20), null);
+
+    // assert
+    SlowRequest slow = requestStatsService.getStats().getSlowest().get(0);
+    assertNull(slow.getMethod());
+    assertNull(slow.getUri());
+  }
+
+  @Test
+  public void reset_forgets_everything() {
+    // arrange
+    requestStatsService.record(all, millis(20), null);
+    requestStatsService.record(all, millis(30), null);
+    requestStatsService.record(all, millis(40), null);
+
+    // act
+    requestStatsService.reset();
+    requestStatsService.record(all, millis(1), null);
+
+    // assert
+    RequestStats stats = requestStatsService.getStats();
+    assertEquals(1, stats.getHandlers().get(0).getCount());
+    assertEquals(
+        List.of(1.0), stats.getSlowest().stream().map(SlowRequest::getDurationMs).toList());
+  }
+}
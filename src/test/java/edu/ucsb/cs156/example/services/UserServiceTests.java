@@ -0,0 +1,135 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+
+public class UserServiceTests {
+
+  @Mock private UserRepository userRepository;
+
+  @Mock private AdminRoleResolver adminRoleResolver;
+
+  @InjectMocks private UserService userService;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  private static User user(long id, boolean admin) {
+    return User.builder().id(id).email("cgaucho@ucsb.edu").admin(admin).build();
+  }
+
+  @Test
+  public void new_user_is_inserted() {
+    // arrange
+    User loggedIn = user(0, false);
+    User saved = user(1, false);
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.empty());
+    when(userRepository.save(loggedIn)).thenReturn(saved);
+
+    // act
+    User result = userService.upsert(loggedIn);
+
+    // assert
+    assertSame(saved, result);
+    verify(userRepository, never()).makeAdmin(anyString());
+  }
+
+  @Test
+  public void existing_user_is_returned_without_writing() {
+    // arrange
+    User stored = user(1, true);
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(stored));
+
+    // act
+    User result = userService.upsert(user(0, false));
+
+    // assert
+    assertSame(stored, result);
+    verify(userRepository, never()).save(any());
+    verify(userRepository, never()).makeAdmin(anyString());
+  }
+
+  @Test
+  public void existing_admin_is_not_made_an_admin_again() {
+    // arrange
+    User stored = user(1, true);
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(stored));
+
+    // act
+    User result = userService.upsert(user(0, true));
+
+    // assert
+    assertSame(stored, result);
+    verify(userRepository, never()).makeAdmin(anyString());
+  }
+
+  @Test
+  public void existing_user_is_made_an_admin() {
+    // arrange
+    User stored = user(1, false);
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(stored));
+
+    // act
+    User result = userService.upsert(user(0, true));
+
+    // assert
+    assertSame(stored, result);
+    assertTrue(result.getAdmin());
+    verify(userRepository).makeAdmin("cgaucho@ucsb.edu");
+    verify(adminRoleResolver).invalidate("cgaucho@ucsb.edu");
+    verify(userRepository, never()).save(any());
+  }
+
+  @Test
+  public void user_inserted_by_a_concurrent_login_is_read_back() {
+    // arrange
+    User stored = user(1, false);
+    when(userRepository.findByEmail("cgaucho@ucsb.edu"))
+        .thenReturn(Optional.empty())
+        .thenReturn(Optional.of(stored));
+    when(userRepository.save(any()))
+        .thenThrow(new DataIntegrityViolationException("USERS_EMAIL_IDX"));
+
+    // act
+    User result = userService.upsert(user(0, true));
+
+    // assert
+    assertSame(stored, result);
+    verify(userRepository).makeAdmin("cgaucho@ucsb.edu");
+  }
+
+  @Test
+  public void failed_insert_is_rethrown_when_no_user_was_inserted() {
+    // arrange
+    DataIntegrityViolationException error = new DataIntegrityViolationException("other");
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.empty());
+    when(userRepository.save(any())).thenThrow(error);
+
+    // act
+    DataIntegrityViolationException thrown =
+        assertThrows(
+            DataIntegrityViolationException.class, () -> userService.upsert(user(0, false)));
+
+    // assert
+    assertEquals(error, thrown);
+  }
+}
@@ -1,9 +1,28 @@
 package edu.ucsb.cs156.example.services.jobs;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
 
 public class JobContextTests {
   @Test
@@ -18,6 +37,266 @@ public class JobContextTests {
     ctx.log("This is a log message");
 
     // assert
-    assertEquals("This is a log message", job1.getLog());
+    assertNull(job1.getLog());
+    assertEquals(job1, ctx.getJob());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void log_appends_numbered_lines_without_touching_the_job_row() throws Exception {
+
+    // arrange
+
+    JobLogLinesRepository jobLogLinesRepository = mock(JobLogLinesRepository.class);
+    Job job1 = Job.builder().id(17L).build();
+    JobContext ctx = new JobContext(jobLogLinesRepository, job1);
+
+    // act
+    ctx.log("first");
+    ctx.logError("second");
+
+    // assert
+    ArgumentCaptor<List<JobLogLine>> captor = ArgumentCaptor.forClass(List.class);
+    verify(jobLogLinesRepository, times(2)).appendAll(captor.capture());
+    List<List<JobLogLine>> batches = captor.getAllValues();
+    assertEquals(1, batches.get(0).size());
+    assertEquals(1, batches.get(1).size());
+    JobLogLine first = batches.get(0).get(0);
+    JobLogLine second = batches.get(1).get(0);
+
+    assertEquals(17L, first.getJobId());
+    assertEquals(0, first.getSeq());
+    assertEquals("INFO", first.getLevel());
+    assertEquals("first", first.getMessage());
+    assertNotNull(first.getLoggedAt());
+
+    assertEquals(17L, second.getJobId());
+    assertEquals(1, second.getSeq());
+    assertEquals("ERROR", second.getLevel());
+    assertEquals("second", second.getMessage());
+
+    assertNull(job1.getLog());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void buffered_context_flushes_when_line_threshold_is_reached() throws Exception {
+
+    // arrange
+
+    JobLogLinesRepository jobLogLinesRepository = mock(JobLogLinesRepository.class);
+    Job job1 = Job.builder().id(3L).build();
+    JobContext ctx = new JobContext(jobLogLinesRepository, job1, 3, 60_000);
+
+    // act
+    ctx.log("one");
+    ctx.log("two");
+
+    // assert
+    verify(jobLogLinesRepository, never()).appendAll(any());
+
+    // act
+    ctx.log("three");
+    ctx.log("four");
+
+    // assert
+    ArgumentCaptor<List<JobLogLine>> captor = ArgumentCaptor.forClass(List.class);
+    verify(jobLogLinesRepository, times(1)).appendAll(captor.capture());
+    assertEquals(
+        List.of("one", "two", "three"),
+        captor.getValue().stream().map(JobLogLine::getMessage).toList());
+
+    // act
+    ctx.flush();
+
+    // assert
+    verify(jobLogLinesRepository, times(2)).appendAll(captor.capture());
+    assertEquals(1, captor.getValue().size());
+    assertEquals("four", captor.getValue().get(0).getMessage());
+    assertEquals(3, captor.getValue().get(0).getSeq());
+  }
+
+  @Test
+  public void buffered_context_flushes_when_interval_has_passed() throws Exception {
+
+    // arrange
+
+    JobLogLinesRepository jobLogLinesRepository = mock(JobLogLinesRepository.class);
+    Job job1 = Job.builder().id(3L).build();
+    JobContext ctx = new JobContext(jobLogLinesRepository, job1, 100, 0);
+
+    // act
+    ctx.log("one");
+    ctx.log("two");
+
+    // assert
+    verify(jobLogLinesRepository, times(2)).appendAll(any());
+  }
+
+  @Test
+  public void failed_flush_keeps_its_lines_for_the_next_flush() throws Exception {
+
+    // arrange
+
+    JobLogLinesRepository jobLogLinesRepository = mock(JobLogLinesRepository.class);
+    List<List<String>> written = new ArrayList<>();
+    doThrow(new DataAccessResourceFailureException("database down"))
+        .doAnswer(
+            invocation -> {
+              List<JobLogLine> lines = invocation.getArgument(0);
+              written.add(lines.stream().map(JobLogLine::getMessage).toList());
+              return null;
+            })
+        .when(jobLogLinesRepository)
+        .appendAll(any());
+    JobContext ctx =
+        new JobContext(jobLogLinesRepository, Job.builder().id(4L).build(), 100, 60_000);
+    ctx.log("one");
+
+    // act
+    assertThrows(DataAccessResourceFailureException.class, () -> ctx.flush());
+    ctx.log("two");
+    ctx.flush();
+
+    // assert
+    assertEquals(List.of(List.of("one", "two")), written);
+  }
+
+  @Test
+  public void flush_with_nothing_pending_does_not_write() throws Exception {
+
+    // arrange
+
+    JobLogLinesRepository jobLogLinesRepository = mock(JobLogLinesRepository.class);
+    JobContext ctx = new JobContext(jobLogLinesRepository, Job.builder().build(), 100, 60_000);
+
+    // act
+    ctx.flush();
+
+    // assert
+    verify(jobLogLinesRepository, never()).appendAll(any());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void flush_waits_for_a_flush_on_another_thread_to_finish_writing() throws Exception {
+
+    // arrange
+
+    JobLogLinesRepository jobLogLinesRepository = mock(JobLogLinesRepository.class);
+    JobContext ctx =
+        new JobContext(jobLogLinesRepository, Job.builder().id(3L).build(), 100, 60_000);
+    CountDownLatch writing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(
+            invocation -> {
+              writing.countDown();
+              release.await();
+              return null;
+            })
+        .doNothing()
+        .when(jobLogLinesRepository)
+        .appendAll(any());
+    ctx.log("one");
+    Thread first = new Thread(ctx::flush);
+    first.start();
+    writing.await();
+    ctx.log("two");
+
+    // act
+    Thread second = new Thread(ctx::flush);
+    second.start();
+    second.join(200);
+
+    // assert
+    assertTrue(second.isAlive());
+    verify(jobLogLinesRepository, times(1)).appendAll(any());
+
+    // act
+    release.countDown();
+    first.join();
+    second.join();
+
+    // assert
+    ArgumentCaptor<List<JobLogLine>> captor = ArgumentCaptor.forClass(List.class);
+    verify(jobLogLinesRepository, times(2)).appendAll(captor.capture());
+    assertEquals("one", captor.getAllValues().get(0).get(0).getMessage());
+    assertEquals("two", captor.getAllValues().get(1).get(0).getMessage());
+  }
+
+  @Test
+  public void progress_is_kept_in_memory_until_taken() throws Exception {
+
+    // arrange
+
+    JobLogLinesRepository jobLogLinesRepository = mock(JobLogLinesRepository.class);
+    JobContext ctx = new JobContext(jobLogLinesRepository, Job.builder().id(3L).build());
+
+    // act & assert
+
+    assertNull(ctx.takeProgressUpdate());
+
+    ctx.phase("downloading");
+    ctx.progress(2, 10);
+    ctx.advance(3);
+
+    assertEquals(new JobContext.Progress("downloading", 5, 10), ctx.takeProgressUpdate());
+    assertNull(ctx.takeProgressUpdate());
+
+    ctx.advance(1);
+    assertEquals(new JobContext.Progress("downloading", 6, 10), ctx.takeProgressUpdate());
+    assertEquals(new JobContext.Progress("downloading", 6, 10), ctx.getProgress());
+    verify(jobLogLinesRepository, never()).appendAll(any());
+  }
+
+  @Test
+  public void job_without_timeout_is_only_stopped_when_cancelled() throws Exception {
+
+    // arrange
+
+    JobContext ctx = new JobContext(null, Job.builder().id(4L).build());
+    ctx.start(0);
+
+    // act & assert
+
+    ctx.enforceLimits(Long.MAX_VALUE / 2, 0);
+    assertFalse(ctx.isCancelled());
+    assertNull(ctx.getStopStatus());
+
+    ctx.stop("cancelled");
+    ctx.stop("timeout");
+    assertTrue(ctx.isCancelled());
+    assertEquals("cancelled", ctx.getStopStatus());
+
+    ctx.finish();
+    ctx.enforceLimits(Long.MAX_VALUE / 2, 0);
+    assertFalse(Thread.interrupted());
+  }
+
+  @Test
+  public void job_past_its_deadline_times_out_and_is_interrupted_once_after_grace_period()
+      throws Exception {
+
+    // arrange
+
+    JobContext ctx = new JobContext(null, Job.builder().id(5L).build());
+    long now = System.currentTimeMillis();
+    ctx.start(1000);
+
+    // act & assert
+
+    ctx.enforceLimits(now, 5000);
+    assertFalse(ctx.isCancelled());
+
+    ctx.enforceLimits(now + 2000, 5000);
+    assertEquals("timeout", ctx.getStopStatus());
+    assertFalse(Thread.interrupted());
+
+    ctx.enforceLimits(now + 7000, 5000);
+    assertTrue(Thread.interrupted());
+
+    ctx.enforceLimits(now + 8000, 5000);
+    assertFalse(Thread.interrupted());
+    ctx.finish();
   }
 }
@@ -0,0 +1,170 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public class JobLogStreamServiceTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private JobLogLinesRepository jobLogLinesRepository;
+
+  @Mock private TaskScheduler taskScheduler;
+
+  @InjectMocks private JobLogStreamService jobLogStreamService;
+
+  private final ScheduledFuture<?> future = mock(ScheduledFuture.class);
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(jobLogStreamService, "pollIntervalMs", 1000L);
+    ReflectionTestUtils.setField(jobLogStreamService, "timeoutMs", 60_000L);
+    when(jobsRepository.existsById(1L)).thenReturn(true);
+    when(taskScheduler.scheduleWithFixedDelay(any(Runnable.class), any(Duration.class)))
+        .thenAnswer(invocation -> future);
+  }
+
+  private Runnable startStream(int after) {
+    jobLogStreamService.stream(1L, after);
+    ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+    verify(taskScheduler).scheduleWithFixedDelay(captor.capture(), any(Duration.class));
+    return captor.getValue();
+  }
+
+  @Test
+  public void stream_keeps_polling_while_job_is_running() throws Exception {
+    // arrange
+    when(jobsRepository.findById(1L))
+        .thenReturn(Optional.of(Job.builder().id(1L).status("running").build()));
+    when(jobLogLinesRepository.findAllByJobIdAndSeqGreaterThanEqualOrderBySeqAsc(1L, 3))
+        .thenReturn(List.of(JobLogLine.builder().jobId(1L).seq(3).message("four").build()));
+    Runnable poll = startStream(3);
+
+    // act
+    poll.run();
+    poll.run();
+
+    // assert
+    verify(jobLogLinesRepository).findAllByJobIdAndSeqGreaterThanEqualOrderBySeqAsc(1L, 3);
+    verify(jobLogLinesRepository).findAllByJobIdAndSeqGreaterThanEqualOrderBySeqAsc(1L, 4);
+    verify(future, never()).cancel(false);
+  }
+
+  @Test
+  public void stream_waits_for_a_line_committed_after_later_ones() throws Exception {
+    // arrange
+    when(jobsRepository.findById(1L))
+        .thenReturn(Optional.of(Job.builder().id(1L).status("running").build()));
+    // the batch holding line 1 commits after the one holding line 2
+    when(jobLogLinesRepository.findAllByJobIdAndSeqGreaterThanEqualOrderBySeqAsc(1L, 0))
+        .thenReturn(
+            List.of(
+                JobLogLine.builder().jobId(1L).seq(0).message("zero").build(),
+                JobLogLine.builder().jobId(1L).seq(2).message("two").build()));
+    when(jobLogLinesRepository.findAllByJobIdAndSeqGreaterThanEqualOrderBySeqAsc(1L, 1))
+        .thenReturn(
+            List.of(
+                JobLogLine.builder().jobId(1L).seq(1).message("one").build(),
+                JobLogLine.builder().jobId(1L).seq(2).message("two").build()));
+    Runnable poll = startStream(0);
+
+    // act
+    poll.run();
+    poll.run();
+    poll.run();
+
+    // assert
+    InOrder inOrder = inOrder(jobLogLinesRepository);
+    inOrder.verify(jobLogLinesRepository).findAllByJobIdAndSeqGreaterThanEqualOrderBySeqAsc(1L, 0);
+    inOrder.verify(jobLogLinesRepository).findAllByJobIdAndSeqGreaterThanEqualOrderBySeqAsc(1L, 1);
+    inOrder.verify(jobLogLinesRepository).findAllByJobIdAndSeqGreaterThanEqualOrderBySeqAsc(1L, 3);
+    verify(future, never()).cancel(false);
+  }
+
+  @Test
+  public void stream_keeps_polling_while_job_is_queued() throws Exception {
+    // arrange
+    when(jobsRepository.findById(1L))
+        .thenReturn(Optional.of(Job.builder().id(1L).status("queued").build()));
+    Runnable poll = startStream(0);
+
+    // act
+    poll.run();
+
+    // assert
+    verify(future, never()).cancel(false);
+  }
+
+  @Test
+  public void stream_stops_polling_when_job_finishes() throws Exception {
+    // arrange
+    when(jobsRepository.findById(1L))
+        .thenReturn(Optional.of(Job.builder().id(1L).status("error").build()));
+    Runnable poll = startStream(0);
+
+    // act
+    poll.run();
+
+    // assert
+    verify(future, times(1)).cancel(false);
+  }
+
+  @Test
+  public void stream_stops_polling_when_emitter_has_completed() throws Exception {
+    // arrange
+    when(jobsRepository.findById(1L))
+        .thenReturn(Optional.of(Job.builder().id(1L).status("error").build()));
+    Runnable poll = startStream(0);
+    poll.run();
+
+    // act
+    poll.run();
+
+    // assert
+    verify(future, times(2)).cancel(false);
+  }
+
+  @Test
+  public void stream_of_missing_job_throws() throws Exception {
+    // act & assert
+    assertThrows(EntityNotFoundException.class, () -> jobLogStreamService.stream(2L, 0));
+    verify(taskScheduler, never()).scheduleWithFixedDelay(any(Runnable.class), any(Duration.class));
+  }
+
+  @Test
+  public void stream_returns_emitter_with_configured_timeout() throws Exception {
+    // act
+    SseEmitter emitter = jobLogStreamService.stream(1L, 0);
+
+    // assert
+    assertEquals(60_000L, emitter.getTimeout());
+  }
+}
@@ -0,0 +1,169 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.models.JobRetentionStatus;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class JobRetentionServiceTests {
+
+  private static final List<String> STATUSES = List.of("complete", "error");
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private JobLogLinesRepository jobLogLinesRepository;
+
+  @Mock private TransactionTemplate transactionTemplate;
+
+  @InjectMocks private JobRetentionService jobRetentionService;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(jobRetentionService, "statuses", STATUSES);
+    ReflectionTestUtils.setField(jobRetentionService, "maxAgeDays", 90);
+    ReflectionTestUtils.setField(jobRetentionService, "keepLast", 1000);
+    ReflectionTestUtils.setField(jobRetentionService, "chunkSize", 2);
+    when(transactionTemplate.execute(any()))
+        .thenAnswer(
+            invocation ->
+                ((TransactionCallback<Integer>) invocation.getArgument(0)).doInTransaction(null));
+  }
+
+  @Test
+  public void applyRetentionPolicy_deletes_old_jobs_in_chunks() throws Exception {
+    // arrange
+    when(jobsRepository.findIdsByStatusNewestFirst(STATUSES, PageRequest.of(1000, 1)))
+        .thenReturn(List.of(40L));
+    when(jobsRepository.findIdsToPurge(eq(STATUSES), eq(40L), any()))
+        .thenReturn(List.of(1L, 2L, 3L));
+    when(jobLogLinesRepository.deleteAllByJobIdIn(List.of(1L, 2L))).thenReturn(10);
+    when(jobLogLinesRepository.deleteAllByJobIdIn(List.of(3L))).thenReturn(5);
+
+    // act
+    JobRetentionStatus result = jobRetentionService.applyRetentionPolicy();
+
+    // assert
+    verify(jobsRepository).deleteAllByIdIn(List.of(1L, 2L));
+    verify(jobsRepository).deleteAllByIdIn(List.of(3L));
+    verify(transactionTemplate, times(2)).execute(any());
+
+    ArgumentCaptor<ZonedDateTime> before = ArgumentCaptor.forClass(ZonedDateTime.class);
+    verify(jobsRepository, times(1)).findIdsToPurge(eq(STATUSES), eq(40L), before.capture());
+    ZonedDateTime expected = ZonedDateTime.now().minusDays(90);
+    assertTrue(before.getValue().isAfter(expected.minusMinutes(1)));
+    assertTrue(before.getValue().isBefore(expected.plusMinutes(1)));
+
+    assertEquals("retention policy", result.getDescription());
+    assertFalse(result.getRunning());
+    assertEquals(3, result.getJobsToDelete());
+    assertEquals(3, result.getJobsDeleted());
+    assertEquals(15, result.getLogLinesDeleted());
+    assertNotNull(result.getStartedAt());
+    assertNotNull(result.getFinishedAt());
+    assertEquals(result, jobRetentionService.getStatus());
+  }
+
+  @Test
+  public void applyRetentionPolicy_keeps_everything_when_there_are_few_jobs() throws Exception {
+    // arrange
+    ReflectionTestUtils.setField(jobRetentionService, "maxAgeDays", 0);
+    when(jobsRepository.findIdsByStatusNewestFirst(STATUSES, PageRequest.of(1000, 1)))
+        .thenReturn(List.of());
+    when(jobsRepository.findIdsToPurge(STATUSES, 0L, JobRetentionService.EARLIEST))
+        .thenReturn(List.of());
+
+    // act
+    JobRetentionStatus result = jobRetentionService.applyRetentionPolicy();
+
+    // assert
+    verify(transactionTemplate, never()).execute(any());
+    assertEquals(0, result.getJobsToDelete());
+    assertEquals(0, result.getJobsDeleted());
+  }
+
+  @Test
+  public void applyRetentionPolicy_without_keep_last_only_uses_age() throws Exception {
+    // arrange
+    ReflectionTestUtils.setField(jobRetentionService, "keepLast", 0);
+    when(jobsRepository.findIdsToPurge(eq(STATUSES), eq(0L), any())).thenReturn(List.of());
+
+    // act
+    jobRetentionService.applyRetentionPolicy();
+
+    // assert
+    verify(jobsRepository, never()).findIdsByStatusNewestFirst(any(), any());
+    verify(jobsRepository).findIdsToPurge(eq(STATUSES), eq(0L), any());
+  }
+
+  @Test
+  public void purge_only_deletes_the_jobs_selected_up_front() throws Exception {
+    // arrange
+    ReflectionTestUtils.setField(jobRetentionService, "chunkSize", 1);
+    when(jobsRepository.findIdsByStatusNewestFirst(STATUSES, PageRequest.of(1000, 1)))
+        .thenReturn(List.of(40L));
+    when(jobsRepository.findIdsToPurge(eq(STATUSES), eq(40L), any())).thenReturn(List.of(1L));
+
+    // act
+    JobRetentionStatus result = jobRetentionService.applyRetentionPolicy();
+
+    // assert
+    verify(jobsRepository, times(1)).findIdsToPurge(any(), anyLong(), any());
+    verify(jobsRepository, times(1)).deleteAllByIdIn(any());
+    assertEquals(1, result.getJobsToDelete());
+    assertEquals(1, result.getJobsDeleted());
+  }
+
+  @Test
+  public void deleteAllJobs_deletes_jobs_that_are_neither_queued_nor_running() throws Exception {
+    // arrange
+    when(jobsRepository.findIdsOfInactiveJobs()).thenReturn(List.of(7L));
+
+    // act
+    JobRetentionStatus result = jobRetentionService.deleteAllJobs();
+
+    // assert
+    verify(jobLogLinesRepository).deleteAllByJobIdIn(List.of(7L));
+    verify(jobsRepository).deleteAllByIdIn(List.of(7L));
+    verify(jobsRepository, never()).findIdsToPurge(any(), anyLong(), any());
+    assertEquals("all jobs", result.getDescription());
+    assertEquals(1, result.getJobsToDelete());
+    assertEquals(1, result.getJobsDeleted());
+  }
+
+  @Test
+  public void status_is_empty_before_first_purge() throws Exception {
+    // act
+    JobRetentionStatus result = jobRetentionService.getStatus();
+
+    // assert
+    assertNull(result.getDescription());
+    assertFalse(result.getRunning());
+    verify(jobsRepository, never()).findIdsToPurge(any(), anyLong(), any());
+  }
+}
@@ -0,0 +1,589 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.JobQueueFullException;
+import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.CurrentUserService;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JobServiceTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private JobLogLinesRepository jobLogLinesRepository;
+
+  @Mock private CurrentUserService currentUserService;
+
+  @Spy private ObjectMapper mapper = new ObjectMapper();
+
+  @Mock private JobService self;
+
+  @InjectMocks private JobService jobService;
+
+  /** A consumer whose properties cannot be written as JSON. */
+  static class UnwritableJob implements JobContextConsumer {
+    public Object getConnection() {
+      throw new IllegalStateException("not serializable");
+    }
+
+    @Override
+    public void accept(JobContext ctx) {}
+  }
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(jobService, "self", self);
+    ReflectionTestUtils.setField(jobService, "queueWorkers", 2);
+    ReflectionTestUtils.setField(jobService, "staleAfterMs", 60_000L);
+    ReflectionTestUtils.setField(jobService, "maxAttempts", 3);
+    ReflectionTestUtils.setField(jobService, "logBuffered", true);
+    ReflectionTestUtils.setField(jobService, "logFlushLines", 100);
+    ReflectionTestUtils.setField(jobService, "logFlushIntervalMs", 60_000L);
+    ReflectionTestUtils.setField(jobService, "defaultTimeoutMs", 3_600_000L);
+    ReflectionTestUtils.setField(jobService, "cancelGraceMs", 5_000L);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void buffered_job_writes_its_log_in_one_batch_when_it_completes() throws Exception {
+    // Arrange
+    Job job = Job.builder().id(1L).status("running").build();
+
+    // Act
+    jobService.runJobAsync(
+        job,
+        ctx -> {
+          ctx.log("one");
+          ctx.log("two");
+          verify(jobLogLinesRepository, times(0)).appendAll(any());
+        });
+
+    // Assert
+    ArgumentCaptor<List<JobLogLine>> captor = ArgumentCaptor.forClass(List.class);
+    verify(jobLogLinesRepository, times(1)).appendAll(captor.capture());
+    assertEquals(2, captor.getValue().size());
+    verify(jobsRepository).finish(eq(1L), eq("complete"), isNull(), eq(0L), eq(0L), any());
+    assertEquals("complete", job.getStatus());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void buffered_job_that_fails_flushes_the_error_line() throws Exception {
+    // Arrange
+    Job job = Job.builder().id(2L).status("running").build();
+
+    // Act
+    jobService.runJobAsync(
+        job,
+        ctx -> {
+          ctx.log("one");
+          throw new Exception("boom");
+        });
+
+    // Assert
+    ArgumentCaptor<List<JobLogLine>> captor = ArgumentCaptor.forClass(List.class);
+    verify(jobLogLinesRepository, times(1)).appendAll(captor.capture());
+    assertEquals(
+        List.of("one", "boom"), captor.getValue().stream().map(JobLogLine::getMessage).toList());
+    assertEquals("ERROR", captor.getValue().get(1).getLevel());
+    verify(jobsRepository).finish(eq(2L), eq("error"), isNull(), eq(0L), eq(0L), any());
+    assertEquals("error", job.getStatus());
+  }
+
+  @Test
+  void unbuffered_job_writes_each_line_immediately() throws Exception {
+    // Arrange
+    ReflectionTestUtils.setField(jobService, "logBuffered", false);
+    Job job = Job.builder().id(3L).status("running").build();
+
+    // Act
+    jobService.runJobAsync(
+        job,
+        ctx -> {
+          ctx.log("one");
+          verify(jobLogLinesRepository, times(1)).appendAll(any());
+          ctx.log("two");
+        });
+
+    // Assert
+    verify(jobLogLinesRepository, times(2)).appendAll(any());
+  }
+
+  @Test
+  void periodic_flush_writes_pending_lines_of_running_jobs() throws Exception {
+    // Arrange
+    Job job = Job.builder().id(4L).status("running").build();
+
+    // Act
+    jobService.runJobAsync(
+        job,
+        ctx -> {
+          ctx.log("one");
+          jobService.flushRunningJobLogs();
+          verify(jobLogLinesRepository, times(1)).appendAll(any());
+        });
+
+    // Assert
+    verify(jobLogLinesRepository, times(1)).appendAll(any());
+    jobService.flushRunningJobLogs();
+    verify(jobLogLinesRepository, times(1)).appendAll(any());
+  }
+
+  @Test
+  void runAsJob_marks_job_rejected_when_executor_is_full() throws Exception {
+    // Arrange
+    doThrow(new TaskRejectedException("full")).when(self).runJobAsync(any(), any());
+
+    // Act
+    JobQueueFullException e =
+        assertThrows(JobQueueFullException.class, () -> jobService.runAsJob(ctx -> {}));
+
+    // Assert
+    ArgumentCaptor<Job> captor = ArgumentCaptor.forClass(Job.class);
+    verify(jobsRepository, times(2)).save(captor.capture());
+    assertEquals("rejected", captor.getValue().getStatus());
+    assertEquals("Job 0 rejected: the job queue is full, try again later", e.getMessage());
+  }
+
+  @Test
+  void runAsJob_queues_jobs_that_can_be_written_as_json() throws Exception {
+    // Act
+    Job job = jobService.runAsJob(TestJob.builder().fail(true).sleepMs(5).build());
+
+    // Assert
+    verify(jobsRepository).save(job);
+    assertEquals("queued", job.getStatus());
+    assertEquals(TestJob.class.getName(), job.getType());
+    assertEquals("{\"fail\":true,\"sleepMs\":5}", job.getParams());
+    assertNull(job.getClaimedBy());
+    assertEquals(3_600_000L, job.getTimeoutMs());
+    verify(self, never()).runJobAsync(any(), any());
+  }
+
+  @Test
+  void runAsJob_runs_lambdas_right_away() throws Exception {
+    // Arrange
+    JobContextConsumer lambda = ctx -> {};
+
+    // Act
+    Job job = jobService.runAsJob(lambda);
+
+    // Assert
+    assertEquals("running", job.getStatus());
+    assertNull(job.getType());
+    assertEquals(1, job.getAttempts());
+    verify(self).runJobAsync(job, lambda);
+  }
+
+  @Test
+  void runAsJob_runs_anonymous_local_and_unwritable_consumers_right_away() throws Exception {
+    // Arrange
+    class LocalJob implements JobContextConsumer {
+      @Override
+      public void accept(JobContext ctx) {}
+    }
+    JobContextConsumer anonymous =
+        new JobContextConsumer() {
+          @Override
+          public void accept(JobContext ctx) {}
+        };
+
+    // Act
+    Job job1 = jobService.runAsJob(anonymous);
+    Job job2 = jobService.runAsJob(new LocalJob());
+    Job job3 = jobService.runAsJob(new UnwritableJob());
+
+    // Assert
+    assertEquals("running", job1.getStatus());
+    assertEquals("running", job2.getStatus());
+    assertEquals("running", job3.getStatus());
+    verify(self, times(3)).runJobAsync(any(), any());
+  }
+
+  @Test
+  void pollQueue_claims_and_runs_queued_jobs() throws Exception {
+    // Arrange
+    Job job =
+        Job.builder()
+            .id(5L)
+            .status("running")
+            .type(TestJob.class.getName())
+            .params("{\"fail\":false,\"sleepMs\":7}")
+            .attempts(1)
+            .build();
+    when(jobsRepository.findQueuedJobIds(any())).thenReturn(List.of(5L, 6L));
+    when(jobsRepository.claim(eq(5L), any(), any())).thenReturn(1);
+    when(jobsRepository.claim(eq(6L), any(), any())).thenReturn(0);
+    when(jobsRepository.findById(5L)).thenReturn(Optional.of(job));
+
+    // Act
+    jobService.pollQueue();
+    jobService.sendHeartbeats();
+
+    // Assert
+    ArgumentCaptor<JobContextConsumer> captor = ArgumentCaptor.forClass(JobContextConsumer.class);
+    verify(self, times(1)).runJobAsync(eq(job), captor.capture());
+    TestJob testJob = (TestJob) captor.getValue();
+    assertEquals(7, testJob.getSleepMs());
+    verify(jobsRepository, never()).findById(6L);
+    verify(jobsRepository).heartbeat(eq(Set.of(5L)), any());
+  }
+
+  @Test
+  void pollQueue_does_nothing_when_all_workers_are_busy() throws Exception {
+    // Arrange
+    ReflectionTestUtils.setField(jobService, "queueWorkers", 1);
+    jobService.runAsJob(ctx -> {});
+
+    // Act
+    jobService.pollQueue();
+
+    // Assert
+    verify(jobsRepository, never()).findQueuedJobIds(any());
+  }
+
+  @Test
+  void pollQueue_requeues_job_when_executor_is_full() throws Exception {
+    // Arrange
+    Job job =
+        Job.builder()
+            .id(5L)
+            .status("running")
+            .type(TestJob.class.getName())
+            .params("{}")
+            .claimedBy("me")
+            .build();
+    when(jobsRepository.findQueuedJobIds(any())).thenReturn(List.of(5L));
+    when(jobsRepository.claim(eq(5L), any(), any())).thenReturn(1);
+    when(jobsRepository.findById(5L)).thenReturn(Optional.of(job));
+    doThrow(new TaskRejectedException("full")).when(self).runJobAsync(any(), any());
+
+    // Act
+    jobService.pollQueue();
+    jobService.sendHeartbeats();
+
+    // Assert
+    verify(jobsRepository).save(job);
+    assertEquals("queued", job.getStatus());
+    assertNull(job.getClaimedBy());
+    verify(jobsRepository, never()).heartbeat(any(), any());
+  }
+
+  @Test
+  void queued_job_of_unknown_type_fails_when_run() throws Exception {
+    // Arrange
+    Job job = Job.builder().id(5L).status("running").type("NoSuchJob").params("{}").build();
+    when(jobsRepository.findQueuedJobIds(any())).thenReturn(List.of(5L));
+    when(jobsRepository.claim(eq(5L), any(), any())).thenReturn(1);
+    when(jobsRepository.findById(5L)).thenReturn(Optional.of(job));
+
+    // Act
+    jobService.pollQueue();
+
+    // Assert
+    ArgumentCaptor<JobContextConsumer> captor = ArgumentCaptor.forClass(JobContextConsumer.class);
+    verify(self).runJobAsync(eq(job), captor.capture());
+    Exception e = assertThrows(Exception.class, () -> captor.getValue().accept(null));
+    assertEquals(
+        "Could not load job of type NoSuchJob: java.lang.ClassNotFoundException: NoSuchJob",
+        e.getMessage());
+  }
+
+  @Test
+  void recoverStaleJobs_requeues_and_fails_stale_jobs() throws Exception {
+    // Arrange
+    when(jobsRepository.requeueStaleJobs(any(), anyInt(), any())).thenReturn(1, 0, 0);
+    when(jobsRepository.failStaleJobs(any(), any())).thenReturn(0, 1, 0);
+
+    // Act
+    jobService.recoverStaleJobs();
+    jobService.recoverStaleJobs();
+    jobService.recoverStaleJobs();
+
+    // Assert
+    verify(jobsRepository, times(3)).requeueStaleJobs(any(), eq(3), any());
+    verify(jobsRepository, times(3)).failStaleJobs(any(), any());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void restarted_job_continues_numbering_its_log_lines() throws Exception {
+    // Arrange
+    Job job = Job.builder().id(8L).status("running").attempts(2).build();
+    when(jobLogLinesRepository.countByJobId(8L)).thenReturn(3L);
+
+    // Act
+    jobService.runJobAsync(job, ctx -> ctx.log("hello"));
+
+    // Assert
+    ArgumentCaptor<List<JobLogLine>> captor = ArgumentCaptor.forClass(List.class);
+    verify(jobLogLinesRepository).appendAll(captor.capture());
+    List<JobLogLine> lines = captor.getValue();
+    assertEquals(List.of(3, 4), lines.stream().map(JobLogLine::getSeq).toList());
+    assertEquals("Restarting job (attempt 2)", lines.get(0).getMessage());
+    assertEquals("complete", job.getStatus());
+  }
+
+  @Test
+  void progress_is_saved_periodically_and_when_the_job_ends() throws Exception {
+    // Arrange
+    Job job = Job.builder().id(9L).status("running").build();
+
+    // Act
+    jobService.runJobAsync(
+        job,
+        ctx -> {
+          ctx.phase("counting");
+          ctx.progress(1, 4);
+          jobService.saveRunningJobProgress();
+          jobService.saveRunningJobProgress();
+          verify(jobsRepository, times(1))
+              .updateProgress(eq(9L), eq("counting"), eq(1L), eq(4L), any());
+          ctx.advance(3);
+        });
+
+    // Assert
+    verify(jobsRepository, times(1)).updateProgress(anyLong(), any(), anyLong(), anyLong(), any());
+    assertEquals("counting", job.getPhase());
+    assertEquals(4, job.getProgressDone());
+    assertEquals(4, job.getProgressTotal());
+    assertNotNull(job.getProgressAt());
+    verify(jobsRepository).finish(eq(9L), eq("complete"), eq("counting"), eq(4L), eq(4L), any());
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<String> loggedMessages() {
+    ArgumentCaptor<List<JobLogLine>> captor = ArgumentCaptor.forClass(List.class);
+    verify(jobLogLinesRepository).appendAll(captor.capture());
+    return captor.getValue().stream().map(JobLogLine::getMessage).toList();
+  }
+
+  @Test
+  void runAsJob_sets_the_given_timeout() throws Exception {
+    // Act
+    Job queued = jobService.runAsJob(TestJob.builder().sleepMs(5).build(), 50L);
+    Job running = jobService.runAsJob(ctx -> {}, 0L);
+
+    // Assert
+    assertEquals(50L, queued.getTimeoutMs());
+    assertEquals(0L, running.getTimeoutMs());
+  }
+
+  @Test
+  void cancelJob_cancels_queued_job_right_away() throws Exception {
+    // Arrange
+    Job job = Job.builder().id(10L).status("queued").build();
+    Job cancelled = Job.builder().id(10L).status("cancelled").build();
+    when(jobsRepository.findById(10L)).thenReturn(Optional.of(job), Optional.of(cancelled));
+    when(jobsRepository.cancelQueued(eq(10L), any())).thenReturn(1);
+
+    // Act
+    Job result = jobService.cancelJob(10L);
+
+    // Assert
+    assertEquals("cancelled", result.getStatus());
+    verify(jobsRepository, never()).requestCancel(anyLong(), any());
+  }
+
+  @Test
+  void cancelJob_asks_instance_running_the_job_to_stop_it() throws Exception {
+    // Arrange
+    Job job = Job.builder().id(10L).status("running").build();
+    when(jobsRepository.findById(10L)).thenReturn(Optional.of(job));
+
+    // Act
+    Job result = jobService.cancelJob(10L);
+
+    // Assert
+    assertEquals("running", result.getStatus());
+    verify(jobsRepository).requestCancel(eq(10L), any());
+  }
+
+  @Test
+  void cancelJob_leaves_finished_jobs_alone() throws Exception {
+    // Arrange
+    Job job = Job.builder().id(10L).status("complete").build();
+    when(jobsRepository.findById(10L)).thenReturn(Optional.of(job));
+
+    // Act
+    Job result = jobService.cancelJob(10L);
+
+    // Assert
+    assertEquals(job, result);
+    verify(jobsRepository, never()).cancelQueued(anyLong(), any());
+    verify(jobsRepository, never()).requestCancel(anyLong(), any());
+  }
+
+  @Test
+  void cancelJob_of_missing_job_throws() throws Exception {
+    // Act
+    EntityNotFoundException e =
+        assertThrows(EntityNotFoundException.class, () -> jobService.cancelJob(10L));
+
+    // Assert
+    assertEquals("Job with id 10 not found", e.getMessage());
+  }
+
+  @Test
+  void cancelled_job_that_returns_early_is_saved_as_cancelled() throws Exception {
+    // Arrange
+    Job job = Job.builder().id(11L).status("running").build();
+    when(jobsRepository.findById(11L)).thenReturn(Optional.of(job));
+
+    // Act
+    jobService.runJobAsync(
+        job,
+        ctx -> {
+          jobService.cancelJob(11L);
+          assertTrue(ctx.isCancelled());
+        });
+
+    // Assert
+    verify(jobsRepository).requestCancel(eq(11L), any());
+    assertEquals("cancelled", job.getStatus());
+    assertNotNull(job.getCancelRequestedAt());
+    assertEquals(List.of("Job cancelled"), loggedMessages());
+    verify(jobsRepository).finish(eq(11L), eq("cancelled"), isNull(), eq(0L), eq(0L), any());
+    // the job row is not written back, which would clear the cancel request
+    verify(jobsRepository, never()).save(any());
+  }
+
+  @Test
+  void cancelled_job_that_does_not_stop_is_interrupted() throws Exception {
+    // Arrange
+    ReflectionTestUtils.setField(jobService, "cancelGraceMs", 0L);
+    Job job = Job.builder().id(12L).status("running").build();
+    when(jobsRepository.findById(12L)).thenReturn(Optional.of(job));
+
+    // Act
+    jobService.runJobAsync(
+        job,
+        ctx -> {
+          jobService.cancelJob(12L);
+          jobService.enforceJobLimits();
+          Thread.sleep(60_000);
+        });
+
+    // Assert
+    assertFalse(Thread.currentThread().isInterrupted());
+    assertEquals("cancelled", job.getStatus());
+    assertEquals(List.of("Job cancelled"), loggedMessages());
+  }
+
+  @Test
+  void job_that_runs_past_its_timeout_is_saved_as_timeout() throws Exception {
+    // Arrange
+    Job job = Job.builder().id(13L).status("running").timeoutMs(1).build();
+
+    // Act
+    jobService.runJobAsync(
+        job,
+        ctx -> {
+          Thread.sleep(5);
+          jobService.enforceJobLimits();
+          assertTrue(ctx.isCancelled());
+        });
+
+    // Assert
+    assertEquals("timeout", job.getStatus());
+    assertEquals(List.of("Job timed out after 1 ms"), loggedMessages());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void heartbeat_picks_up_jobs_cancelled_through_another_instance() throws Exception {
+    // Arrange
+    Job job = Job.builder().id(14L).status("running").build();
+    Set<Long> claimedJobs = (Set<Long>) ReflectionTestUtils.getField(jobService, "claimedJobs");
+    when(jobsRepository.findCancelRequestedIds(any())).thenReturn(List.of(14L, 15L));
+
+    // Act
+    jobService.runJobAsync(
+        job,
+        ctx -> {
+          claimedJobs.add(14L);
+          jobService.sendHeartbeats();
+          assertTrue(ctx.isCancelled());
+        });
+
+    // Assert
+    assertEquals("cancelled", job.getStatus());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void job_is_released_when_saving_its_result_fails() throws Exception {
+    // Arrange
+    Job job = Job.builder().id(16L).status("running").build();
+    Set<Long> claimedJobs = (Set<Long>) ReflectionTestUtils.getField(jobService, "claimedJobs");
+    claimedJobs.add(16L);
+    when(jobsRepository.finish(eq(16L), any(), any(), anyLong(), anyLong(), any()))
+        .thenThrow(new DataAccessResourceFailureException("database down"));
+
+    // Act
+    assertThrows(
+        DataAccessResourceFailureException.class,
+        () -> jobService.runJobAsync(job, ctx -> ctx.log("one")));
+    jobService.sendHeartbeats();
+
+    // Assert
+    assertFalse(claimedJobs.contains(16L));
+    verify(jobsRepository, never()).heartbeat(any(), any());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void job_is_released_when_writing_its_log_fails() throws Exception {
+    // Arrange
+    Job job = Job.builder().id(17L).status("running").build();
+    Set<Long> claimedJobs = (Set<Long>) ReflectionTestUtils.getField(jobService, "claimedJobs");
+    claimedJobs.add(17L);
+    doThrow(new DataAccessResourceFailureException("database down"))
+        .when(jobLogLinesRepository)
+        .appendAll(any());
+
+    // Act
+    assertThrows(
+        DataAccessResourceFailureException.class,
+        () -> jobService.runJobAsync(job, ctx -> ctx.log("one")));
+
+    // Assert
+    assertFalse(claimedJobs.contains(17L));
+    verify(jobsRepository, never()).finish(anyLong(), any(), any(), anyLong(), anyLong(), any());
+  }
+}
@@ -1,8 +1,10 @@
 package edu.ucsb.cs156.example.testconfig;
 
 import edu.ucsb.cs156.example.config.SecurityConfig;
+import edu.ucsb.cs156.example.services.AdminRoleResolver;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
+import edu.ucsb.cs156.example.services.UserService;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
@@ -20,4 +22,14 @@ public class TestConfig {
   public GrantedAuthoritiesService grantedAuthoritiesService() {
     return new GrantedAuthoritiesService();
   }
+
+  @Bean
+  public UserService userService() {
+    return new UserService();
+  }
+
+  @Bean
+  public AdminRoleResolver adminRoleResolver() {
+    return new AdminRoleResolver();
+  }
 }